@@ -0,0 +1,58 @@
+package guru.springframework.spring6restmvc.benchmarks;
+
+import guru.springframework.spring6restmvc.model.BeerCSVRecord;
+import guru.springframework.spring6restmvc.services.BeerCsvService;
+import guru.springframework.spring6restmvc.services.BeerCsvServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ResourceUtils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Parsing the bundled csvdata/beers.csv (about 2400 rows), all at once and streamed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeerCsvBenchmark {
+
+    BeerCsvService beerCsvService;
+    File csvFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws FileNotFoundException {
+        beerCsvService = new BeerCsvServiceImpl();
+        csvFile = ResourceUtils.getFile("classpath:csvdata/beers.csv");
+    }
+
+    @Benchmark
+    public List<BeerCSVRecord> convertCSV() {
+        return beerCsvService.convertCSV(csvFile);
+    }
+
+    @Benchmark
+    public long streamCSV() throws IOException {
+        try (Stream<BeerCSVRecord> records = beerCsvService.streamCSV(new FileReader(csvFile), e -> { })) {
+            return records.count();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package guru.springframework.spring6restmvc.benchmarks;
+
+import com.opencsv.bean.CsvToBeanBuilder;
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.model.BeerCSVRecord;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.services.BeerCsvImportServiceImpl;
+import guru.springframework.spring6restmvc.services.BeerCsvServiceImpl;
+import guru.springframework.spring6restmvc.services.BeerStyleTable;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * CSV rows to Beer entities, the way the import used to do it (OpenCSV binding all 15 columns by
+ * reflection, then a builder with a per row timestamp) against the way it does now:
+ * BeerCsvServiceImpl.streamCSV binding 4 columns by index, mapped by BeerCsvImportServiceImpl.toBeer
+ * with the style table. The bundled beers.csv is repeated copies times, 1000 by default, about
+ * 2.4M rows; run with -prof gc to compare allocation per operation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class BeerCsvMappingBenchmark {
+
+    @Param({"1000"})
+    int copies;
+
+    Path csvFile;
+    BeerStyleTable beerStyleTable;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        beerStyleTable = new BeerStyleTable(new ClassPathResource("csvdata/beer-styles.csv"), BeerStyle.PILSNER);
+
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource("csvdata/beers.csv").getInputStream(), StandardCharsets.UTF_8))) {
+            lines = reader.lines().toList();
+        }
+
+        csvFile = Files.createTempFile("beers-x" + copies, ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+            writer.write(lines.get(0));
+            writer.newLine();
+            for (int copy = 0; copy < copies; copy++) {
+                for (String line : lines.subList(1, lines.size())) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    @Benchmark
+    public long openCsv(Blackhole blackhole) throws IOException {
+        long beers = 0;
+
+        try (Reader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            Iterator<BeerCSVRecord> records = new CsvToBeanBuilder<BeerCSVRecord>(reader)
+                    .withType(BeerCSVRecord.class)
+                    .build().iterator();
+
+            while (records.hasNext()) {
+                BeerCSVRecord beerCSVRecord = records.next();
+                blackhole.consume(Beer.builder()
+                        .beerName(StringUtils.abbreviate(beerCSVRecord.getBeer(), 50))
+                        .beerStyle(beerStyleTable.lookup(beerCSVRecord.getStyle()))
+                        .price(BigDecimal.TEN)
+                        .upc(beerCSVRecord.getRow() != null ? beerCSVRecord.getRow().toString() : null)
+                        .quantityOnHand(beerCSVRecord.getCount())
+                        .createdDate(LocalDateTime.now())
+                        .build());
+                beers++;
+            }
+        }
+        return beers;
+    }
+
+    @Benchmark
+    public long streamCsv(Blackhole blackhole) throws IOException {
+        long beers = 0;
+        LocalDateTime createdDate = LocalDateTime.now();
+
+        try (Stream<BeerCSVRecord> records = new BeerCsvServiceImpl().streamCSV(
+                Files.newBufferedReader(csvFile, StandardCharsets.UTF_8), blackhole::consume)) {
+            Iterator<BeerCSVRecord> iterator = records.iterator();
+
+            while (iterator.hasNext()) {
+                BeerCSVRecord beerCSVRecord = iterator.next();
+                blackhole.consume(BeerCsvImportServiceImpl.toBeer(beerCSVRecord,
+                        beerStyleTable.lookup(beerCSVRecord.getStyle()), createdDate));
+                beers++;
+            }
+        }
+        return beers;
+    }
+}
@@ -0,0 +1,51 @@
+package guru.springframework.spring6restmvc.benchmarks;
+
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BeerServiceJPA.listBeers through the Spring proxies, as the controller calls it. The total count
+ * is served from the count cache after the first call, as in production.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeerListBenchmark {
+
+    @Benchmark
+    public Page<BeerDTO> listFirstPage(SpringContextState spring) {
+        return spring.beerService.listBeers(null, null, false, 1, 25);
+    }
+
+    @Benchmark
+    public Page<BeerDTO> listDeepPage(SpringContextState spring) {
+        return spring.beerService.listBeers(null, null, false, 90, 25);
+    }
+
+    @Benchmark
+    public Page<BeerDTO> listByName(SpringContextState spring) {
+        return spring.beerService.listBeers("IPA", null, false, 1, 25);
+    }
+
+    @Benchmark
+    public Page<BeerDTO> listByStyle(SpringContextState spring) {
+        return spring.beerService.listBeers(null, BeerStyle.IPA, false, 1, 25);
+    }
+
+    @Benchmark
+    public Page<BeerDTO> listByNameAndStyle(SpringContextState spring) {
+        return spring.beerService.listBeers("IPA", BeerStyle.IPA, true, 1, 25);
+    }
+}
@@ -0,0 +1,71 @@
+package guru.springframework.spring6restmvc.benchmarks;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.mappers.BeerMapper;
+import guru.springframework.spring6restmvc.mappers.BeerMapperImpl;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeerMapperBenchmark {
+
+    BeerMapper beerMapper;
+    Beer beer;
+    List<Beer> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        beerMapper = new BeerMapperImpl();
+        page = new ArrayList<>();
+
+        for (int i = 0; i < 25; i++) {
+            page.add(Beer.builder()
+                    .id(UUID.randomUUID())
+                    .version(i)
+                    .beerName("Benchmark Beer " + i)
+                    .beerStyle(BeerStyle.values()[i % BeerStyle.values().length])
+                    .upc("0631234" + i)
+                    .quantityOnHand(i * 10)
+                    .price(new BigDecimal("12.99"))
+                    .createdDate(LocalDateTime.now())
+                    .updateDate(LocalDateTime.now())
+                    .build());
+        }
+        beer = page.get(0);
+    }
+
+    @Benchmark
+    public BeerDTO beerToBeerDto() {
+        return beerMapper.beerToBeerDto(beer);
+    }
+
+    @Benchmark
+    public void beerToBeerDtoPage(Blackhole blackhole) {
+        for (Beer pageBeer : page) {
+            blackhole.consume(beerMapper.beerToBeerDto(pageBeer));
+        }
+    }
+}
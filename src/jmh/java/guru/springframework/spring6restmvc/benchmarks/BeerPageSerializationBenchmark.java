@@ -0,0 +1,47 @@
+package guru.springframework.spring6restmvc.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a listing page with the application's ObjectMapper, i.e. the body
+ * of GET /api/v1/beer without the HTTP layer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeerPageSerializationBenchmark {
+
+    @Param({"25", "1000"})
+    int pageSize;
+
+    Page<BeerDTO> page;
+
+    @Setup(Level.Trial)
+    public void loadPage(SpringContextState spring) {
+        page = spring.beerService.listBeers(null, null, true, 1, pageSize);
+    }
+
+    @Benchmark
+    public byte[] serializePage(SpringContextState spring) throws JsonProcessingException {
+        return spring.objectMapper.writeValueAsBytes(page);
+    }
+}
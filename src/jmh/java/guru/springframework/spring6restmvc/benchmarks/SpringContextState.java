@@ -0,0 +1,44 @@
+package guru.springframework.spring6restmvc.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.spring6restmvc.Spring6RestMvcApplication;
+import guru.springframework.spring6restmvc.services.BeerService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The application as it runs by default: H2 loaded with the CSV dataset by BootstrapData, started
+ * once per fork and shared by every benchmark method of the fork.
+ */
+@State(Scope.Benchmark)
+public class SpringContextState {
+
+    ConfigurableApplicationContext context;
+    BeerService beerService;
+    ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void start() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        context = new SpringApplicationBuilder(Spring6RestMvcApplication.class)
+                .properties("server.port=0",
+                        "spring.main.banner-mode=off",
+                        "spring.docker.compose.enabled=false",
+                        "logging.level.root=warn")
+                .run();
+
+        beerService = context.getBean(BeerService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+}
@@ -0,0 +1,149 @@
+package guru.springframework.spring6restmvc.benchmarks;
+
+import guru.springframework.spring6restmvc.entities.TimeOrderedUuidGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primary key layouts side by side over plain JDBC: the old varchar(36) column holding random v4
+ * UUID text against binary(16) holding time ordered v7 UUIDs. Runs on in-memory H2 by default,
+ * point jdbcUrl/username/password at a MySQL schema (-p on org.openjdk.jmh.Main) to see InnoDB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UuidKeyBenchmark {
+
+    static final int PRELOADED_ROWS = 100_000;
+    static final int INSERT_BATCH = 100;
+
+    @Param({"CHAR36_V4", "BINARY16_V7"})
+    KeyLayout layout;
+
+    @Param({"jdbc:h2:mem:uuid_keys;DB_CLOSE_DELAY=-1"})
+    String jdbcUrl;
+
+    @Param({"sa"})
+    String username;
+
+    @Param({""})
+    String password;
+
+    Connection connection;
+    PreparedStatement insert;
+    PreparedStatement lookup;
+    List<Object> preloadedKeys;
+
+    public enum KeyLayout {
+        CHAR36_V4("varchar(36)") {
+            @Override
+            Object nextKey() {
+                return UUID.randomUUID().toString();
+            }
+        },
+        BINARY16_V7("binary(16)") {
+            @Override
+            Object nextKey() {
+                UUID uuid = TimeOrderedUuidGenerator.nextUuid();
+                return ByteBuffer.allocate(16)
+                        .putLong(uuid.getMostSignificantBits())
+                        .putLong(uuid.getLeastSignificantBits())
+                        .array();
+            }
+        };
+
+        final String columnType;
+
+        KeyLayout(String columnType) {
+            this.columnType = columnType;
+        }
+
+        abstract Object nextKey();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(jdbcUrl, username, password);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists uuid_key_bench");
+            statement.execute("create table uuid_key_bench (id " + layout.columnType + " not null, " +
+                    "beer_name varchar(50) not null, primary key (id))");
+        }
+
+        insert = connection.prepareStatement("insert into uuid_key_bench (id, beer_name) values (?, ?)");
+        lookup = connection.prepareStatement("select beer_name from uuid_key_bench where id = ?");
+
+        preloadedKeys = new ArrayList<>(PRELOADED_ROWS);
+        connection.setAutoCommit(false);
+        for (int i = 0; i < PRELOADED_ROWS; i++) {
+            Object key = layout.nextKey();
+            preloadedKeys.add(key);
+            insert.setObject(1, key);
+            insert.setString(2, "Beer " + i);
+            insert.addBatch();
+            if (i % 1000 == 999) {
+                insert.executeBatch();
+            }
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table uuid_key_bench");
+        }
+        connection.commit();
+        connection.close();
+    }
+
+    //one committed batch, the table keeps growing across iterations as a real beer table would
+    @Benchmark
+    public int[] insertBatch() throws SQLException {
+        for (int i = 0; i < INSERT_BATCH; i++) {
+            insert.setObject(1, layout.nextKey());
+            insert.setString(2, "Inserted Beer");
+            insert.addBatch();
+        }
+        int[] counts = insert.executeBatch();
+        connection.commit();
+        return counts;
+    }
+
+    @Benchmark
+    public String lookupById() throws SQLException {
+        lookup.setObject(1, preloadedKeys.get(ThreadLocalRandom.current().nextInt(PRELOADED_ROWS)));
+        try (ResultSet resultSet = lookup.executeQuery()) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+}
@@ -2,25 +2,24 @@ package guru.springframework.spring6restmvc.bootstrap;
 
 import guru.springframework.spring6restmvc.entities.Beer;
 import guru.springframework.spring6restmvc.entities.Customer;
-import guru.springframework.spring6restmvc.model.BeerCSVRecord;
+import guru.springframework.spring6restmvc.model.BeerImportJobDTO;
+import guru.springframework.spring6restmvc.model.BeerImportMode;
 import guru.springframework.spring6restmvc.model.BeerStyle;
 import guru.springframework.spring6restmvc.repositories.BeerRepository;
 import guru.springframework.spring6restmvc.repositories.CustomerRepository;
 
-import guru.springframework.spring6restmvc.services.BeerCsvService;
-import jakarta.transaction.Transactional;
+import guru.springframework.spring6restmvc.services.BeerImportJobService;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.ResourceUtils;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
-import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -28,10 +27,13 @@ public class BootstrapData implements CommandLineRunner {
 
     private final BeerRepository beerRepository;
     private final CustomerRepository customerRepository;
-    private final BeerCsvService beerCsvService;
+    private final BeerImportJobService beerImportJobService;
+
+    //the CSV is imported as a background job, startup only waits for it when this is off
+    @Value("${beer.bootstrap.async-csv-import:false}")
+    private boolean asyncCsvImport;
 
 
-    @Transactional
     @Override
     public void run(String... args) throws Exception {
 
@@ -42,36 +44,20 @@ public class BootstrapData implements CommandLineRunner {
     }
 
 
-    private void loadCsvData() throws FileNotFoundException {
+    private void loadCsvData() throws IOException {
         if (beerRepository.count() < 10){
-            File file = ResourceUtils.getFile("classpath:csvdata/beers.csv");
-
-            List<BeerCSVRecord> recs = beerCsvService.convertCSV(file);
-
-            recs.forEach(beerCSVRecord -> {
-                BeerStyle beerStyle = switch (beerCSVRecord.getStyle()) {
-                    case "American Pale Lager" -> BeerStyle.LAGER;
-                    case "American Pale Ale (APA)", "American Black Ale", "Belgian Dark Ale", "American Blonde Ale" ->
-                            BeerStyle.ALE;
-                    case "American IPA", "American Double / Imperial IPA", "Belgian IPA" -> BeerStyle.IPA;
-                    case "American Porter" -> BeerStyle.PORTER;
-                    case "Oatmeal Stout", "American Stout" -> BeerStyle.STOUT;
-                    case "Saison / Farmhouse Ale" -> BeerStyle.SAISON;
-                    case "Fruit / Vegetable Beer", "Winter Warmer", "Berliner Weissbier" -> BeerStyle.WHEAT;
-                    case "English Pale Ale" -> BeerStyle.PALE_ALE;
-                    default -> BeerStyle.PILSNER;
-
-                };
-
-                beerRepository.save(Beer.builder()
-                        .beerName(StringUtils.abbreviate(beerCSVRecord.getBeer(), 50))
-                                .beerStyle(beerStyle)
-                                .price(BigDecimal.TEN)
-                                .upc(beerCSVRecord.getRow().toString())
-                                .quantityOnHand(beerCSVRecord.getCount())
-                                .createdDate(LocalDateTime.now())
-                        .build());
-            });
+            ClassPathResource csv = new ClassPathResource("csvdata/beers.csv");
+
+            //keyed on UPC, so uploading the same file again later only writes what changed
+            BeerImportJobDTO job = beerImportJobService.submitImport(csv.getFilename(), csv.getInputStream(),
+                    BeerImportMode.UPSERT);
+
+            if (asyncCsvImport) {
+                System.out.println("Import delle birre dal CSV avviato, job " + job.getId());
+            } else {
+                BeerImportJobDTO report = beerImportJobService.awaitJob(job.getId(), Duration.ofMinutes(10)).orElseThrow();
+                System.out.println("Caricate " + report.getBeersInserted() + " birre dal CSV, scartate " + report.getRowsRejected());
+            }
         }
     }
 
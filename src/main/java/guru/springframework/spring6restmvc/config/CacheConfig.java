@@ -0,0 +1,32 @@
+package guru.springframework.spring6restmvc.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The cache provider is chosen per profile through spring.cache.type, with none turning
+ * every cache annotation into a no-op.
+ */
+@EnableCaching
+@Configuration
+public class CacheConfig {
+
+    //puts and evictions made inside a transaction wait for its commit, so a read racing an uncommitted
+    //write can't put the old value back after the eviction
+    @Bean
+    static BeanPostProcessor transactionAwareCacheManager() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof CacheManager cacheManager && !(bean instanceof TransactionAwareCacheManagerProxy)) {
+                    return new TransactionAwareCacheManagerProxy(cacheManager);
+                }
+                return bean;
+            }
+        };
+    }
+}
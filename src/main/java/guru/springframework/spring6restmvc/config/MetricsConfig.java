@@ -0,0 +1,101 @@
+package guru.springframework.spring6restmvc.config;
+
+import guru.springframework.spring6restmvc.mappers.BeerMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics on top of what Actuator records on its own (http.server.requests, hikaricp.connections.acquire):
+ * JDBC statements overall and per request, MapStruct mapping time under mapper.calls, and the slow
+ * request log, see RequestMetricsFilter.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    static BeanPostProcessor statementMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementMetricsDataSource)) {
+                    return new StatementMetricsDataSource(dataSource, meterRegistry::getIfAvailable);
+                }
+                return bean;
+            }
+        };
+    }
+
+    //every mapper in the mappers package, by the interface it is injected as
+    @Bean
+    static BeanPostProcessor mapperMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        String mappersPackage = BeerMapper.class.getPackageName();
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                for (Class<?> mapper : ClassUtils.getAllInterfacesForClass(bean.getClass())) {
+                    if (mapper.getPackageName().equals(mappersPackage)) {
+                        return timed(bean, mapper);
+                    }
+                }
+                return bean;
+            }
+
+            private Object timed(Object bean, Class<?> mapper) {
+                Map<Method, Timer> timers = new ConcurrentHashMap<>();
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+
+                proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+                    MeterRegistry registry = meterRegistry.getIfAvailable();
+                    if (registry == null) {
+                        return invocation.proceed();
+                    }
+
+                    Timer timer = timers.computeIfAbsent(invocation.getMethod(), method ->
+                            Timer.builder("mapper.calls")
+                                    .description("MapStruct mapping time")
+                                    .tag("mapper", mapper.getSimpleName())
+                                    .tag("method", method.getName())
+                                    .register(registry));
+                    long start = System.nanoTime();
+                    try {
+                        return invocation.proceed();
+                    } finally {
+                        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                });
+                return proxyFactory.getProxy(bean.getClass().getClassLoader());
+            }
+        };
+    }
+
+    @Bean
+    FilterRegistrationBean<RequestMetricsFilter> requestMetricsFilter(
+            MeterRegistry meterRegistry,
+            @Value("${request-metrics.slow-threshold:1s}") Duration slowThreshold,
+            @Value("${request-metrics.trace-sample-rate:0}") double traceSampleRate,
+            @Value("${request-metrics.max-logged-statements:50}") int maxLoggedStatements) {
+        FilterRegistrationBean<RequestMetricsFilter> registration = new FilterRegistrationBean<>(
+                new RequestMetricsFilter(meterRegistry, slowThreshold, traceSampleRate, maxLoggedStatements));
+        //outside Spring Security, so authentication is part of the measured request
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
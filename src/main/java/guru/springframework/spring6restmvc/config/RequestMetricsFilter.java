@@ -0,0 +1,99 @@
+package guru.springframework.spring6restmvc.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how many JDBC statements each request ran and how long they took, per method and URI
+ * pattern like http.server.requests. Requests slower than slowThreshold are logged with the SQL they
+ * executed, and so is a random traceSampleRate share of all requests, which replaces printing every
+ * statement to stdout.
+ */
+@Slf4j
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final long slowThresholdNanos;
+    private final double traceSampleRate;
+    private final int maxLoggedStatements;
+
+    public RequestMetricsFilter(MeterRegistry meterRegistry, Duration slowThreshold, double traceSampleRate,
+                                int maxLoggedStatements) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.traceSampleRate = traceSampleRate;
+        this.maxLoggedStatements = maxLoggedStatements;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestStatistics statistics = RequestStatistics.begin(maxLoggedStatements);
+        long start = System.nanoTime();
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            RequestStatistics.end();
+            record(request, response, statistics, elapsed);
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, RequestStatistics statistics,
+                        long elapsed) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("method", request.getMethod(), "uri", pattern != null ? pattern.toString() : "UNKNOWN");
+
+        DistributionSummary.builder("http.server.requests.jdbc.statements")
+                .description("JDBC statements executed per request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(statistics.getStatementCount());
+        Timer.builder("http.server.requests.jdbc.time")
+                .description("Time spent executing JDBC statements per request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(statistics.getJdbcNanos(), TimeUnit.NANOSECONDS);
+
+        if (elapsed >= slowThresholdNanos) {
+            log.warn("Slow request " + describe(request, response, statistics, elapsed));
+        } else if (traceSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < traceSampleRate) {
+            log.info("Traced request " + describe(request, response, statistics, elapsed));
+        }
+    }
+
+    private String describe(HttpServletRequest request, HttpServletResponse response, RequestStatistics statistics,
+                            long elapsed) {
+        StringBuilder description = new StringBuilder()
+                .append(request.getMethod()).append(' ').append(request.getRequestURI())
+                .append(" (").append(response.getStatus()).append(") took ")
+                .append(TimeUnit.NANOSECONDS.toMillis(elapsed)).append("ms, ")
+                .append(statistics.getStatementCount()).append(" statements in ")
+                .append(TimeUnit.NANOSECONDS.toMillis(statistics.getJdbcNanos())).append("ms");
+
+        statistics.getExecuted().forEach(statement -> description.append("\n  ")
+                .append(TimeUnit.NANOSECONDS.toMicros(statement.nanos())).append("us ")
+                .append(statement.sql()));
+
+        int omitted = statistics.getStatementCount() - statistics.getExecuted().size();
+        if (omitted > 0) {
+            description.append("\n  ... ").append(omitted).append(" more");
+        }
+        return description.toString();
+    }
+}
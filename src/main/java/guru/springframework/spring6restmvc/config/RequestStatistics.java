@@ -0,0 +1,61 @@
+package guru.springframework.spring6restmvc.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC work done on the current thread while a request is being handled, filled in by
+ * StatementMetricsDataSource and read back by RequestMetricsFilter. Statements run on other threads
+ * (streamed responses, async work) are not counted.
+ */
+final class RequestStatistics {
+
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    record ExecutedStatement(String sql, long nanos) {}
+
+    private final int maxStatements;
+    private final List<ExecutedStatement> executed = new ArrayList<>();
+    private int statementCount;
+    private long jdbcNanos;
+
+    private RequestStatistics(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    static RequestStatistics begin(int maxStatements) {
+        RequestStatistics statistics = new RequestStatistics(maxStatements);
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    //null outside of a request
+    static RequestStatistics current() {
+        return CURRENT.get();
+    }
+
+    void record(String sql, long nanos) {
+        statementCount++;
+        jdbcNanos += nanos;
+        if (executed.size() < maxStatements) {
+            executed.add(new ExecutedStatement(sql, nanos));
+        }
+    }
+
+    int getStatementCount() {
+        return statementCount;
+    }
+
+    long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    //the first maxStatements statements, in execution order
+    List<ExecutedStatement> getExecuted() {
+        return executed;
+    }
+}
@@ -0,0 +1,12 @@
+package guru.springframework.spring6restmvc.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Background jobs such as the inventory write-behind flush, see InventoryServiceWriteBehind.
+ */
+@EnableScheduling
+@Configuration
+public class SchedulingConfig {
+}
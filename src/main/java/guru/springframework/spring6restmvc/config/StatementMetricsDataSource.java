@@ -0,0 +1,104 @@
+package guru.springframework.spring6restmvc.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times every statement executed through its connections, whether it comes from Hibernate or a
+ * JdbcTemplate: all of them go into the jdbc.statements timer, and those run while a request is
+ * handled also into that request's RequestStatistics, SQL text included.
+ */
+public class StatementMetricsDataSource extends DelegatingDataSource {
+
+    private final Supplier<MeterRegistry> meterRegistry;
+    private volatile Timer statementTimer;
+
+    //the registry is looked up on first use, the DataSource is usually created before it
+    public StatementMetricsDataSource(DataSource targetDataSource, Supplier<MeterRegistry> meterRegistry) {
+        super(targetDataSource);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return instrument(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return instrument(super.getConnection(username, password));
+    }
+
+    private Connection instrument(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+
+                    if (result instanceof Statement statement) {
+                        String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                        return instrument(statement, method.getReturnType(), sql);
+                    }
+                    return result;
+                });
+    }
+
+    //preparedSql is null for plain statements, their SQL comes with each execute call
+    private Object instrument(Statement statement, Class<?> statementType, String preparedSql) {
+        return Proxy.newProxyInstance(statementType.getClassLoader(),
+                new Class<?>[]{statementType}, (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute")) {
+                        return invoke(statement, method, args);
+                    }
+
+                    String sql = args != null && args.length > 0 && args[0] instanceof String executed
+                            ? executed : preparedSql;
+                    long start = System.nanoTime();
+                    try {
+                        return invoke(statement, method, args);
+                    } finally {
+                        record(method.getName().equals("executeBatch") ? sql + " [batch]" : sql,
+                                System.nanoTime() - start);
+                    }
+                });
+    }
+
+    private void record(String sql, long nanos) {
+        Timer timer = statementTimer;
+        if (timer == null) {
+            MeterRegistry registry = meterRegistry.get();
+            if (registry != null) {
+                timer = Timer.builder("jdbc.statements")
+                        .description("JDBC statement executions")
+                        .register(registry);
+                statementTimer = timer;
+            }
+        }
+        if (timer != null) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        RequestStatistics statistics = RequestStatistics.current();
+        if (statistics != null) {
+            statistics.record(sql, nanos);
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package guru.springframework.spring6restmvc.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Request handling (and so the service layer) runs on virtual threads when spring.threads.virtual.enabled
+ * is set; Boot switches Tomcat and the task executors over. In that mode the DataSource is wrapped in
+ * a ConnectionLimitingDataSource, with as many permits as the Hikari pool has connections unless
+ * db.connection-limiter.permits says otherwise.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(name = "db.connection-limiter.enabled", havingValue = "true", matchIfMissing = true)
+public class VirtualThreadConfig {
+
+    @Bean
+    static BeanPostProcessor connectionLimiterPostProcessor(
+            @Value("${db.connection-limiter.permits:0}") int permits,
+            @Value("${db.connection-limiter.acquire-timeout:5s}") Duration acquireTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitingDataSource)) {
+                    return new ConnectionLimitingDataSource(dataSource, permitsFor(dataSource), acquireTimeout);
+                }
+                return bean;
+            }
+
+            private int permitsFor(DataSource dataSource) {
+                if (permits > 0) {
+                    return permits;
+                }
+                //the pool may already be wrapped for metrics, an unset Hikari pool size is -1 until the pool starts, then Hikari's default of 10
+                HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+                if (hikari != null && hikari.getMaximumPoolSize() > 0) {
+                    return hikari.getMaximumPoolSize();
+                }
+                return 10;
+            }
+        };
+    }
+}
@@ -1,18 +1,40 @@
 package guru.springframework.spring6restmvc.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVWriter;
+import guru.springframework.spring6restmvc.model.BeerCursor;
 import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerOperationDTO;
+import guru.springframework.spring6restmvc.model.BeerOperationResultDTO;
+import guru.springframework.spring6restmvc.model.BeerSliceDTO;
 import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.model.BeerWithCategoriesDTO;
+import guru.springframework.spring6restmvc.services.BeerBulkService;
 import guru.springframework.spring6restmvc.services.BeerService;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 @Slf4j
@@ -21,9 +43,22 @@ import java.util.UUID;
 public class BeerController {
 
     private final BeerService beerService;
+    private final BeerBulkService beerBulkService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${beer.bulk.max-operations:10000}")
+    private int maxBulkOperations;
 
     public static final String BEER_PATH = "/api/v1/beer";
     public static final String BEER_PATH_ID = BEER_PATH + "/{beerId}";
+    public static final String BEER_BATCH_PATH = BEER_PATH + "/batch";
+    public static final String BEER_BULK_PATH = BEER_PATH + "/bulk";
+    public static final String BEER_EXPORT_PATH = BEER_PATH + "/export";
+
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    //rows written between flushes of an export, so clients see progress and nothing piles up in buffers
+    private static final int EXPORT_FLUSH_ROWS = 500;
 
     @GetMapping(BEER_PATH)
     public Page<BeerDTO> listBeer(@RequestParam(required = false) String beerName,
@@ -34,6 +69,153 @@ public class BeerController {
         return beerService.listBeers(beerName, beerStyle, showInventory, pageNumber, pageSize);
     }
 
+    /**
+     * Same listing as above, but without the total count (and its count query) in the response.
+     */
+    @GetMapping(value = BEER_PATH, params = {"includeTotal=false", "!cursor", "!category", "withCategories!=true"})
+    public Slice<BeerDTO> listBeerWithoutTotal(@RequestParam(required = false) String beerName,
+                                               @RequestParam(required = false) BeerStyle beerStyle,
+                                               @RequestParam(required = false) Boolean showInventory,
+                                               @RequestParam(required = false) Integer pageNumber,
+                                               @RequestParam(required = false) Integer pageSize) {
+        return beerService.listBeersWithoutTotal(beerName, beerStyle, showInventory, pageNumber, pageSize);
+    }
+
+    /**
+     * Keyset listing, selected by the presence of the cursor parameter. An empty cursor starts
+     * from the first beer, afterwards pass back the nextCursor of the previous response.
+     */
+    @GetMapping(value = BEER_PATH, params = {"cursor", "!category", "withCategories!=true"})
+    public BeerSliceDTO listBeerAfter(@RequestParam(required = false) String beerName,
+                                      @RequestParam(required = false) BeerStyle beerStyle,
+                                      @RequestParam(required = false) Boolean showInventory,
+                                      @RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) Integer pageSize) {
+        BeerCursor after;
+        try {
+            after = BeerCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+
+        Slice<BeerDTO> beerSlice = beerService.listBeersAfter(beerName, beerStyle, showInventory, after, pageSize);
+
+        return BeerSliceDTO.builder()
+                .content(beerSlice.getContent())
+                .size(beerSlice.getNumberOfElements())
+                .hasNext(beerSlice.hasNext())
+                .nextCursor(beerSlice.hasNext()
+                        ? BeerCursor.of(beerSlice.getContent().get(beerSlice.getNumberOfElements() - 1)).encode()
+                        : null)
+                .build();
+    }
+
+    /**
+     * Beers of one category, given by id or description, in beerName order. Pages only by pageNumber,
+     * with the total, and can't be combined with withCategories.
+     */
+    @GetMapping(value = BEER_PATH, params = "category")
+    public Page<BeerDTO> listBeerByCategory(@RequestParam String category,
+                                            @RequestParam(required = false) Boolean showInventory,
+                                            @RequestParam(required = false) Integer pageNumber,
+                                            @RequestParam(required = false) Integer pageSize,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Boolean includeTotal,
+                                            @RequestParam(required = false) Boolean withCategories) {
+        rejectPaging("category", cursor, includeTotal);
+        if (Boolean.TRUE.equals(withCategories)) {
+            throw new BadRequestException("category and withCategories can't be combined");
+        }
+        return beerService.listBeersByCategory(category, showInventory, pageNumber, pageSize);
+    }
+
+    /**
+     * A page of beers with their categories, fetched through the Beer.categories entity graph.
+     * Pages only by pageNumber, with the total.
+     */
+    @GetMapping(value = BEER_PATH, params = {"withCategories=true", "!category"})
+    public Page<BeerWithCategoriesDTO> listBeerWithCategories(@RequestParam(required = false) Integer pageNumber,
+                                                              @RequestParam(required = false) Integer pageSize,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Boolean includeTotal) {
+        rejectPaging("withCategories", cursor, includeTotal);
+        return beerService.listBeersWithCategories(pageNumber, pageSize);
+    }
+
+    //the keyset and no-total listings only exist for the plain filters, rather than silently ignore them
+    private static void rejectPaging(String listing, String cursor, Boolean includeTotal) {
+        if (cursor != null || Boolean.FALSE.equals(includeTotal)) {
+            throw new BadRequestException(listing + " listings can't be combined with cursor or includeTotal=false");
+        }
+    }
+
+    /**
+     * The whole catalog (or one style of it) in a single response, read with one sequential
+     * scan and written as it is read.
+     */
+    @GetMapping(value = BEER_EXPORT_PATH, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBeersNdjson(@RequestParam(required = false) BeerStyle beerStyle) {
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> {
+                    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                        exportBeers(beerStyle, generator, beer -> {
+                            generator.writeObject(beer);
+                            generator.writeRaw('\n');
+                        });
+                    }
+                });
+    }
+
+    @GetMapping(value = BEER_EXPORT_PATH, produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportBeersCsv(@RequestParam(required = false) BeerStyle beerStyle) {
+
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .body(outputStream -> {
+                    try (CSVWriter csvWriter = new CSVWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+                        csvWriter.writeNext(new String[]{"id", "version", "beerName", "beerStyle", "upc",
+                                "quantityOnHand", "price", "createdDate", "updateDate"});
+
+                        exportBeers(beerStyle, csvWriter, beer -> csvWriter.writeNext(new String[]{
+                                String.valueOf(beer.getId()),
+                                Objects.toString(beer.getVersion(), ""),
+                                beer.getBeerName(),
+                                Objects.toString(beer.getBeerStyle(), ""),
+                                beer.getUpc(),
+                                Objects.toString(beer.getQuantityOnHand(), ""),
+                                beer.getPrice() == null ? "" : beer.getPrice().toPlainString(),
+                                Objects.toString(beer.getCreatedDate(), ""),
+                                Objects.toString(beer.getUpdateDate(), "")}));
+                    }
+                });
+    }
+
+    private void exportBeers(BeerStyle beerStyle, Flushable output, BeerRowWriter rowWriter) throws IOException {
+        int[] rows = {0};
+
+        try {
+            beerService.forEachBeer(beerStyle, beer -> {
+                try {
+                    rowWriter.write(beer);
+                    if (++rows[0] % EXPORT_FLUSH_ROWS == 0) {
+                        output.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface BeerRowWriter {
+        void write(BeerDTO beer) throws IOException;
+    }
+
     @PostMapping(BEER_PATH)
     public ResponseEntity<BeerDTO> handlePost(@Validated @RequestBody BeerDTO beerDTO) {
         BeerDTO savedBeerDTO = beerService.saveNewBeer(beerDTO);
@@ -44,33 +226,95 @@ public class BeerController {
         return new ResponseEntity<>(headers, HttpStatus.CREATED);
     }
 
+    @PostMapping(BEER_BATCH_PATH)
+    public ResponseEntity<List<BeerDTO>> handleBatchPost(@RequestBody List<@Valid BeerDTO> beerDTOs) {
+
+        return new ResponseEntity<>(beerService.saveNewBeers(beerDTOs), HttpStatus.CREATED);
+    }
+
+    /**
+     * Mixed create/update/patch/delete operations, answered with one status per operation
+     * in request order. The request itself only fails when it is too large.
+     */
+    @PostMapping(BEER_BULK_PATH)
+    public List<BeerOperationResultDTO> handleBulk(@RequestBody List<BeerOperationDTO> operations) {
+        if (operations.size() > maxBulkOperations) {
+            throw new BadRequestException("At most " + maxBulkOperations + " operations per request");
+        }
+
+        return beerBulkService.execute(operations);
+    }
+
+    /**
+     * A matching If-None-Match is answered with 304 after a version-only lookup, without loading
+     * or serializing the beer.
+     */
     @GetMapping(BEER_PATH_ID)
-    public BeerDTO getBeerById (@PathVariable UUID beerId) {
+    public ResponseEntity<BeerDTO> getBeerById (@PathVariable UUID beerId,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        return beerService.getBeerById(beerId).orElseThrow(NotFoundException::new);
+        if (ifNoneMatch != null) {
+            String eTag = VersionETag.of(beerId, beerService.getBeerVersion(beerId).orElseThrow(NotFoundException::new));
+
+            if (VersionETag.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+
+        BeerDTO beerDTO = beerService.getBeerById(beerId).orElseThrow(NotFoundException::new);
+
+        return ResponseEntity.ok().eTag(VersionETag.of(beerId, beerDTO.getVersion())).body(beerDTO);
     }
 
+    /**
+     * With If-Match the update only goes through while the beer still has the version in the ETag,
+     * otherwise 412. The new ETag comes back on the response.
+     */
     @PutMapping(BEER_PATH_ID)
-    public ResponseEntity<BeerDTO> updateById(@PathVariable UUID beerId,@Validated @RequestBody BeerDTO beerDTO) {
+    public ResponseEntity<BeerDTO> updateById(@PathVariable UUID beerId,@Validated @RequestBody BeerDTO beerDTO,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-        if (beerService.updateBeerById(beerId, beerDTO).isEmpty()) {
-            throw new NotFoundException();
+        HttpHeaders headers = new HttpHeaders();
+
+        if (ifMatch == null) {
+            if (beerService.updateBeerById(beerId, beerDTO).isEmpty()) {
+                throw new NotFoundException();
+            }
+        } else {
+            try {
+                BeerDTO updatedBeer = beerService.updateBeerById(beerId, beerDTO,
+                        VersionETag.expectedVersion(ifMatch, beerId)).orElseThrow(NotFoundException::new);
+                headers.setETag(VersionETag.of(beerId, updatedBeer.getVersion()));
+            } catch (OptimisticLockingFailureException e) {
+                throw new PreconditionFailedException("Beer " + beerId + " was modified", e);
+            }
         }
 
-        HttpHeaders headers = new HttpHeaders();
         headers.add("Location", BEER_PATH + "/" + beerId.toString());
 
         return new ResponseEntity<>(headers, HttpStatus.NO_CONTENT);
     }
 
     @PatchMapping(BEER_PATH_ID)
-    public ResponseEntity patchUpdateById(@PathVariable UUID beerId, @RequestBody BeerDTO beerDTO) {
+    public ResponseEntity patchUpdateById(@PathVariable UUID beerId, @RequestBody BeerDTO beerDTO,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-        if (beerService.patchBeerById(beerId, beerDTO).isEmpty()){
-            throw new NotFoundException();
+        HttpHeaders headers = new HttpHeaders();
+
+        if (ifMatch == null) {
+            if (beerService.patchBeerById(beerId, beerDTO).isEmpty()){
+                throw new NotFoundException();
+            }
+        } else {
+            try {
+                BeerDTO patchedBeer = beerService.patchBeerById(beerId, beerDTO,
+                        VersionETag.expectedVersion(ifMatch, beerId)).orElseThrow(NotFoundException::new);
+                headers.setETag(VersionETag.of(beerId, patchedBeer.getVersion()));
+            } catch (OptimisticLockingFailureException e) {
+                throw new PreconditionFailedException("Beer " + beerId + " was modified", e);
+            }
         }
 
-        HttpHeaders headers = new HttpHeaders();
         headers.add("Location", BEER_PATH + "/" + beerDTO.toString());
 
         return new ResponseEntity<>(headers, HttpStatus.NO_CONTENT);
@@ -0,0 +1,60 @@
+package guru.springframework.spring6restmvc.controller;
+
+import guru.springframework.spring6restmvc.model.BeerImportJobDTO;
+import guru.springframework.spring6restmvc.model.BeerImportMode;
+import guru.springframework.spring6restmvc.services.BeerImportJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Beer CSV uploads, imported in the background. A POST answers 202 with the job, whose progress is
+ * then polled at the Location it returns. mode=UPSERT re-imports a file keyed on UPC instead of
+ * adding every row again.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+public class BeerImportController {
+
+    private final BeerImportJobService beerImportJobService;
+
+    public static final String BEER_IMPORT_PATH = BeerController.BEER_PATH + "/import";
+    public static final String BEER_IMPORT_PATH_ID = BEER_IMPORT_PATH + "/{jobId}";
+
+    @PostMapping(value = BEER_IMPORT_PATH, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BeerImportJobDTO> submitImport(@RequestParam MultipartFile file,
+                                                         @RequestParam(defaultValue = "INSERT") BeerImportMode mode)
+            throws IOException {
+        if (file.isEmpty()) {
+            throw new BadRequestException("Empty import file");
+        }
+
+        BeerImportJobDTO job = beerImportJobService.submitImport(file.getOriginalFilename(), file.getInputStream(), mode);
+        log.debug("Queued beer import job " + job.getId() + " for " + file.getOriginalFilename());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Location", BEER_IMPORT_PATH + "/" + job.getId().toString());
+
+        return new ResponseEntity<>(job, headers, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping(BEER_IMPORT_PATH)
+    public List<BeerImportJobDTO> listImportJobs() {
+        return beerImportJobService.listJobs();
+    }
+
+    @GetMapping(BEER_IMPORT_PATH_ID)
+    public BeerImportJobDTO getImportJob(@PathVariable UUID jobId) {
+        return beerImportJobService.getJob(jobId).orElseThrow(NotFoundException::new);
+    }
+}
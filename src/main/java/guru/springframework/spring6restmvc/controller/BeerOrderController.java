@@ -0,0 +1,54 @@
+package guru.springframework.spring6restmvc.controller;
+
+import guru.springframework.spring6restmvc.model.BeerOrderCreateDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.services.BeerOrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+public class BeerOrderController {
+
+    private final BeerOrderService beerOrderService;
+
+    public static final String BEER_ORDER_PATH = "/api/v1/beerOrder";
+    public static final String BEER_ORDER_PATH_ID = BEER_ORDER_PATH + "/{beerOrderId}";
+
+    @GetMapping(BEER_ORDER_PATH)
+    public Page<BeerOrderDTO> listBeerOrders(@RequestParam(required = false) Integer pageNumber,
+                                             @RequestParam(required = false) Integer pageSize) {
+        return beerOrderService.listOrders(pageNumber, pageSize);
+    }
+
+    @GetMapping(BEER_ORDER_PATH_ID)
+    public BeerOrderDTO getBeerOrderById(@PathVariable UUID beerOrderId) {
+        return beerOrderService.getOrderById(beerOrderId).orElseThrow(NotFoundException::new);
+    }
+
+    //the placed order comes back in the body, with what could be allocated per line
+    @PostMapping(BEER_ORDER_PATH)
+    public ResponseEntity<BeerOrderDTO> handlePost(@Validated @RequestBody BeerOrderCreateDTO beerOrder) {
+        BeerOrderDTO savedBeerOrder;
+        try {
+            savedBeerOrder = beerOrderService.placeOrder(beerOrder);
+        } catch (IllegalArgumentException e) {
+            log.debug("Rejected beer order - " + e.getMessage());
+            throw new BadRequestException(e.getMessage(), e);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Location", BEER_ORDER_PATH + "/" + savedBeerOrder.getId().toString());
+
+        return new ResponseEntity<>(savedBeerOrder, headers, HttpStatus.CREATED);
+    }
+}
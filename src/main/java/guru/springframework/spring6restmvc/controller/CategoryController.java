@@ -0,0 +1,76 @@
+package guru.springframework.spring6restmvc.controller;
+
+import guru.springframework.spring6restmvc.model.CategoryDTO;
+import guru.springframework.spring6restmvc.services.CategoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+public class CategoryController {
+
+    private final CategoryService categoryService;
+
+    public static final String CATEGORY_PATH = "/api/v1/category";
+    public static final String CATEGORY_PATH_ID = CATEGORY_PATH + "/{categoryId}";
+
+    @GetMapping(CATEGORY_PATH)
+    public List<CategoryDTO> listCategories() {
+        return categoryService.listCategories();
+    }
+
+    @GetMapping(CATEGORY_PATH_ID)
+    public CategoryDTO getCategoryById(@PathVariable UUID categoryId) {
+        return categoryService.getCategoryById(categoryId).orElseThrow(NotFoundException::new);
+    }
+
+    //descriptions are unique ignoring case, a taken one is a 409, also when two requests race for it
+    @PostMapping(CATEGORY_PATH)
+    public ResponseEntity<CategoryDTO> handlePost(@Validated @RequestBody CategoryDTO category) {
+        CategoryDTO savedCategory;
+        try {
+            savedCategory = categoryService.saveNewCategory(category);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Category " + category.getDescription() + " already exists", e);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Location", CATEGORY_PATH + "/" + savedCategory.getId().toString());
+
+        return new ResponseEntity<>(headers, HttpStatus.CREATED);
+    }
+
+    @PutMapping(CATEGORY_PATH_ID)
+    public ResponseEntity<CategoryDTO> updateById(@PathVariable UUID categoryId,
+                                                  @Validated @RequestBody CategoryDTO category) {
+        try {
+            if (categoryService.updateCategoryById(categoryId, category).isEmpty()) {
+                throw new NotFoundException();
+            }
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Category " + category.getDescription() + " already exists", e);
+        }
+
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @DeleteMapping(CATEGORY_PATH_ID)
+    public ResponseEntity<CategoryDTO> deleteById(@PathVariable UUID categoryId) {
+        log.debug("Deleting Category by Id - " + categoryId);
+
+        if (!categoryService.deleteById(categoryId)) {
+            throw new NotFoundException();
+        }
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
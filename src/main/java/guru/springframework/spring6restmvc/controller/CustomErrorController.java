@@ -6,6 +6,7 @@ import org.springframework.transaction.TransactionSystemException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.util.HashMap;
 import java.util.List;
@@ -20,22 +21,26 @@ public class CustomErrorController {
         ResponseEntity.BodyBuilder responseEntity = ResponseEntity.badRequest();
 
         if (exception.getCause().getCause() instanceof ConstraintViolationException) {
-            ConstraintViolationException ve = (ConstraintViolationException) exception.getCause().getCause();
-
-            List errors = ve.getConstraintViolations().stream()
-                    .map(constraintViolation -> {
-                        Map<String, String> errMap = new HashMap<>();
-                        errMap.put(constraintViolation.getPropertyPath().toString(),
-                                constraintViolation.getMessage());
-                    return errMap;
-
-                    }).collect(Collectors.toList());
-            return responseEntity.body(errors);
+            return handleJPAViolations((ConstraintViolationException) exception.getCause().getCause());
         }
 
         return responseEntity.build();
     }
 
+    //the same violations raised by a flush inside the service's transaction rather than by its commit
+    @ExceptionHandler
+    ResponseEntity handleJPAViolations(ConstraintViolationException exception){
+        List errors = exception.getConstraintViolations().stream()
+                .map(constraintViolation -> {
+                    Map<String, String> errMap = new HashMap<>();
+                    errMap.put(constraintViolation.getPropertyPath().toString(),
+                            constraintViolation.getMessage());
+                return errMap;
+
+                }).collect(Collectors.toList());
+        return ResponseEntity.badRequest().body(errors);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     ResponseEntity handleBindErrors(MethodArgumentNotValidException exception){
 
@@ -47,4 +52,18 @@ public class CustomErrorController {
                 } ).collect(Collectors.toList());
         return ResponseEntity.badRequest().body(errorList);
     }
+
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    ResponseEntity handleMethodValidationErrors(HandlerMethodValidationException exception){
+
+        List errorList = exception.getBeanResults().stream()
+                .flatMap(beanResult -> beanResult.getFieldErrors().stream()
+                        .map(fieldError -> {
+                            Map<String, String> errorMap = new HashMap<>();
+                            errorMap.put("[" + beanResult.getContainerIndex() + "]." + fieldError.getField(),
+                                    fieldError.getDefaultMessage());
+                            return errorMap;
+                        })).collect(Collectors.toList());
+        return ResponseEntity.badRequest().body(errorList);
+    }
 }
@@ -1,15 +1,24 @@
 package guru.springframework.spring6restmvc.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import guru.springframework.spring6restmvc.model.CustomerDTO;
+import guru.springframework.spring6restmvc.model.CustomerWithOrdersDTO;
 import guru.springframework.spring6restmvc.services.CustomerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.UUID;
 
 
@@ -20,14 +29,74 @@ import java.util.UUID;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final ObjectMapper objectMapper;
 
     public static final String CUSTOMER_PATH = "/api/v1/customer";
     public static final String CUSTOMER_PATH_ID = CUSTOMER_PATH + "/{customerId}";
 
     @GetMapping(CUSTOMER_PATH)
-    public List<CustomerDTO> listCustomer () {
+    public Page<CustomerDTO> listCustomer (@RequestParam(required = false) Integer pageNumber,
+                                           @RequestParam(required = false) Integer pageSize) {
 
-        return customerService.listCustomer();
+        return customerService.listCustomers(pageNumber, pageSize);
+    }
+
+    /**
+     * A page of customers with their orders, order lines and shipments, fetched through the
+     * Customer.beerOrders entity graph.
+     */
+    @GetMapping(value = CUSTOMER_PATH, params = "withOrders=true")
+    public Page<CustomerWithOrdersDTO> listCustomerWithOrders(@RequestParam(required = false) Integer pageNumber,
+                                                              @RequestParam(required = false) Integer pageSize) {
+        return customerService.listCustomersWithOrders(pageNumber, pageSize);
+    }
+
+    /**
+     * Every customer in one JSON array, written out while the rows are read, so memory use stays
+     * flat however large the table is.
+     */
+    @GetMapping(value = CUSTOMER_PATH, params = "unpaged=true")
+    public ResponseEntity<StreamingResponseBody> listAllCustomers() {
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> writeCustomers(outputStream, true));
+    }
+
+    /**
+     * Same as above as newline delimited JSON, one customer per line.
+     */
+    @GetMapping(value = CUSTOMER_PATH, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCustomers() {
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> writeCustomers(outputStream, false));
+    }
+
+    private void writeCustomers(OutputStream outputStream, boolean asArray) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            if (asArray) {
+                generator.writeStartArray();
+            }
+
+            customerService.forEachCustomer(customer -> {
+                try {
+                    generator.writeObject(customer);
+                    if (!asArray) {
+                        generator.writeRaw('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            if (asArray) {
+                generator.writeEndArray();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     @PostMapping(CUSTOMER_PATH)
@@ -43,32 +112,69 @@ public class CustomerController {
 
 
     @GetMapping(CUSTOMER_PATH_ID)
-    public CustomerDTO getCustomerById (@PathVariable UUID customerId) {
+    public ResponseEntity<CustomerDTO> getCustomerById (@PathVariable UUID customerId,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        if (ifNoneMatch != null) {
+            String eTag = VersionETag.of(customerId,
+                    customerService.getCustomerVersion(customerId).orElseThrow(NotFoundException::new));
 
-        return customerService.getCustomerById(customerId).orElseThrow(NotFoundException::new);
+            if (VersionETag.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+
+        CustomerDTO customer = customerService.getCustomerById(customerId).orElseThrow(NotFoundException::new);
+
+        return ResponseEntity.ok().eTag(VersionETag.of(customerId, customer.getVersion())).body(customer);
     }
 
     @PutMapping(CUSTOMER_PATH_ID)
-    public ResponseEntity<CustomerDTO> updateById (@PathVariable UUID customerId, @RequestBody CustomerDTO customer) {
+    public ResponseEntity<CustomerDTO> updateById (@PathVariable UUID customerId, @RequestBody CustomerDTO customer,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-        if (customerService.updateExistingCustomerById(customerId, customer).isEmpty()){
-            throw new NotFoundException();
+        HttpHeaders headers = new HttpHeaders();
+
+        if (ifMatch == null) {
+            if (customerService.updateExistingCustomerById(customerId, customer).isEmpty()){
+                throw new NotFoundException();
+            }
+        } else {
+            try {
+                CustomerDTO updatedCustomer = customerService.updateExistingCustomerById(customerId, customer,
+                        VersionETag.expectedVersion(ifMatch, customerId)).orElseThrow(NotFoundException::new);
+                headers.setETag(VersionETag.of(customerId, updatedCustomer.getVersion()));
+            } catch (OptimisticLockingFailureException e) {
+                throw new PreconditionFailedException("Customer " + customerId + " was modified", e);
+            }
         }
 
-        HttpHeaders headers = new HttpHeaders();
         headers.add("Location", CUSTOMER_PATH + "/" + customerId);
 
         return new ResponseEntity<>(headers, HttpStatus.NO_CONTENT);
     }
 
     @PatchMapping(CUSTOMER_PATH_ID)
-    public ResponseEntity patchById(@PathVariable UUID customerId, @RequestBody CustomerDTO customer) {
+    public ResponseEntity patchById(@PathVariable UUID customerId, @RequestBody CustomerDTO customer,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-        if (customerService.patchCustomerById(customerId, customer).isEmpty()){
-            throw new NotFoundException();
+        HttpHeaders headers = new HttpHeaders();
+
+        if (ifMatch == null) {
+            if (customerService.patchCustomerById(customerId, customer).isEmpty()){
+                throw new NotFoundException();
+            }
+        } else {
+            try {
+                CustomerDTO patchedCustomer = customerService.patchCustomerById(customerId, customer,
+                        VersionETag.expectedVersion(ifMatch, customerId)).orElseThrow(NotFoundException::new);
+                headers.setETag(VersionETag.of(customerId, patchedCustomer.getVersion()));
+            } catch (OptimisticLockingFailureException e) {
+                throw new PreconditionFailedException("Customer " + customerId + " was modified", e);
+            }
         }
 
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        return new ResponseEntity<>(headers, HttpStatus.NO_CONTENT);
     }
 
 
@@ -0,0 +1,56 @@
+package guru.springframework.spring6restmvc.controller;
+
+import java.util.UUID;
+
+/**
+ * Strong ETags built from the id and the JPA @Version of a resource, so they change with every
+ * committed update and can be checked without loading the resource.
+ */
+final class VersionETag {
+
+    private VersionETag() {
+    }
+
+    static String of(UUID id, Integer version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * If-None-Match uses weak comparison, so a W/ prefix on the client's tag is ignored.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Version required by an If-Match header, null for "*" (any current version). Weak tags never
+     * match, as If-Match uses strong comparison.
+     */
+    static Integer expectedVersion(String ifMatch, UUID id) {
+        String prefix = "\"" + id + "-";
+
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+
+            if (tag.equals("*")) {
+                return null;
+            }
+            if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+                try {
+                    return Integer.valueOf(tag.substring(prefix.length(), tag.length() - 1));
+                } catch (NumberFormatException e) {
+                    break;
+                }
+            }
+        }
+
+        throw new PreconditionFailedException("If-Match does not match " + id);
+    }
+}
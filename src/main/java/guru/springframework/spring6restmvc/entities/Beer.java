@@ -6,6 +6,9 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -24,13 +27,19 @@ import java.util.UUID;
 @Entity
 @AllArgsConstructor
 @NoArgsConstructor
+@NamedEntityGraph(name = "Beer.categories", attributeNodes = @NamedAttributeNode("categories"))
+@Table(indexes = {
+        @Index(name = "beer_name_idx", columnList = "beerName, id"),
+        @Index(name = "beer_style_name_idx", columnList = "beerStyle, beerName, id")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "beer")
 public class Beer {
 
     @Id
     @GeneratedValue(generator = "UUID")
-    @UuidGenerator
-    @Column(length = 36, columnDefinition = "varchar(36)", updatable = false, nullable = false)
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
+    @Column(length = 16, columnDefinition = "binary(16)", updatable = false, nullable = false)
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID id;
 
     @Version
@@ -64,11 +73,15 @@ public class Beer {
     @UpdateTimestamp
     private LocalDateTime updateDate;
 
+    //graph Beer.categories for pages of beers, batches of 100 for code that walks them one beer at a time
     @Builder.Default
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "beer-categories")
     @ManyToMany
     @JoinTable(name = "beer_category",
             joinColumns = @JoinColumn(name = "beer_id"),
-            inverseJoinColumns = @JoinColumn(name = "category_id"))
+            inverseJoinColumns = @JoinColumn(name = "category_id"),
+            indexes = @Index(name = "beer_category_category_idx", columnList = "category_id, beer_id"))
     private Set<Category> categories = new HashSet<>();
 
     public void addCategory(Category category) {
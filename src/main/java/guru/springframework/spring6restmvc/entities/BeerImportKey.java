@@ -0,0 +1,43 @@
+package guru.springframework.spring6restmvc.entities;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * The beer a supplier UPC was imported as, with a hash of the CSV row it came from. Written over JDBC by
+ * BeerCsvUpsertWriter; mapped here so the schema (and its cascading foreign key) exists wherever
+ * Hibernate generates it.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class BeerImportKey {
+
+    @Id
+    @Size(max = 255)
+    private String upc;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "beer_id", nullable = false, foreignKey = @ForeignKey(name = "bik_beer_fk"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Beer beer;
+
+    //SHA-256
+    @NotNull
+    @Column(length = 32, columnDefinition = "binary(32)", nullable = false)
+    private byte[] contentHash;
+
+    @UpdateTimestamp
+    private LocalDateTime updateDate;
+}
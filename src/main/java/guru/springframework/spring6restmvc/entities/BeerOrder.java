@@ -2,6 +2,7 @@ package guru.springframework.spring6restmvc.entities;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -17,6 +18,13 @@ import java.util.UUID;
 @Entity
 @NoArgsConstructor
 @Builder
+@Table(indexes = @Index(name = "beer_order_customer_idx", columnList = "customer_id, createdDate"))
+@NamedEntityGraph(name = "BeerOrder.lines",
+        attributeNodes = {
+                @NamedAttributeNode("customer"),
+                @NamedAttributeNode(value = "beerOrderLines", subgraph = "beerOrderLine"),
+                @NamedAttributeNode("beerOrderShipment")},
+        subgraphs = @NamedSubgraph(name = "beerOrderLine", attributeNodes = @NamedAttributeNode("beer")))
 public class BeerOrder {
 
     public BeerOrder(UUID id, Long version, Timestamp createdDate, Timestamp lastModifiedDate, String customerRef, Customer customer, Set<BeerOrderLine> beerOrderLines, BeerOrderShipment beerOrderShipment) {
@@ -34,9 +42,9 @@ public class BeerOrder {
 
     @Id
     @GeneratedValue(generator = "UUID")
-    @UuidGenerator
-    @JdbcTypeCode(SqlTypes.CHAR)
-    @Column(length = 36, columnDefinition = "varchar(36)", updatable = false, nullable = false )
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16, columnDefinition = "binary(16)", updatable = false, nullable = false)
     private UUID id;
 
     @Version
@@ -58,6 +66,7 @@ public class BeerOrder {
     @ManyToOne
     private Customer customer;
 
+    @BatchSize(size = 100)
     @OneToMany(mappedBy = "beerOrder")
     private Set<BeerOrderLine> beerOrderLines;
 
@@ -17,9 +17,9 @@ import java.util.UUID;
 public class BeerOrderShipment {
     @Id
     @GeneratedValue(generator = "UUID")
-    @UuidGenerator
-    @JdbcTypeCode(SqlTypes.CHAR)
-    @Column(length = 36, columnDefinition = "varchar(36)", updatable = false, nullable = false )
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16, columnDefinition = "binary(16)", updatable = false, nullable = false)
     private UUID id;
 
     @Version
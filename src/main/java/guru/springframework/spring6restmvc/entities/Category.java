@@ -3,6 +3,8 @@ package guru.springframework.spring6restmvc.entities;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.*;
+import org.hibernate.annotations.Cache;
+import jakarta.persistence.Table;
 import org.hibernate.type.SqlTypes;
 
 import java.sql.Timestamp;
@@ -15,14 +17,16 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "category_description_uidx", columnNames = "description"))
 @Builder
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category")
 public class Category {
 
     @Id
     @GeneratedValue(generator = "UUID")
-    @UuidGenerator
-    @JdbcTypeCode(SqlTypes.CHAR)
-    @Column(length = 36, columnDefinition = "varchar(36)", updatable = false, nullable = false )
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16, columnDefinition = "binary(16)", updatable = false, nullable = false)
     private UUID id;
 
     @Version
@@ -37,11 +41,11 @@ public class Category {
 
     private String description;
 
+    //Beer.categories owns beer_category, keep both sides in step through Beer.addCategory
     @Builder.Default
-    @ManyToMany
-    @JoinTable(name = "beer_category",
-      joinColumns = @JoinColumn(name = "category_id"),
-      inverseJoinColumns = @JoinColumn(name = "beer_id"))
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category-beers")
+    @ManyToMany(mappedBy = "categories")
     private Set<Beer> beers = new HashSet<>();
 
 
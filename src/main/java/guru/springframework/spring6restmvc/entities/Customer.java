@@ -2,6 +2,9 @@ package guru.springframework.spring6restmvc.entities;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UuidGenerator;
 import org.hibernate.type.SqlTypes;
@@ -17,13 +20,22 @@ import java.util.UUID;
 @Entity
 @AllArgsConstructor
 @NoArgsConstructor
+@NamedEntityGraph(name = "Customer.beerOrders",
+        attributeNodes = @NamedAttributeNode(value = "beerOrders", subgraph = "beerOrder"),
+        subgraphs = {
+                @NamedSubgraph(name = "beerOrder", attributeNodes = {
+                        @NamedAttributeNode(value = "beerOrderLines", subgraph = "beerOrderLine"),
+                        @NamedAttributeNode("beerOrderShipment")}),
+                @NamedSubgraph(name = "beerOrderLine", attributeNodes = @NamedAttributeNode("beer"))
+        })
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customer")
 public class Customer {
 
     @Id
     @GeneratedValue(generator = "UUID")
-    @UuidGenerator
-    @Column(length = 36, columnDefinition = "varchar(36)", updatable = false, nullable = false)
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
+    @Column(length = 16, columnDefinition = "binary(16)", updatable = false, nullable = false)
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID id;
 
     @Column(length = 255)
@@ -36,7 +48,9 @@ public class Customer {
     private LocalDateTime lastModifiedDate;
 
 
+    //not in the second-level cache, BeerOrder isn't cached and a cached set of order ids would load them one by one
     @Builder.Default
+    @BatchSize(size = 100)
     @OneToMany(mappedBy = "customer")
     private Set<BeerOrder> beerOrders = new HashSet<>();
 }
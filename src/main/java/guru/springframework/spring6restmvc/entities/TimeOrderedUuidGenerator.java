@@ -0,0 +1,41 @@
+package guru.springframework.spring6restmvc.entities;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Version 7 UUIDs (RFC 9562): 48 bits of unix epoch millis followed by random bits, so ids stored
+ * as BINARY(16) sort by creation time and inserts append to the end of the primary key index
+ * instead of landing on random pages.
+ */
+public class TimeOrderedUuidGenerator implements UuidValueGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return nextUuid();
+    }
+
+    public static UUID nextUuid() {
+        byte[] random = new byte[10];
+        RANDOM.nextBytes(random);
+
+        long millis = System.currentTimeMillis();
+
+        //timestamp, version 7, 12 bits rand_a
+        long msb = (millis << 16) | 0x7000L | ((random[0] & 0x0FL) << 8) | (random[1] & 0xFFL);
+
+        //variant 10, 62 bits rand_b
+        long lsb = 0;
+        for (int i = 2; i < 10; i++) {
+            lsb = (lsb << 8) | (random[i] & 0xFFL);
+        }
+        lsb = (lsb & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,24 @@
+package guru.springframework.spring6restmvc.mappers;
+
+import guru.springframework.spring6restmvc.entities.BeerOrder;
+import guru.springframework.spring6restmvc.entities.BeerOrderLine;
+import guru.springframework.spring6restmvc.entities.BeerOrderShipment;
+import guru.springframework.spring6restmvc.entities.Customer;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderLineDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderShipmentDTO;
+import guru.springframework.spring6restmvc.model.CustomerWithOrdersDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(uses = {BeerMapper.class, CustomerMapper.class, DateMapper.class})
+public interface BeerOrderMapper {
+
+    BeerOrderDTO beerOrderToBeerOrderDto(BeerOrder beerOrder);
+    BeerOrderLineDTO beerOrderLineToBeerOrderLineDto(BeerOrderLine beerOrderLine);
+    BeerOrderShipmentDTO beerOrderShipmentToBeerOrderShipmentDto(BeerOrderShipment beerOrderShipment);
+
+    @Mapping(target = "customer", source = "customer")
+    @Mapping(target = "beerOrders", source = "beerOrders")
+    CustomerWithOrdersDTO customerToCustomerWithOrdersDto(Customer customer);
+}
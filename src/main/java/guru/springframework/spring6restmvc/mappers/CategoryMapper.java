@@ -0,0 +1,21 @@
+package guru.springframework.spring6restmvc.mappers;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.entities.Category;
+import guru.springframework.spring6restmvc.model.BeerWithCategoriesDTO;
+import guru.springframework.spring6restmvc.model.CategoryDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(uses = {BeerMapper.class, DateMapper.class})
+public interface CategoryMapper {
+
+    CategoryDTO categoryToCategoryDto(Category category);
+
+    @Mapping(target = "beers", ignore = true)
+    Category categoryDtoToCategory(CategoryDTO dto);
+
+    @Mapping(target = "beer", source = "beer")
+    @Mapping(target = "categories", source = "categories")
+    BeerWithCategoriesDTO beerToBeerWithCategoriesDto(Beer beer);
+}
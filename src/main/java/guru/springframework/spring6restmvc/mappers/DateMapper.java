@@ -0,0 +1,19 @@
+package guru.springframework.spring6restmvc.mappers;
+
+import org.mapstruct.Mapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+//entities with Timestamp audit columns map to LocalDateTime in the DTOs, like the other DTOs
+@Mapper
+public interface DateMapper {
+
+    default LocalDateTime timestampToLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    default Timestamp localDateTimeToTimestamp(LocalDateTime localDateTime) {
+        return localDateTime == null ? null : Timestamp.valueOf(localDateTime);
+    }
+}
@@ -0,0 +1,16 @@
+package guru.springframework.spring6restmvc.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class BeerCsvImportReport {
+
+    private long rowsRead;
+    private long beersInserted;
+    private long beersUpdated;
+    private long rowsUnchanged;
+    private long rowsRejected;
+    private int chunksCommitted;
+}
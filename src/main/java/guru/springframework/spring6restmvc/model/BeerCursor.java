@@ -0,0 +1,43 @@
+package guru.springframework.spring6restmvc.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last beer returned by a keyset (seek) listing. Beers are ordered by
+ * beerName then id, so the pair uniquely identifies where the next slice starts.
+ */
+public record BeerCursor(String beerName, UUID id) {
+
+    /**
+     * Sorts before every persisted beer, since beer names can never be blank.
+     */
+    public static final BeerCursor FIRST = new BeerCursor("", new UUID(0L, 0L));
+
+    private static final int UUID_LENGTH = 36;
+
+    public static BeerCursor of(BeerDTO beerDTO) {
+        return new BeerCursor(beerDTO.getBeerName(), beerDTO.getId());
+    }
+
+    public String encode() {
+        String raw = id.toString() + ":" + beerName;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BeerCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST;
+        }
+
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+
+        if (raw.length() <= UUID_LENGTH || raw.charAt(UUID_LENGTH) != ':') {
+            throw new IllegalArgumentException("Malformed beer cursor");
+        }
+
+        return new BeerCursor(raw.substring(UUID_LENGTH + 1), UUID.fromString(raw.substring(0, UUID_LENGTH)));
+    }
+}
@@ -5,8 +5,10 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -16,8 +18,14 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
-@Builder
+/**
+ * The all-args constructor is also the target of BeerRepository.BEER_DTO_SELECT, which passes the
+ * columns by position: adding, removing or reordering fields here means changing that select too.
+ */
+@Builder(toBuilder = true)
 @Data
+@AllArgsConstructor
+@NoArgsConstructor
 public class BeerDTO {
 
     private UUID id;
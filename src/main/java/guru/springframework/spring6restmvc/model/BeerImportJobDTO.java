@@ -0,0 +1,28 @@
+package guru.springframework.spring6restmvc.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Data
+public class BeerImportJobDTO {
+
+    private UUID id;
+    private String fileName;
+    private BeerImportMode mode;
+    private BeerImportJobStatus status;
+    private long rowsRead;
+    private long beersInserted;
+    private long beersUpdated;
+    private long rowsUnchanged;
+    private long rowsRejected;
+    private int chunksCommitted;
+    private double rowsPerSecond;
+    private LocalDateTime submittedDate;
+    private LocalDateTime startedDate;
+    private LocalDateTime finishedDate;
+    private String errorMessage;
+}
@@ -0,0 +1,5 @@
+package guru.springframework.spring6restmvc.model;
+
+public enum BeerImportJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
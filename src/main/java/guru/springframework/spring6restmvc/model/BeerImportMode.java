@@ -0,0 +1,9 @@
+package guru.springframework.spring6restmvc.model;
+
+/**
+ * INSERT adds every row as a new beer, UPSERT matches rows to earlier imports by UPC and only writes
+ * the new and changed ones.
+ */
+public enum BeerImportMode {
+    INSERT, UPSERT
+}
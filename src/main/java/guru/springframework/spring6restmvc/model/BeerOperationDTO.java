@@ -0,0 +1,19 @@
+package guru.springframework.spring6restmvc.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Builder
+@Data
+public class BeerOperationDTO {
+
+    private BeerOperationType operation;
+
+    //required for UPDATE, PATCH and DELETE
+    private UUID beerId;
+
+    //required for CREATE, UPDATE and PATCH
+    private BeerDTO beer;
+}
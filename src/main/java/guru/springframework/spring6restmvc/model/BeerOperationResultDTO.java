@@ -0,0 +1,21 @@
+package guru.springframework.spring6restmvc.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Builder
+@Data
+public class BeerOperationResultDTO {
+
+    private int index;
+    private BeerOperationType operation;
+    private UUID beerId;
+
+    //HTTP status the same call would get from the single-beer endpoint
+    private int status;
+    private List<Map<String, String>> errors;
+}
@@ -0,0 +1,8 @@
+package guru.springframework.spring6restmvc.model;
+
+public enum BeerOperationType {
+    CREATE,
+    UPDATE,
+    PATCH,
+    DELETE
+}
@@ -0,0 +1,26 @@
+package guru.springframework.spring6restmvc.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Builder
+@Data
+public class BeerOrderCreateDTO {
+
+    @NotNull
+    private UUID customerId;
+
+    @Size(max = 255)
+    private String customerRef;
+
+    @NotEmpty
+    @Valid
+    private List<BeerOrderLineCreateDTO> beerOrderLines;
+}
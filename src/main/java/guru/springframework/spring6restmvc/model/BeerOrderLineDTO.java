@@ -0,0 +1,22 @@
+package guru.springframework.spring6restmvc.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Data
+public class BeerOrderLineDTO {
+
+    private UUID id;
+    private Long version;
+    private BeerDTO beer;
+    private Integer orderQuantity;
+
+    //equals orderQuantity when the stock was there at order time, 0 otherwise
+    private Integer quantityAllocated;
+    private LocalDateTime createdDate;
+    private LocalDateTime lastModifiedDate;
+}
@@ -0,0 +1,18 @@
+package guru.springframework.spring6restmvc.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Data
+public class BeerOrderShipmentDTO {
+
+    private UUID id;
+    private Long version;
+    private String trackingNumber;
+    private LocalDateTime createdDate;
+    private LocalDateTime lastModifiedDate;
+}
@@ -0,0 +1,16 @@
+package guru.springframework.spring6restmvc.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Builder
+@Data
+public class BeerSliceDTO {
+
+    private List<BeerDTO> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
@@ -0,0 +1,24 @@
+package guru.springframework.spring6restmvc.model;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Data
+public class CategoryDTO {
+
+    private UUID id;
+    private Long version;
+
+    @NotBlank
+    @Size(max = 50)
+    private String description;
+
+    private LocalDateTime createdDate;
+    private LocalDateTime lastModifiedDate;
+}
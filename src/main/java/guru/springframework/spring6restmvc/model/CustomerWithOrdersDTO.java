@@ -0,0 +1,14 @@
+package guru.springframework.spring6restmvc.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Set;
+
+@Builder
+@Data
+public class CustomerWithOrdersDTO {
+
+    private CustomerDTO customer;
+    private Set<BeerOrderDTO> beerOrders;
+}
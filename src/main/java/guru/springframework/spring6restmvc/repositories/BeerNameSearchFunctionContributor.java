@@ -0,0 +1,53 @@
+package guru.springframework.spring6restmvc.repositories;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers beer_name_match(beerName, search), which is greater than zero when the beer name
+ * contains the search text. On MySQL it is a phrase query against the ngram FULLTEXT index
+ * from V6__beer-name-fulltext.sql, on other databases (H2 in tests) it falls back to LIKE.
+ * Search text without a single ngram token never matches on MySQL, see hasNgramToken.
+ */
+public class BeerNameSearchFunctionContributor implements FunctionContributor {
+
+    public static final String BEER_NAME_MATCH = "beer_name_match";
+
+    //MySQL's ngram_token_size default, which V6__beer-name-fulltext.sql builds the index with
+    public static final int NGRAM_TOKEN_SIZE = 2;
+
+    private static final String MYSQL_FULLTEXT_PATTERN =
+            "match(?1) against (concat('\"', replace(?2, '\"', ' '), '\"') in boolean mode)";
+
+    private static final String LIKE_PATTERN =
+            "case when upper(?1) like concat('%', upper(?2), '%') then 1 else 0 end";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Double> relevanceType = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.DOUBLE);
+
+        String pattern = functionContributions.getDialect() instanceof MySQLDialect
+                ? MYSQL_FULLTEXT_PATTERN
+                : LIKE_PATTERN;
+
+        functionContributions.getFunctionRegistry().registerPattern(BEER_NAME_MATCH, pattern, relevanceType);
+    }
+
+    /**
+     * True when the search text has a word of at least NGRAM_TOKEN_SIZE characters. Shorter words
+     * produce no ngram tokens, so text made of them only is searched with LIKE instead.
+     */
+    public static boolean hasNgramToken(String search) {
+        for (String word : search.split("[\\s\"]+")) {
+            if (word.length() >= NGRAM_TOKEN_SIZE) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,9 +1,28 @@
 package guru.springframework.spring6restmvc.repositories;
 
 import guru.springframework.spring6restmvc.entities.BeerOrder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface BeerOrderRepository extends JpaRepository<BeerOrder, UUID> {
+
+    //customer, lines with their beers and shipment come back in the same select as the order
+    @EntityGraph("BeerOrder.lines")
+    Optional<BeerOrder> findWithLinesById(UUID id);
+
+    @EntityGraph("BeerOrder.lines")
+    List<BeerOrder> findWithLinesByIdIn(Collection<UUID> ids);
+
+    //paging runs on the ids alone, a collection fetch join would make Hibernate page in memory
+    @Query("select o.id from BeerOrder o")
+    Page<UUID> findIdsBy(Pageable pageable);
 }
@@ -1,16 +1,200 @@
 package guru.springframework.spring6restmvc.repositories;
 
 import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.model.BeerDTO;
 import guru.springframework.spring6restmvc.model.BeerStyle;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface BeerRepository extends JpaRepository <Beer, UUID> {
 
+    @CachedBeerQuery
     Page<Beer> findAllByBeerNameIsLikeIgnoreCase(String beerName, Pageable pageable);
+    @CachedBeerQuery
     Page<Beer> findAllByBeerStyle(BeerStyle beerStyle, Pageable pageable);
+    @CachedBeerQuery
     Page<Beer> findAllByBeerNameIsLikeIgnoreCaseAndBeerStyle(String beername, BeerStyle beerStyle, Pageable pageable);
+
+    @CachedBeerQuery
+    long countByBeerStyle(BeerStyle beerStyle);
+
+    @CachedBeerQuery
+    @Query("select b.version from Beer b where b.id = :beerId")
+    Optional<Integer> findVersionById(@Param("beerId") UUID beerId);
+
+    //pages of beers with their categories: the page is cut on ids, then one select fetches the beers with
+    //Beer.categories, a collection fetch in the paged query itself would be paged in memory
+    @Query("select b.id from Beer b")
+    Page<UUID> findIdsBy(Pageable pageable);
+
+    @EntityGraph("Beer.categories")
+    List<Beer> findWithCategoriesByIdIn(Collection<UUID> ids);
+
+    @Query("select b.id from Beer b where b.id in :beerIds")
+    Set<UUID> findExistingIds(@Param("beerIds") Collection<UUID> beerIds);
+
+    //conditional decrement in a single statement, so concurrent orders can't both take the last units.
+    //Bumps the version as well, so ETags and optimistic locks see the stock change
+    @Modifying(flushAutomatically = true)
+    @Query("update Beer b set b.quantityOnHand = b.quantityOnHand - :quantity, b.version = b.version + 1, " +
+            "b.updateDate = local datetime where b.id = :beerId and b.quantityOnHand >= :quantity")
+    int allocateStock(@Param("beerId") UUID beerId, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update Beer b set b.quantityOnHand = coalesce(b.quantityOnHand, 0) + :quantity, b.version = b.version + 1, " +
+            "b.updateDate = local datetime where b.id = :beerId")
+    int releaseStock(@Param("beerId") UUID beerId, @Param("quantity") int quantity);
+
+    @Query("select coalesce(b.quantityOnHand, 0) from Beer b where b.id = :beerId")
+    Optional<Integer> findQuantityOnHandById(@Param("beerId") UUID beerId);
+
+    //Name searches take the raw search text and go through beer_name_match,
+    //see BeerNameSearchFunctionContributor
+    @CachedBeerQuery
+    @Query("select b from Beer b where beer_name_match(b.beerName, :beerName) > 0")
+    Slice<Beer> findSliceByBeerNameMatching(@Param("beerName") String beerName, Pageable pageable);
+
+    @CachedBeerQuery
+    @Query("select count(b) from Beer b where beer_name_match(b.beerName, :beerName) > 0")
+    long countByBeerNameMatching(@Param("beerName") String beerName);
+
+    @CachedBeerQuery
+    @Query("select count(b) from Beer b where beer_name_match(b.beerName, :beerName) > 0 and b.beerStyle = :beerStyle")
+    long countByBeerNameMatchingAndBeerStyle(@Param("beerName") String beerName, @Param("beerStyle") BeerStyle beerStyle);
+
+    //search text too short for the ngram index, see BeerNameSearchFunctionContributor.hasNgramToken
+    String NAME_CONTAINS = "upper(b.beerName) like concat('%', upper(:beerName), '%') ";
+
+    @CachedBeerQuery
+    @Query("select count(b) from Beer b where " + NAME_CONTAINS)
+    long countByBeerNameContaining(@Param("beerName") String beerName);
+
+    @CachedBeerQuery
+    @Query("select count(b) from Beer b where " + NAME_CONTAINS + "and b.beerStyle = :beerStyle")
+    long countByBeerNameContainingAndBeerStyle(@Param("beerName") String beerName, @Param("beerStyle") BeerStyle beerStyle);
+
+    //BeerDTO projections for listings: only the DTO columns are selected, nothing is hydrated or
+    //managed, and quantityOnHand comes back null unless showInventory is true. The arguments follow
+    //the field order of BeerDTO's all-args constructor
+    String BEER_DTO_SELECT = "select new guru.springframework.spring6restmvc.model.BeerDTO(" +
+            "b.id, b.version, b.beerName, b.beerStyle, b.upc, " +
+            "case when :showInventory = true then b.quantityOnHand else null end, " +
+            "b.price, b.createdDate, b.updateDate) from Beer b ";
+
+    @CachedBeerQuery
+    @Query(BEER_DTO_SELECT)
+    Slice<BeerDTO> findDtoSliceBy(@Param("showInventory") boolean showInventory, Pageable pageable);
+
+    @CachedBeerQuery
+    @Query(BEER_DTO_SELECT + "where b.beerStyle = :beerStyle")
+    Slice<BeerDTO> findDtoSliceByBeerStyle(@Param("beerStyle") BeerStyle beerStyle,
+                                           @Param("showInventory") boolean showInventory, Pageable pageable);
+
+    @CachedBeerQuery
+    @Query(BEER_DTO_SELECT + "where beer_name_match(b.beerName, :beerName) > 0")
+    Slice<BeerDTO> findDtoSliceByBeerNameMatching(@Param("beerName") String beerName,
+                                                  @Param("showInventory") boolean showInventory, Pageable pageable);
+
+    @CachedBeerQuery
+    @Query(BEER_DTO_SELECT + "where beer_name_match(b.beerName, :beerName) > 0 and b.beerStyle = :beerStyle")
+    Slice<BeerDTO> findDtoSliceByBeerNameMatchingAndBeerStyle(@Param("beerName") String beerName,
+                                                              @Param("beerStyle") BeerStyle beerStyle,
+                                                              @Param("showInventory") boolean showInventory,
+                                                              Pageable pageable);
+
+    @CachedBeerQuery
+    @Query(BEER_DTO_SELECT + "where " + NAME_CONTAINS)
+    Slice<BeerDTO> findDtoSliceByBeerNameContaining(@Param("beerName") String beerName,
+                                                    @Param("showInventory") boolean showInventory, Pageable pageable);
+
+    @CachedBeerQuery
+    @Query(BEER_DTO_SELECT + "where " + NAME_CONTAINS + "and b.beerStyle = :beerStyle")
+    Slice<BeerDTO> findDtoSliceByBeerNameContainingAndBeerStyle(@Param("beerName") String beerName,
+                                                                @Param("beerStyle") BeerStyle beerStyle,
+                                                                @Param("showInventory") boolean showInventory,
+                                                                Pageable pageable);
+
+    //beers of one category, joined through beer_category_category_idx
+    @CachedBeerQuery
+    @Query(BEER_DTO_SELECT + "join b.categories c where c.id = :categoryId")
+    Slice<BeerDTO> findDtoSliceByCategoryId(@Param("categoryId") UUID categoryId,
+                                            @Param("showInventory") boolean showInventory, Pageable pageable);
+
+    @CachedBeerQuery
+    @Query("select count(b) from Beer b join b.categories c where c.id = :categoryId")
+    long countByCategoryId(@Param("categoryId") UUID categoryId);
+
+    //full exports as one sequential scan, see CustomerRepository.streamAllBy for the MySQL fetch size caveat
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(BEER_DTO_SELECT)
+    Stream<BeerDTO> streamDtosBy(@Param("showInventory") boolean showInventory);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(BEER_DTO_SELECT + "where b.beerStyle = :beerStyle")
+    Stream<BeerDTO> streamDtosByBeerStyle(@Param("beerStyle") BeerStyle beerStyle,
+                                          @Param("showInventory") boolean showInventory);
+
+    //seek condition: continue after (afterName, afterId) in beerName, id order, without offset or count
+    String SEEK_AFTER = "(b.beerName > :afterName or (b.beerName = :afterName and b.id > :afterId)) " +
+            "order by b.beerName asc, b.id asc";
+
+    @CachedBeerQuery
+    @Query(BEER_DTO_SELECT + "where " + SEEK_AFTER)
+    Slice<BeerDTO> findDtoSliceAfter(@Param("afterName") String afterName, @Param("afterId") UUID afterId,
+                                     @Param("showInventory") boolean showInventory, Pageable pageable);
+
+    @CachedBeerQuery
+    @Query(BEER_DTO_SELECT + "where beer_name_match(b.beerName, :beerName) > 0 and " + SEEK_AFTER)
+    Slice<BeerDTO> findDtoSliceByBeerNameAfter(@Param("beerName") String beerName, @Param("afterName") String afterName,
+                                               @Param("afterId") UUID afterId,
+                                               @Param("showInventory") boolean showInventory, Pageable pageable);
+
+    @CachedBeerQuery
+    @Query(BEER_DTO_SELECT + "where b.beerStyle = :beerStyle and " + SEEK_AFTER)
+    Slice<BeerDTO> findDtoSliceByBeerStyleAfter(@Param("beerStyle") BeerStyle beerStyle, @Param("afterName") String afterName,
+                                                @Param("afterId") UUID afterId,
+                                                @Param("showInventory") boolean showInventory, Pageable pageable);
+
+    @CachedBeerQuery
+    @Query(BEER_DTO_SELECT + "where beer_name_match(b.beerName, :beerName) > 0 and b.beerStyle = :beerStyle and " + SEEK_AFTER)
+    Slice<BeerDTO> findDtoSliceByBeerNameAndBeerStyleAfter(@Param("beerName") String beerName,
+                                                           @Param("beerStyle") BeerStyle beerStyle,
+                                                           @Param("afterName") String afterName,
+                                                           @Param("afterId") UUID afterId,
+                                                           @Param("showInventory") boolean showInventory,
+                                                           Pageable pageable);
+
+    @CachedBeerQuery
+    @Query(BEER_DTO_SELECT + "where " + NAME_CONTAINS + "and " + SEEK_AFTER)
+    Slice<BeerDTO> findDtoSliceByBeerNameContainingAfter(@Param("beerName") String beerName,
+                                                         @Param("afterName") String afterName,
+                                                         @Param("afterId") UUID afterId,
+                                                         @Param("showInventory") boolean showInventory,
+                                                         Pageable pageable);
+
+    @CachedBeerQuery
+    @Query(BEER_DTO_SELECT + "where " + NAME_CONTAINS + "and b.beerStyle = :beerStyle and " + SEEK_AFTER)
+    Slice<BeerDTO> findDtoSliceByBeerNameContainingAndBeerStyleAfter(@Param("beerName") String beerName,
+                                                                     @Param("beerStyle") BeerStyle beerStyle,
+                                                                     @Param("afterName") String afterName,
+                                                                     @Param("afterId") UUID afterId,
+                                                                     @Param("showInventory") boolean showInventory,
+                                                                     Pageable pageable);
 }
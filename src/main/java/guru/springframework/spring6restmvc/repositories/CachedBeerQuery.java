@@ -0,0 +1,26 @@
+package guru.springframework.spring6restmvc.repositories;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts the results of a beer query (and of its count query) in the beer-queries region of the
+ * Hibernate query cache. Hibernate drops them whenever beer or beer_category is written through it,
+ * and the hint does nothing while hibernate.cache.use_query_cache is off.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "beer-queries")
+})
+public @interface CachedBeerQuery {
+}
@@ -6,4 +6,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.UUID;
 
 public interface CategoryRepository extends JpaRepository<Category, UUID> {
+
+    boolean existsByDescriptionIgnoreCase(String description);
+
+    boolean existsByDescriptionIgnoreCaseAndIdNot(String description, UUID id);
 }
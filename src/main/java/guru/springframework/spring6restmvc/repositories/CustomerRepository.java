@@ -1,9 +1,39 @@
 package guru.springframework.spring6restmvc.repositories;
 
 import guru.springframework.spring6restmvc.entities.Customer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface CustomerRepository extends JpaRepository <Customer, UUID> {
+
+    @Query("select c.version from Customer c where c.id = :customerId")
+    Optional<Integer> findVersionById(@Param("customerId") UUID customerId);
+
+    //same id-first paging as BeerRepository.findIdsBy, the graph brings orders, lines, line beers and shipments
+    @Query("select c.id from Customer c")
+    Page<UUID> findIdsBy(Pageable pageable);
+
+    @EntityGraph("Customer.beerOrders")
+    List<Customer> findWithOrdersByIdIn(Collection<UUID> ids);
+
+    //for full exports, must be consumed inside a transaction and closed afterwards. On MySQL the fetch
+    //size only streams with useCursorFetch=true, otherwise the driver reads the whole result first
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Customer> streamAllBy();
 }
@@ -0,0 +1,11 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerOperationDTO;
+import guru.springframework.spring6restmvc.model.BeerOperationResultDTO;
+
+import java.util.List;
+
+public interface BeerBulkService {
+
+    List<BeerOperationResultDTO> execute(List<BeerOperationDTO> operations);
+}
@@ -0,0 +1,195 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerOperationDTO;
+import guru.springframework.spring6restmvc.model.BeerOperationResultDTO;
+import guru.springframework.spring6restmvc.model.BeerOperationType;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs bulk beer operations through BeerService, chunkSize operations per transaction. When a chunk
+ * fails it is rolled back and its operations are retried one transaction each, so a single bad
+ * operation only fails itself.
+ */
+@Slf4j
+@Service
+public class BeerBulkServiceImpl implements BeerBulkService {
+
+    private final BeerService beerService;
+    private final Validator validator;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+
+    public BeerBulkServiceImpl(BeerService beerService,
+                               Validator validator,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${beer.bulk.chunk-size:100}") int chunkSize) {
+        this.beerService = beerService;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public List<BeerOperationResultDTO> execute(List<BeerOperationDTO> operations) {
+        List<BeerOperationResultDTO> results = new ArrayList<>(operations.size());
+
+        for (int from = 0; from < operations.size(); from += chunkSize) {
+            results.addAll(executeChunk(operations, from, Math.min(from + chunkSize, operations.size())));
+        }
+
+        return results;
+    }
+
+    private List<BeerOperationResultDTO> executeChunk(List<BeerOperationDTO> operations, int from, int to) {
+        BeerOperationResultDTO[] results = new BeerOperationResultDTO[to - from];
+        List<Integer> validOperations = new ArrayList<>(to - from);
+
+        for (int index = from; index < to; index++) {
+            List<Map<String, String>> errors = validate(operations.get(index));
+
+            if (errors.isEmpty()) {
+                validOperations.add(index);
+            } else {
+                results[index - from] = result(index, operations.get(index), HttpStatus.BAD_REQUEST, errors);
+            }
+        }
+
+        try {
+            List<BeerOperationResultDTO> chunkResults = chunkTransaction.execute(status -> validOperations.stream()
+                    .map(index -> apply(index, operations.get(index)))
+                    .toList());
+
+            chunkResults.forEach(result -> results[result.getIndex() - from] = result);
+        } catch (RuntimeException e) {
+            log.debug("Bulk operations " + from + "-" + (to - 1) + " rolled back, retrying one by one", e);
+
+            validOperations.forEach(index -> results[index - from] = applyAlone(index, operations.get(index)));
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private BeerOperationResultDTO applyAlone(int index, BeerOperationDTO operation) {
+        try {
+            return chunkTransaction.execute(status -> apply(index, operation));
+        } catch (RuntimeException e) {
+            return failed(index, operation, e);
+        }
+    }
+
+    private BeerOperationResultDTO apply(int index, BeerOperationDTO operation) {
+        return switch (operation.getOperation()) {
+            case CREATE -> {
+                BeerOperationResultDTO created = result(index, operation, HttpStatus.CREATED, null);
+                created.setBeerId(beerService.saveNewBeer(operation.getBeer()).getId());
+                yield created;
+            }
+            case UPDATE -> result(index, operation,
+                    beerService.updateBeerById(operation.getBeerId(), operation.getBeer()).isPresent()
+                            ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND, null);
+            case PATCH -> result(index, operation,
+                    beerService.patchBeerById(operation.getBeerId(), operation.getBeer()).isPresent()
+                            ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND, null);
+            case DELETE -> result(index, operation,
+                    beerService.deleteById(operation.getBeerId())
+                            ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND, null);
+        };
+    }
+
+    private List<Map<String, String>> validate(BeerOperationDTO operation) {
+        List<Map<String, String>> errors = new ArrayList<>();
+
+        if (operation.getOperation() == null) {
+            errors.add(error("operation", "must not be null"));
+            return errors;
+        }
+
+        if (operation.getOperation() != BeerOperationType.CREATE && operation.getBeerId() == null) {
+            errors.add(error("beerId", "must not be null"));
+        }
+
+        if (operation.getOperation() != BeerOperationType.DELETE) {
+            if (operation.getBeer() == null) {
+                errors.add(error("beer", "must not be null"));
+            } else {
+                validator.validate(operation.getBeer()).stream()
+                        //a patch only applies the fields that are set, so only those have to be valid
+                        .filter(violation -> operation.getOperation() != BeerOperationType.PATCH
+                                || isPatchedValue(violation.getInvalidValue()))
+                        .forEach(violation -> errors.add(error("beer." + violation.getPropertyPath(),
+                                violation.getMessage())));
+            }
+        }
+
+        return errors;
+    }
+
+    private boolean isPatchedValue(Object value) {
+        return value != null && !(value instanceof String text && text.isBlank());
+    }
+
+    private BeerOperationResultDTO failed(int index, BeerOperationDTO operation, RuntimeException e) {
+        ConstraintViolationException violations = findConstraintViolations(e);
+
+        if (violations != null) {
+            List<Map<String, String>> errors = new ArrayList<>();
+            Set<ConstraintViolation<?>> constraintViolations = violations.getConstraintViolations();
+            constraintViolations.forEach(violation ->
+                    errors.add(error(violation.getPropertyPath().toString(), violation.getMessage())));
+
+            return result(index, operation, HttpStatus.BAD_REQUEST, errors);
+        }
+
+        if (e instanceof OptimisticLockingFailureException || e instanceof DataIntegrityViolationException) {
+            return result(index, operation, HttpStatus.CONFLICT, List.of(error("beer", "conflicting update")));
+        }
+
+        log.error("Bulk operation " + index + " failed", e);
+        return result(index, operation, HttpStatus.INTERNAL_SERVER_ERROR, List.of(error("beer", "operation failed")));
+    }
+
+    private ConstraintViolationException findConstraintViolations(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException constraintViolationException) {
+                return constraintViolationException;
+            }
+        }
+        return null;
+    }
+
+    private BeerOperationResultDTO result(int index, BeerOperationDTO operation, HttpStatus status,
+                                          List<Map<String, String>> errors) {
+        return BeerOperationResultDTO.builder()
+                .index(index)
+                .operation(operation.getOperation())
+                .beerId(operation.getBeerId())
+                .status(status.value())
+                .errors(errors)
+                .build();
+    }
+
+    private Map<String, String> error(String field, String message) {
+        Map<String, String> errorMap = new HashMap<>();
+        errorMap.put(field, message);
+        return errorMap;
+    }
+}
@@ -0,0 +1,92 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Short lived cache of the total number of beers matching a (beerName, beerStyle) filter,
+ * so paged listings don't have to repeat the count query on every request.
+ */
+@Component
+public class BeerCountCache {
+
+    private record CountKey(String beerName, BeerStyle beerStyle) {}
+
+    private record CachedCount(long count, long expiresAt) {}
+
+    private final Map<CountKey, CachedCount> counts = new ConcurrentHashMap<>();
+
+    //bumped on every invalidation, so a count loaded before a write is never stored after it
+    private final AtomicLong generation = new AtomicLong();
+
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    public BeerCountCache(@Value("${beer.count-cache.ttl:30s}") Duration ttl,
+                          @Value("${beer.count-cache.max-entries:1000}") int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    public long get(String beerName, BeerStyle beerStyle, LongSupplier countQuery) {
+        CountKey key = new CountKey(StringUtils.hasText(beerName) ? beerName.toLowerCase() : null, beerStyle);
+        long now = System.nanoTime();
+
+        CachedCount cached = counts.get(key);
+        if (cached != null && cached.expiresAt() - now > 0) {
+            return cached.count();
+        }
+
+        long loadedGeneration = generation.get();
+        long count = countQuery.getAsLong();
+
+        if (ttlNanos > 0 && hasRoomFor(key, now)) {
+            counts.put(key, new CachedCount(count, now + ttlNanos));
+            if (generation.get() != loadedGeneration) {
+                counts.remove(key);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Drops every count now, for reads later in the same transaction, and inside a transaction again once
+     * it completes, as counts loaded by other requests before the commit still see the old rows.
+     */
+    public void invalidateAll() {
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear();
+                }
+            });
+        }
+    }
+
+    private void clear() {
+        generation.incrementAndGet();
+        counts.clear();
+    }
+
+    private boolean hasRoomFor(CountKey key, long now) {
+        if (counts.size() < maxEntries || counts.containsKey(key)) {
+            return true;
+        }
+        counts.values().removeIf(cachedCount -> cachedCount.expiresAt() - now <= 0);
+
+        return counts.size() < maxEntries;
+    }
+}
@@ -0,0 +1,74 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerCsvImportReport;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of a running CSV import, updated by the reading, mapping and writer threads and safe to
+ * read while they run.
+ */
+public class BeerCsvImportProgress {
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong beersInserted = new AtomicLong();
+    private final AtomicLong beersUpdated = new AtomicLong();
+    private final AtomicLong rowsUnchanged = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final AtomicInteger chunksCommitted = new AtomicInteger();
+
+    void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    void rowRejected() {
+        rowsRejected.incrementAndGet();
+    }
+
+    void chunkCommitted(int beers) {
+        chunkCommitted(beers, 0, 0);
+    }
+
+    void chunkCommitted(int inserted, int updated, int unchanged) {
+        beersInserted.addAndGet(inserted);
+        beersUpdated.addAndGet(updated);
+        rowsUnchanged.addAndGet(unchanged);
+        chunksCommitted.incrementAndGet();
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getBeersInserted() {
+        return beersInserted.get();
+    }
+
+    public long getBeersUpdated() {
+        return beersUpdated.get();
+    }
+
+    public long getRowsUnchanged() {
+        return rowsUnchanged.get();
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected.get();
+    }
+
+    public int getChunksCommitted() {
+        return chunksCommitted.get();
+    }
+
+    public BeerCsvImportReport toReport() {
+        return BeerCsvImportReport.builder()
+                .rowsRead(getRowsRead())
+                .beersInserted(getBeersInserted())
+                .beersUpdated(getBeersUpdated())
+                .rowsUnchanged(getRowsUnchanged())
+                .rowsRejected(getRowsRejected())
+                .chunksCommitted(getChunksCommitted())
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerCsvImportReport;
+
+import java.io.File;
+import java.io.Reader;
+
+public interface BeerCsvImportService {
+
+    BeerCsvImportReport importCsv(File csvFile);
+
+    BeerCsvImportReport importCsv(Reader csvReader);
+
+    /**
+     * Same import, reporting into progress as rows are read, rejected and saved.
+     */
+    BeerCsvImportReport importCsv(Reader csvReader, BeerCsvImportProgress progress);
+
+    /**
+     * Imports keyed on UPC: rows whose UPC an earlier upsert stored are updated when their content
+     * changed and skipped when it didn't, the rest are inserted. Chunks are written in file order.
+     */
+    BeerCsvImportReport upsertCsv(Reader csvReader, BeerCsvImportProgress progress);
+}
@@ -0,0 +1,239 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.model.BeerCSVRecord;
+import guru.springframework.spring6restmvc.model.BeerCsvImportReport;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Imports a beer CSV without ever holding more than a few chunks of beers in memory. Records are read
+ * on the calling thread and handed out chunkSize at a time: chunks are mapped and validated in
+ * parallel on the mapping threads (one per core by default), then saved by a small writer pool, each
+ * chunk in its own transaction. Reading waits while writerThreads * 2 chunks are in flight, so a slow
+ * database holds back parsing instead of filling the heap. Styles are mapped through BeerStyleTable.
+ * Upserts go through BeerCsvUpsertWriter and chain each chunk's write on the previous one, so a UPC
+ * repeated further down the file always wins; mapping still runs ahead in parallel.
+ */
+@Slf4j
+@Service
+public class BeerCsvImportServiceImpl implements BeerCsvImportService {
+
+    private final BeerCsvService beerCsvService;
+    private final BeerRepository beerRepository;
+    private final BeerCountCache beerCountCache;
+    private final BeerStyleTable beerStyleTable;
+    private final BeerCsvUpsertWriter beerCsvUpsertWriter;
+    private final Validator validator;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    private final ExecutorService mappingExecutor;
+    private final ExecutorService writerExecutor;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BeerCsvImportServiceImpl(BeerCsvService beerCsvService,
+                                    BeerRepository beerRepository,
+                                    BeerCountCache beerCountCache,
+                                    BeerStyleTable beerStyleTable,
+                                    BeerCsvUpsertWriter beerCsvUpsertWriter,
+                                    Validator validator,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${beer.csv-import.chunk-size:500}") int chunkSize,
+                                    @Value("${beer.csv-import.mapping-threads:0}") int mappingThreads,
+                                    @Value("${beer.csv-import.writer-threads:2}") int writerThreads) {
+        this.beerCsvService = beerCsvService;
+        this.beerRepository = beerRepository;
+        this.beerCountCache = beerCountCache;
+        this.beerStyleTable = beerStyleTable;
+        this.beerCsvUpsertWriter = beerCsvUpsertWriter;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.maxChunksInFlight = writerThreads * 2;
+        this.mappingExecutor = Executors.newFixedThreadPool(
+                mappingThreads > 0 ? mappingThreads : Runtime.getRuntime().availableProcessors(),
+                Thread.ofPlatform().name("csv-import-map-", 0).daemon().factory());
+        this.writerExecutor = Executors.newFixedThreadPool(writerThreads,
+                Thread.ofPlatform().name("csv-import-write-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        mappingExecutor.shutdownNow();
+        writerExecutor.shutdownNow();
+    }
+
+    @Override
+    public BeerCsvImportReport importCsv(File csvFile) {
+        try {
+            return importCsv(new FileReader(csvFile, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public BeerCsvImportReport importCsv(Reader csvReader) {
+        return importCsv(csvReader, new BeerCsvImportProgress());
+    }
+
+    @Override
+    public BeerCsvImportReport importCsv(Reader csvReader, BeerCsvImportProgress progress) {
+        return runImport(csvReader, progress, false, beers -> saveChunk(beers, progress));
+    }
+
+    @Override
+    public BeerCsvImportReport upsertCsv(Reader csvReader, BeerCsvImportProgress progress) {
+        return runImport(csvReader, progress, true, beers -> {
+            BeerCsvUpsertWriter.Result result = beerCsvUpsertWriter.write(beers);
+            progress.chunkCommitted(result.inserted(), result.updated(), result.unchanged());
+        });
+    }
+
+    private BeerCsvImportReport runImport(Reader csvReader, BeerCsvImportProgress progress, boolean inFileOrder,
+                                          Consumer<List<Beer>> chunkWriter) {
+        Semaphore chunksInFlight = new Semaphore(maxChunksInFlight);
+        //the first chunk failure, stops reading and is rethrown once the chunks in flight are done
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try (Stream<BeerCSVRecord> records = beerCsvService.streamCSV(csvReader, e -> {
+            progress.rowRead();
+            progress.rowRejected();
+            log.debug("Rejected CSV line " + e.getLineNumber() + ": " + e.getMessage());
+        })) {
+            Iterator<BeerCSVRecord> recordIterator = records.iterator();
+            List<BeerCSVRecord> chunk = new ArrayList<>(chunkSize);
+            CompletableFuture<Void> lastWritten = CompletableFuture.completedFuture(null);
+
+            while (failure.get() == null && recordIterator.hasNext()) {
+                chunk.add(recordIterator.next());
+                progress.rowRead();
+
+                if (chunk.size() == chunkSize || !recordIterator.hasNext()) {
+                    acquire(chunksInFlight, 1);
+                    lastWritten = submitChunk(chunk, progress, inFileOrder ? lastWritten : null, chunkWriter);
+                    lastWritten.whenComplete((saved, e) -> {
+                        if (e != null) {
+                            failure.compareAndSet(null, e instanceof CompletionException ? e.getCause() : e);
+                        }
+                        chunksInFlight.release();
+                    });
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        } finally {
+            acquire(chunksInFlight, maxChunksInFlight);
+        }
+
+        if (failure.get() instanceof RuntimeException e) {
+            throw e;
+        } else if (failure.get() != null) {
+            throw new IllegalStateException("CSV import failed", failure.get());
+        }
+
+        return progress.toReport();
+    }
+
+    //a chunk with a predecessor is only written once that one is, and fails along with it
+    private CompletableFuture<Void> submitChunk(List<BeerCSVRecord> chunk, BeerCsvImportProgress progress,
+                                                CompletableFuture<Void> predecessor,
+                                                Consumer<List<Beer>> chunkWriter) {
+        CompletableFuture<List<Beer>> mapped =
+                CompletableFuture.supplyAsync(() -> toValidBeers(chunk, progress), mappingExecutor);
+        if (predecessor != null) {
+            mapped = mapped.thenCombine(predecessor, (beers, previous) -> beers);
+        }
+        return mapped.thenAcceptAsync(chunkWriter, writerExecutor);
+    }
+
+    //one timestamp per chunk, the rows of a chunk are created together anyway
+    private List<Beer> toValidBeers(List<BeerCSVRecord> chunk, BeerCsvImportProgress progress) {
+        List<Beer> beers = new ArrayList<>(chunk.size());
+        LocalDateTime createdDate = LocalDateTime.now();
+
+        for (BeerCSVRecord beerCSVRecord : chunk) {
+            Beer beer = toBeer(beerCSVRecord, beerStyleTable.lookup(beerCSVRecord.getStyle()), createdDate);
+            if (validator.validate(beer).isEmpty()) {
+                beers.add(beer);
+            } else {
+                log.debug("Rejected CSV row " + beerCSVRecord.getRow() + ": invalid beer");
+                progress.rowRejected();
+            }
+        }
+        return beers;
+    }
+
+    private void saveChunk(List<Beer> chunk, BeerCsvImportProgress progress) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        chunkTransaction.executeWithoutResult(status -> {
+            beerRepository.saveAll(chunk);
+            //keep the persistence context from growing with the file
+            entityManager.flush();
+            entityManager.clear();
+        });
+        beerCountCache.invalidateAll();
+
+        progress.chunkCommitted(chunk.size());
+    }
+
+    private static void acquire(Semaphore semaphore, int permits) {
+        try {
+            semaphore.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("CSV import interrupted", e);
+        }
+    }
+
+    public static Beer toBeer(BeerCSVRecord beerCSVRecord, BeerStyle beerStyle, LocalDateTime createdDate) {
+        String beerName = beerCSVRecord.getBeer();
+
+        return Beer.builder()
+                .beerName(beerName != null && beerName.length() > 50 ? StringUtils.abbreviate(beerName, 50) : beerName)
+                .beerStyle(beerStyle)
+                .price(BigDecimal.TEN)
+                .upc(beerCSVRecord.getRow() != null ? beerCSVRecord.getRow().toString() : null)
+                .quantityOnHand(beerCSVRecord.getCount())
+                .createdDate(createdDate)
+                .build();
+    }
+}
@@ -0,0 +1,271 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerCSVRecord;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads a beers.csv style file one record at a time, keeping only the row, count.x, beer and style
+ * columns (found by name in the header, then bound by index). The characters of those four fields go
+ * into one buffer that is reused for every record, the other columns are skipped without being
+ * copied, and numbers are read straight from the buffer. Quoting follows RFC 4180:
+ * quoted fields may hold commas, line breaks and doubled quotes.
+ * <p>
+ * Not thread safe, and a parser doesn't close its reader.
+ */
+public final class BeerCsvParser {
+
+    static final String ROW = "row";
+    static final String COUNT = "count.x";
+    static final String BEER = "beer";
+    static final String STYLE = "style";
+
+    private static final int EOF = -1;
+    private static final int NO_COLUMN = -1;
+
+    private final Reader reader;
+    private final char[] input = new char[64 * 1024];
+    private int inputPosition;
+    private int inputLength;
+    private int pushedBack = EOF;
+    private long linesRead;
+    private long recordLine;
+
+    //only bound columns are copied into fieldChars, the others just record an empty range
+    private boolean[] bound;
+    private char[] fieldChars = new char[256];
+    private int fieldCharsLength;
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private int fieldCount;
+
+    private final int rowColumn;
+    private final int countColumn;
+    private final int beerColumn;
+    private final int styleColumn;
+
+    public BeerCsvParser(Reader reader) throws IOException {
+        this.reader = reader;
+
+        if (!readRecord()) {
+            rowColumn = countColumn = beerColumn = styleColumn = NO_COLUMN;
+            return;
+        }
+
+        String[] header = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            header[i] = new String(fieldChars, fieldStart[i], fieldEnd[i] - fieldStart[i]).trim();
+        }
+        rowColumn = indexOf(header, ROW);
+        countColumn = indexOf(header, COUNT);
+        beerColumn = indexOf(header, BEER);
+        styleColumn = indexOf(header, STYLE);
+
+        bound = new boolean[header.length];
+        for (int column : new int[]{rowColumn, countColumn, beerColumn, styleColumn}) {
+            if (column != NO_COLUMN) {
+                bound[column] = true;
+            }
+        }
+    }
+
+    /**
+     * Moves to the next record, skipping blank lines.
+     *
+     * @return false at the end of the input
+     */
+    public boolean next() throws IOException {
+        return bound != null && readRecord();
+    }
+
+    //line the current record starts on, the header being line 1
+    public long getLineNumber() {
+        return recordLine;
+    }
+
+    public Integer getRow() {
+        return intField(rowColumn, ROW);
+    }
+
+    public Integer getCount() {
+        return intField(countColumn, COUNT);
+    }
+
+    public String getBeer() {
+        return stringField(beerColumn);
+    }
+
+    public String getStyle() {
+        return stringField(styleColumn);
+    }
+
+    /**
+     * The current record with its four bound columns set.
+     *
+     * @throws NumberFormatException when row or count.x isn't a number
+     */
+    public BeerCSVRecord toRecord() {
+        BeerCSVRecord beerCSVRecord = new BeerCSVRecord();
+        beerCSVRecord.setRow(getRow());
+        beerCSVRecord.setCount(getCount());
+        beerCSVRecord.setBeer(getBeer());
+        beerCSVRecord.setStyle(getStyle());
+        return beerCSVRecord;
+    }
+
+    private boolean present(int column) {
+        return column != NO_COLUMN && column < fieldCount && fieldEnd[column] > fieldStart[column];
+    }
+
+    //empty fields are null, as OpenCSV binds them
+    private String stringField(int column) {
+        return present(column) ? new String(fieldChars, fieldStart[column], fieldEnd[column] - fieldStart[column]) : null;
+    }
+
+    private Integer intField(int column, String name) {
+        if (!present(column)) {
+            return null;
+        }
+
+        int position = fieldStart[column];
+        int end = fieldEnd[column];
+        boolean negative = fieldChars[position] == '-';
+        if (negative || fieldChars[position] == '+') {
+            position++;
+        }
+        if (position == end) {
+            throw notANumber(column, name);
+        }
+
+        long value = 0;
+        for (; position < end; position++) {
+            int digit = fieldChars[position] - '0';
+            if (digit < 0 || digit > 9) {
+                throw notANumber(column, name);
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw notANumber(column, name);
+            }
+        }
+
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw notANumber(column, name);
+        }
+        return (int) value;
+    }
+
+    private NumberFormatException notANumber(int column, String name) {
+        return new NumberFormatException("Line " + recordLine + ": " + name + " is not a number: "
+                + stringField(column));
+    }
+
+    private boolean readRecord() throws IOException {
+        int c = read();
+        while (c == '\n' || c == '\r') {
+            c = read();
+        }
+        if (c == EOF) {
+            return false;
+        }
+
+        recordLine = linesRead + 1;
+        fieldCharsLength = 0;
+        fieldCount = 0;
+
+        while (true) {
+            boolean keep = bound == null || (fieldCount < bound.length && bound[fieldCount]);
+            int start = fieldCharsLength;
+
+            if (c == '"') {
+                c = read();
+                while (c != EOF) {
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            break;
+                        }
+                    }
+                    if (keep) {
+                        append((char) c);
+                    }
+                    c = read();
+                }
+                //anything between the closing quote and the separator is dropped
+                while (c != ',' && c != '\n' && c != '\r' && c != EOF) {
+                    c = read();
+                }
+            } else {
+                while (c != ',' && c != '\n' && c != '\r' && c != EOF) {
+                    if (keep) {
+                        append((char) c);
+                    }
+                    c = read();
+                }
+            }
+            endField(start);
+
+            if (c != ',') {
+                if (c == '\r') {
+                    c = read();
+                    if (c != '\n') {
+                        pushedBack = c;
+                    }
+                }
+                return true;
+            }
+            c = read();
+        }
+    }
+
+    private void append(char c) {
+        if (fieldCharsLength == fieldChars.length) {
+            fieldChars = Arrays.copyOf(fieldChars, fieldChars.length * 2);
+        }
+        fieldChars[fieldCharsLength++] = c;
+    }
+
+    private void endField(int start) {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = fieldCharsLength;
+        fieldCount++;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != EOF) {
+            int c = pushedBack;
+            pushedBack = EOF;
+            return c;
+        }
+        if (inputPosition == inputLength) {
+            inputLength = reader.read(input, 0, input.length);
+            inputPosition = 0;
+            if (inputLength <= 0) {
+                inputLength = 0;
+                return EOF;
+            }
+        }
+
+        char c = input[inputPosition++];
+        if (c == '\n') {
+            linesRead++;
+        }
+        return c;
+    }
+
+    private static int indexOf(String[] header, String column) {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].equals(column)) {
+                return i;
+            }
+        }
+        return NO_COLUMN;
+    }
+}
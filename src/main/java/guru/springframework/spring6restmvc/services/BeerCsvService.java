@@ -1,11 +1,21 @@
 package guru.springframework.spring6restmvc.services;
 
+import com.opencsv.exceptions.CsvException;
 import guru.springframework.spring6restmvc.model.BeerCSVRecord;
 
 import java.io.File;
+import java.io.Reader;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface BeerCsvService {
 
     List<BeerCSVRecord> convertCSV(File csvFile);
+
+    /**
+     * Lazily parses one record per line, so memory use does not depend on the file size. Lines that
+     * can't be parsed are skipped and handed to rejectedRowHandler. Closing the stream closes the reader.
+     */
+    Stream<BeerCSVRecord> streamCSV(Reader csvReader, Consumer<CsvException> rejectedRowHandler);
 }
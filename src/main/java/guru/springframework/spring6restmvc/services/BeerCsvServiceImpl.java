@@ -1,13 +1,22 @@
 package guru.springframework.spring6restmvc.services;
 
 import com.opencsv.bean.CsvToBeanBuilder;
+import com.opencsv.exceptions.CsvException;
 import guru.springframework.spring6restmvc.model.BeerCSVRecord;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 public class BeerCsvServiceImpl implements BeerCsvService {
@@ -27,4 +36,52 @@ public class BeerCsvServiceImpl implements BeerCsvService {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Reads with BeerCsvParser rather than OpenCSV, so only row, count.x, beer and style are set on the
+     * records. Rows whose row or count.x isn't a number are rejected.
+     */
+    @Override
+    public Stream<BeerCSVRecord> streamCSV(Reader csvReader, Consumer<CsvException> rejectedRowHandler) {
+        BeerCsvParser parser;
+        try {
+            parser = new BeerCsvParser(csvReader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Spliterator<BeerCSVRecord> records = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super BeerCSVRecord> action) {
+                try {
+                    while (parser.next()) {
+                        BeerCSVRecord beerCSVRecord;
+                        try {
+                            beerCSVRecord = parser.toRecord();
+                        } catch (NumberFormatException e) {
+                            CsvException rejected = new CsvException(e.getMessage());
+                            rejected.setLineNumber(parser.getLineNumber());
+                            rejectedRowHandler.accept(rejected);
+                            continue;
+                        }
+                        action.accept(beerCSVRecord);
+                        return true;
+                    }
+                    return false;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(records, false)
+                .onClose(() -> {
+                    try {
+                        csvReader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
 }
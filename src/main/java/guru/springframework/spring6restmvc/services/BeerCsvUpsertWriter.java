@@ -0,0 +1,266 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.entities.TimeOrderedUuidGenerator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes a chunk of imported beers keyed on their UPC. Each beer's content is hashed and the stored
+ * hashes of the whole chunk come back in one IN query on beer_import_key, so only new UPCs are
+ * inserted and only beers whose hash changed are updated; an unchanged chunk costs that one read.
+ * On MySQL new and changed beers (and their keys) go out as one INSERT ... ON DUPLICATE KEY UPDATE
+ * batch each, which rewriteBatchedStatements turns into multi-row statements; other databases get
+ * separate INSERT and UPDATE batches. The JDBC writes bypass Hibernate, so its caches are told directly,
+ * and they overwrite quantity_on_hand, so changed beers are evicted from InventoryService in the same
+ * transaction first.
+ */
+@Component
+public class BeerCsvUpsertWriter {
+
+    static final String SELECT_KEYS = "select upc, beer_id, content_hash from beer_import_key where upc in (:upcs)";
+
+    //VALUES() rather than a row alias, MariaDB only knows this form
+    static final String UPSERT_BEER = "insert into beer (id, version, beer_name, beer_style, upc, quantity_on_hand, " +
+            "price, created_date, update_date) values (?, 0, ?, ?, ?, ?, ?, ?, ?) on duplicate key update " +
+            "version = version + 1, beer_name = values(beer_name), beer_style = values(beer_style), " +
+            "quantity_on_hand = values(quantity_on_hand), price = values(price), update_date = values(update_date)";
+    static final String UPSERT_KEY = "insert into beer_import_key (upc, beer_id, content_hash, update_date) " +
+            "values (?, ?, ?, ?) on duplicate key update beer_id = values(beer_id), " +
+            "content_hash = values(content_hash), update_date = values(update_date)";
+
+    static final String INSERT_BEER = "insert into beer (id, version, beer_name, beer_style, upc, quantity_on_hand, " +
+            "price, created_date, update_date) values (?, 0, ?, ?, ?, ?, ?, ?, ?)";
+    static final String UPDATE_BEER = "update beer set version = version + 1, beer_name = ?, beer_style = ?, " +
+            "quantity_on_hand = ?, price = ?, update_date = ? where id = ?";
+    static final String INSERT_KEY = "insert into beer_import_key (upc, beer_id, content_hash, update_date) " +
+            "values (?, ?, ?, ?)";
+    static final String UPDATE_KEY = "update beer_import_key set content_hash = ?, update_date = ? where upc = ?";
+
+    record Result(int inserted, int updated, int unchanged) {
+    }
+
+    private record ImportedBeer(Beer beer, byte[] contentHash) {
+    }
+
+    private record StoredKey(UUID beerId, byte[] contentHash) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final BeerCountCache beerCountCache;
+    private final InventoryService inventoryService;
+    private final int batchSize;
+    private final boolean upsertSupported;
+
+    public BeerCsvUpsertWriter(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               EntityManagerFactory entityManagerFactory,
+                               ObjectProvider<CacheManager> cacheManager,
+                               BeerCountCache beerCountCache,
+                               InventoryService inventoryService,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheManager = cacheManager;
+        this.beerCountCache = beerCountCache;
+        this.inventoryService = inventoryService;
+        this.batchSize = batchSize;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.upsertSupported = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof MySQLDialect;
+    }
+
+    /**
+     * Upserts the beers in one transaction. When a UPC repeats within the chunk the last row wins and
+     * the earlier ones count as unchanged.
+     */
+    Result write(List<Beer> beers) {
+        if (beers.isEmpty()) {
+            return new Result(0, 0, 0);
+        }
+
+        Map<String, ImportedBeer> byUpc = new LinkedHashMap<>();
+        MessageDigest digest = sha256();
+        beers.forEach(beer -> byUpc.put(beer.getUpc(), new ImportedBeer(beer, contentHash(beer, digest))));
+
+        List<ImportedBeer> inserts = new ArrayList<>();
+        List<ImportedBeer> updates = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        writeTransaction.executeWithoutResult(status -> {
+            Map<String, StoredKey> storedKeys = loadKeys(byUpc.keySet());
+
+            byUpc.forEach((upc, imported) -> {
+                StoredKey stored = storedKeys.get(upc);
+                if (stored == null) {
+                    imported.beer().setId(TimeOrderedUuidGenerator.nextUuid());
+                    inserts.add(imported);
+                } else if (!Arrays.equals(stored.contentHash(), imported.contentHash())) {
+                    imported.beer().setId(stored.beerId());
+                    updates.add(imported);
+                }
+            });
+
+            //held stock goes to the rows before the import overwrites them, in id order like order allocations
+            updates.stream()
+                    .map(imported -> imported.beer().getId())
+                    .sorted(Comparator.naturalOrder())
+                    .forEach(inventoryService::evict);
+
+            if (upsertSupported) {
+                List<ImportedBeer> written = new ArrayList<>(inserts);
+                written.addAll(updates);
+                upsertBeers(written, now);
+            } else {
+                insertBeers(inserts, now);
+                updateBeers(updates, now);
+            }
+        });
+
+        evictCaches(inserts, updates);
+        return new Result(inserts.size(), updates.size(), beers.size() - inserts.size() - updates.size());
+    }
+
+    private Map<String, StoredKey> loadKeys(Iterable<String> upcs) {
+        Map<String, StoredKey> storedKeys = new HashMap<>();
+
+        namedParameterJdbcTemplate.query(SELECT_KEYS, Map.of("upcs", upcs), resultSet -> {
+            storedKeys.put(resultSet.getString(1),
+                    new StoredKey(UuidBytes.fromBytes(resultSet.getBytes(2)), resultSet.getBytes(3)));
+        });
+        return storedKeys;
+    }
+
+    private void upsertBeers(List<ImportedBeer> beers, Timestamp now) {
+        if (beers.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(UPSERT_BEER, beers, batchSize, (ps, imported) -> {
+            Beer beer = imported.beer();
+            ps.setBytes(1, UuidBytes.toBytes(beer.getId()));
+            ps.setString(2, beer.getBeerName());
+            ps.setInt(3, beer.getBeerStyle().ordinal());
+            ps.setString(4, beer.getUpc());
+            ps.setObject(5, beer.getQuantityOnHand());
+            ps.setBigDecimal(6, beer.getPrice());
+            ps.setTimestamp(7, now);
+            ps.setTimestamp(8, now);
+        });
+        jdbcTemplate.batchUpdate(UPSERT_KEY, beers, batchSize, (ps, imported) -> {
+            ps.setString(1, imported.beer().getUpc());
+            ps.setBytes(2, UuidBytes.toBytes(imported.beer().getId()));
+            ps.setBytes(3, imported.contentHash());
+            ps.setTimestamp(4, now);
+        });
+    }
+
+    private void insertBeers(List<ImportedBeer> beers, Timestamp now) {
+        if (beers.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_BEER, beers, batchSize, (ps, imported) -> {
+            Beer beer = imported.beer();
+            ps.setBytes(1, UuidBytes.toBytes(beer.getId()));
+            ps.setString(2, beer.getBeerName());
+            ps.setInt(3, beer.getBeerStyle().ordinal());
+            ps.setString(4, beer.getUpc());
+            ps.setObject(5, beer.getQuantityOnHand());
+            ps.setBigDecimal(6, beer.getPrice());
+            ps.setTimestamp(7, now);
+            ps.setTimestamp(8, now);
+        });
+        jdbcTemplate.batchUpdate(INSERT_KEY, beers, batchSize, (ps, imported) -> {
+            ps.setString(1, imported.beer().getUpc());
+            ps.setBytes(2, UuidBytes.toBytes(imported.beer().getId()));
+            ps.setBytes(3, imported.contentHash());
+            ps.setTimestamp(4, now);
+        });
+    }
+
+    private void updateBeers(List<ImportedBeer> beers, Timestamp now) {
+        if (beers.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_BEER, beers, batchSize, (ps, imported) -> {
+            Beer beer = imported.beer();
+            ps.setString(1, beer.getBeerName());
+            ps.setInt(2, beer.getBeerStyle().ordinal());
+            ps.setObject(3, beer.getQuantityOnHand());
+            ps.setBigDecimal(4, beer.getPrice());
+            ps.setTimestamp(5, now);
+            ps.setBytes(6, UuidBytes.toBytes(beer.getId()));
+        });
+        jdbcTemplate.batchUpdate(UPDATE_KEY, beers, batchSize, (ps, imported) -> {
+            ps.setBytes(1, imported.contentHash());
+            ps.setTimestamp(2, now);
+            ps.setString(3, imported.beer().getUpc());
+        });
+    }
+
+    private void evictCaches(List<ImportedBeer> inserts, List<ImportedBeer> updates) {
+        if (inserts.isEmpty() && updates.isEmpty()) {
+            return;
+        }
+        //an update can change beerName or beerStyle, so the filtered counts go as well
+        beerCountCache.invalidateAll();
+
+        org.hibernate.Cache secondLevelCache = entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class);
+        updates.forEach(imported -> secondLevelCache.evictEntityData(Beer.class, imported.beer().getId()));
+        secondLevelCache.evictQueryRegions();
+
+        CacheManager manager = cacheManager.getIfAvailable();
+        Cache beerCache = manager == null ? null : manager.getCache("beerCache");
+        if (beerCache != null) {
+            updates.forEach(imported -> beerCache.evict(imported.beer().getId()));
+        }
+    }
+
+    //the imported values only, so the same row always hashes the same whenever it is imported
+    static byte[] contentHash(Beer beer, MessageDigest digest) {
+        String content = beer.getBeerName() + '\u001f' + beer.getBeerStyle() + '\u001f'
+                + beer.getQuantityOnHand() + '\u001f' + beer.getPrice().stripTrailingZeros().toPlainString();
+        return digest.digest(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
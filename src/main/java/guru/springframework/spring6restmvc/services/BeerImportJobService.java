@@ -0,0 +1,29 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerImportJobDTO;
+import guru.springframework.spring6restmvc.model.BeerImportMode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface BeerImportJobService {
+
+    /**
+     * Copies csv aside and queues its import, returning as soon as the job is queued.
+     */
+    BeerImportJobDTO submitImport(String fileName, InputStream csv, BeerImportMode mode) throws IOException;
+
+    Optional<BeerImportJobDTO> getJob(UUID jobId);
+
+    //most recent first
+    List<BeerImportJobDTO> listJobs();
+
+    /**
+     * Waits up to timeout for the job to finish, returning its state either way.
+     */
+    Optional<BeerImportJobDTO> awaitJob(UUID jobId, Duration timeout);
+}
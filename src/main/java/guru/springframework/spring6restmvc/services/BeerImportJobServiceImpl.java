@@ -0,0 +1,206 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerImportJobDTO;
+import guru.springframework.spring6restmvc.model.BeerImportJobStatus;
+import guru.springframework.spring6restmvc.model.BeerImportMode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs CSV imports in the background, concurrentJobs at a time with the rest queued. The uploaded
+ * file is copied to a temp file first, so the request that submitted it can finish right away. Jobs
+ * only live in memory: up to retainedJobs finished ones are kept for lookup, and a restart forgets them.
+ */
+@Slf4j
+@Service
+public class BeerImportJobServiceImpl implements BeerImportJobService {
+
+    private final Map<UUID, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final BeerCsvImportService beerCsvImportService;
+    private final ExecutorService jobExecutor;
+    private final int retainedJobs;
+
+    public BeerImportJobServiceImpl(BeerCsvImportService beerCsvImportService,
+                                    @Value("${beer.import-job.concurrent-jobs:1}") int concurrentJobs,
+                                    @Value("${beer.import-job.retained-jobs:100}") int retainedJobs) {
+        this.beerCsvImportService = beerCsvImportService;
+        this.retainedJobs = retainedJobs;
+        this.jobExecutor = Executors.newFixedThreadPool(concurrentJobs,
+                Thread.ofPlatform().name("beer-import-job-", 0).daemon().factory());
+    }
+
+    private static final class ImportJob {
+
+        final UUID id = UUID.randomUUID();
+        final String fileName;
+        final BeerImportMode mode;
+        final LocalDateTime submittedDate = LocalDateTime.now();
+        final BeerCsvImportProgress progress = new BeerCsvImportProgress();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        volatile BeerImportJobStatus status = BeerImportJobStatus.QUEUED;
+        volatile LocalDateTime startedDate;
+        volatile LocalDateTime finishedDate;
+        volatile String errorMessage;
+
+        ImportJob(String fileName, BeerImportMode mode) {
+            this.fileName = fileName;
+            this.mode = mode;
+        }
+
+        BeerImportJobDTO toDto() {
+            LocalDateTime started = startedDate;
+            LocalDateTime finished = finishedDate;
+            long rowsRead = progress.getRowsRead();
+
+            double rowsPerSecond = 0;
+            if (started != null) {
+                long elapsedNanos = Duration.between(started, finished != null ? finished : LocalDateTime.now()).toNanos();
+                rowsPerSecond = elapsedNanos > 0 ? rowsRead * 1e9 / elapsedNanos : 0;
+            }
+
+            return BeerImportJobDTO.builder()
+                    .id(id)
+                    .fileName(fileName)
+                    .mode(mode)
+                    .status(status)
+                    .rowsRead(rowsRead)
+                    .beersInserted(progress.getBeersInserted())
+                    .beersUpdated(progress.getBeersUpdated())
+                    .rowsUnchanged(progress.getRowsUnchanged())
+                    .rowsRejected(progress.getRowsRejected())
+                    .chunksCommitted(progress.getChunksCommitted())
+                    .rowsPerSecond(rowsPerSecond)
+                    .submittedDate(submittedDate)
+                    .startedDate(started)
+                    .finishedDate(finished)
+                    .errorMessage(errorMessage)
+                    .build();
+        }
+    }
+
+    @Override
+    public BeerImportJobDTO submitImport(String fileName, InputStream csv, BeerImportMode mode) throws IOException {
+        Path file = Files.createTempFile("beer-import-", ".csv");
+        try (csv) {
+            Files.copy(csv, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        ImportJob job = new ImportJob(fileName, mode);
+        jobs.put(job.id, job);
+        removeOldJobs();
+
+        jobExecutor.execute(() -> run(job, file));
+        return job.toDto();
+    }
+
+    private void run(ImportJob job, Path file) {
+        job.startedDate = LocalDateTime.now();
+        job.status = BeerImportJobStatus.RUNNING;
+        BeerImportJobStatus status = BeerImportJobStatus.FAILED;
+
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (job.mode == BeerImportMode.UPSERT) {
+                beerCsvImportService.upsertCsv(reader, job.progress);
+            } else {
+                beerCsvImportService.importCsv(reader, job.progress);
+            }
+            status = BeerImportJobStatus.COMPLETED;
+        } catch (IOException | RuntimeException e) {
+            log.error("Beer import job " + job.id + " (" + job.fileName + ") failed", e);
+            job.errorMessage = e.getMessage();
+        } finally {
+            job.finishedDate = LocalDateTime.now();
+            job.status = status;
+            job.done.complete(null);
+            deleteFile(file);
+        }
+
+        log.debug("Beer import job " + job.id + " finished: " + job.toDto());
+    }
+
+    //finished jobs beyond retainedJobs, oldest first
+    private void removeOldJobs() {
+        int excess = jobs.size() - retainedJobs;
+        if (excess <= 0) {
+            return;
+        }
+
+        jobs.values().stream()
+                .filter(job -> job.done.isDone())
+                .sorted(Comparator.comparing(job -> job.submittedDate))
+                .limit(excess)
+                .forEach(job -> jobs.remove(job.id));
+    }
+
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import file " + file, e);
+        }
+    }
+
+    @Override
+    public Optional<BeerImportJobDTO> getJob(UUID jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(ImportJob::toDto);
+    }
+
+    @Override
+    public List<BeerImportJobDTO> listJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((ImportJob job) -> job.submittedDate).reversed())
+                .map(ImportJob::toDto)
+                .toList();
+    }
+
+    @Override
+    public Optional<BeerImportJobDTO> awaitJob(UUID jobId, Duration timeout) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+
+        try {
+            job.done.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            //still running, the snapshot below says how far it got
+        }
+        return Optional.of(job.toDto());
+    }
+
+    //a running import fails once interrupted, queued ones never start
+    @PreDestroy
+    void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,18 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerOrderCreateDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import org.springframework.data.domain.Page;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface BeerOrderService {
+
+    Page<BeerOrderDTO> listOrders(Integer pageNumber, Integer pageSize);
+
+    Optional<BeerOrderDTO> getOrderById(UUID id);
+
+    //fails with an IllegalArgumentException when the customer or one of the beers doesn't exist
+    BeerOrderDTO placeOrder(BeerOrderCreateDTO beerOrder);
+}
@@ -0,0 +1,132 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.entities.BeerOrder;
+import guru.springframework.spring6restmvc.entities.BeerOrderLine;
+import guru.springframework.spring6restmvc.entities.Customer;
+import guru.springframework.spring6restmvc.mappers.BeerOrderMapper;
+import guru.springframework.spring6restmvc.model.BeerOrderCreateDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderLineCreateDTO;
+import guru.springframework.spring6restmvc.repositories.BeerOrderRepository;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import guru.springframework.spring6restmvc.repositories.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class BeerOrderServiceJPA implements BeerOrderService {
+
+    private final BeerOrderRepository beerOrderRepository;
+    private final BeerRepository beerRepository;
+    private final CustomerRepository customerRepository;
+    private final BeerService beerService;
+    private final BeerOrderMapper beerOrderMapper;
+    private final EntityManager entityManager;
+
+    private final static int DEFAULT_PAGE = 0;
+    private final static int DEFAULT_PAGE_SIZE = 25;
+
+    /**
+     * One query for the page of ids (plus the count), one for the orders with everything they
+     * carry, however many orders and lines are on the page.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public Page<BeerOrderDTO> listOrders(Integer pageNumber, Integer pageSize) {
+        Page<UUID> ids = beerOrderRepository.findIdsBy(buildPageRequest(pageNumber, pageSize));
+
+        Map<UUID, BeerOrder> orders = beerOrderRepository.findWithLinesByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(BeerOrder::getId, Function.identity()));
+
+        return new PageImpl<>(ids.getContent().stream()
+                .map(orders::get)
+                .map(beerOrderMapper::beerOrderToBeerOrderDto)
+                .toList(), ids.getPageable(), ids.getTotalElements());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<BeerOrderDTO> getOrderById(UUID id) {
+        return beerOrderRepository.findWithLinesById(id).map(beerOrderMapper::beerOrderToBeerOrderDto);
+    }
+
+    /**
+     * Stock is allocated per line through InventoryService, in beer id order. With InventoryServiceJPA
+     * that is a conditional UPDATE and concurrent orders lock the beer rows in the same sequence, with
+     * InventoryServiceWriteBehind a counter CAS that is handed back if the order rolls back. A line is
+     * allocated in full or not at all. Lines reference their beers by proxy and go out as JDBC batches
+     * on the final flush.
+     */
+    @Transactional
+    @Override
+    public BeerOrderDTO placeOrder(BeerOrderCreateDTO beerOrderCreate) {
+        Customer customer = customerRepository.findById(beerOrderCreate.getCustomerId())
+                .orElseThrow(() -> new IllegalArgumentException("Customer " + beerOrderCreate.getCustomerId()
+                        + " not found"));
+
+        Set<UUID> beerIds = beerOrderCreate.getBeerOrderLines().stream()
+                .map(BeerOrderLineCreateDTO::getBeerId)
+                .collect(Collectors.toSet());
+        Set<UUID> existingBeerIds = beerRepository.findExistingIds(beerIds);
+        beerIds.removeAll(existingBeerIds);
+        if (!beerIds.isEmpty()) {
+            throw new IllegalArgumentException("Beers " + beerIds + " not found");
+        }
+
+        BeerOrder beerOrder = new BeerOrder();
+        beerOrder.setCustomerRef(beerOrderCreate.getCustomerRef());
+        beerOrder.setCustomer(customer);
+        beerOrder.setBeerOrderLines(new HashSet<>());
+        entityManager.persist(beerOrder);
+
+        //allocations run first, the update's auto flush would otherwise send every pending line on its own
+        Map<BeerOrderLineCreateDTO, Boolean> allocations = new IdentityHashMap<>();
+        beerOrderCreate.getBeerOrderLines().stream()
+                .sorted(Comparator.comparing(BeerOrderLineCreateDTO::getBeerId))
+                .forEach(lineCreate -> allocations.put(lineCreate,
+                        beerService.allocateInventory(lineCreate.getBeerId(), lineCreate.getOrderQuantity())));
+
+        beerOrderCreate.getBeerOrderLines().forEach(lineCreate -> {
+            BeerOrderLine line = BeerOrderLine.builder()
+                    .beerOrder(beerOrder)
+                    .beer(entityManager.getReference(Beer.class, lineCreate.getBeerId()))
+                    .orderQuantity(lineCreate.getOrderQuantity())
+                    .quantityAllocated(allocations.get(lineCreate) ? lineCreate.getOrderQuantity() : 0)
+                    .build();
+            entityManager.persist(line);
+            beerOrder.getBeerOrderLines().add(line);
+        });
+
+        entityManager.flush();
+        entityManager.clear();
+
+        return getOrderById(beerOrder.getId()).orElseThrow();
+    }
+
+    private PageRequest buildPageRequest(Integer pageNumber, Integer pageSize) {
+        int queryPageNumber = pageNumber != null && pageNumber > 0 ? pageNumber - 1 : DEFAULT_PAGE;
+        int queryPageSize = pageSize == null ? DEFAULT_PAGE_SIZE : Math.min(pageSize, 1000);
+
+        return PageRequest.of(queryPageNumber, queryPageSize,
+                Sort.by(Sort.Order.desc("createdDate"), Sort.Order.desc("id")));
+    }
+}
@@ -1,23 +1,55 @@
 package guru.springframework.spring6restmvc.services;
 
+import guru.springframework.spring6restmvc.model.BeerCursor;
 import guru.springframework.spring6restmvc.model.BeerDTO;
 import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.model.BeerWithCategoriesDTO;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface BeerService {
 
     Page<BeerDTO> listBeers(String beerName, BeerStyle beerStyle, Boolean showInventory, Integer pageNumber, Integer pageSize);
 
+    Slice<BeerDTO> listBeersWithoutTotal(String beerName, BeerStyle beerStyle, Boolean showInventory, Integer pageNumber, Integer pageSize);
+
+    Slice<BeerDTO> listBeersAfter(String beerName, BeerStyle beerStyle, Boolean showInventory, BeerCursor cursor, Integer pageSize);
+
+    //beers of the category with that id or description, an empty page when there is no such category
+    Page<BeerDTO> listBeersByCategory(String category, Boolean showInventory, Integer pageNumber, Integer pageSize);
+
+    //beers by name with their categories, in a fixed number of queries whatever the page size
+    Page<BeerWithCategoriesDTO> listBeersWithCategories(Integer pageNumber, Integer pageSize);
+
+    //hands every beer (of beerStyle, when given) to action in turn without holding them all in memory
+    void forEachBeer(BeerStyle beerStyle, Consumer<BeerDTO> action);
+
     Optional<BeerDTO> getBeerById(UUID id);
 
     BeerDTO saveNewBeer(BeerDTO beerDTO);
 
+    List<BeerDTO> saveNewBeers(List<BeerDTO> beerDTOs);
+
+    //the version in beerDTO isn't checked, see the expectedVersion variant below
     Optional<BeerDTO> updateBeerById(UUID beerId, BeerDTO beerDTO);
 
     boolean deleteById(UUID beerId);
 
     Optional<BeerDTO> patchBeerById(UUID beerId, BeerDTO beerDTO);
+
+    //expectedVersion variants fail with an OptimisticLockingFailureException when the beer has moved on,
+    //a null expectedVersion skips the check
+    Optional<BeerDTO> updateBeerById(UUID beerId, BeerDTO beerDTO, Integer expectedVersion);
+
+    Optional<BeerDTO> patchBeerById(UUID beerId, BeerDTO beerDTO, Integer expectedVersion);
+
+    Optional<Integer> getBeerVersion(UUID beerId);
+
+    //takes quantity off the beer's stock when at least that much is on hand, false (and no change) otherwise
+    boolean allocateInventory(UUID beerId, int quantity);
 }
@@ -1,70 +1,171 @@
 package guru.springframework.spring6restmvc.services;
 
+import guru.springframework.spring6restmvc.entities.TimeOrderedUuidGenerator;
+import guru.springframework.spring6restmvc.model.BeerCursor;
 import guru.springframework.spring6restmvc.model.BeerDTO;
 import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.model.BeerWithCategoriesDTO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
+/**
+ * In-memory BeerService that filters, pages, sorts and versions beers the way BeerServiceJPA does.
+ * Stored beers are snapshots that are never changed: every write builds a new one and swaps it in
+ * with ConcurrentHashMap.compute, which keeps the style, name and ordering indexes in step under the
+ * same entry lock, and callers only ever get copies. Lookups through an index re-check the snapshot
+ * they land on, so an entry a concurrent write is still replacing never leaks into a result.
+ */
 @Slf4j
 @Service
 public class BeerServiceImpl implements BeerService {
 
-    private Map<UUID, BeerDTO> beerMap;
+    private final static int DEFAULT_PAGE = 0;
+    private final static int DEFAULT_PAGE_SIZE = 25;
+
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+
+    private final Map<UUID, BeerDTO> beerMap = new ConcurrentHashMap<>();
+    private final Map<BeerStyle, Set<UUID>> beersByStyle = new ConcurrentHashMap<>();
+    //every suffix of every lower-cased name, so a prefix scan finds the names containing the search text
+    private final NavigableSet<IndexKey> beersByName = new ConcurrentSkipListSet<>();
+    //beerName then id, the listing order and the seek cursor's
+    private final NavigableSet<IndexKey> beerOrder = new ConcurrentSkipListSet<>();
+
+    /**
+     * A string key and the beer it belongs to, ordered by key then id. Ids compare as unsigned bytes,
+     * the way the database orders binary(16).
+     */
+    private record IndexKey(String key, UUID id) implements Comparable<IndexKey> {
+
+        @Override
+        public int compareTo(IndexKey other) {
+            int byKey = key.compareTo(other.key);
+            if (byKey != 0) {
+                return byKey;
+            }
+            int byHigh = Long.compareUnsigned(id.getMostSignificantBits(), other.id.getMostSignificantBits());
+            return byHigh != 0 ? byHigh
+                    : Long.compareUnsigned(id.getLeastSignificantBits(), other.id.getLeastSignificantBits());
+        }
+    }
 
     public BeerServiceImpl() {
-        this.beerMap = new HashMap<>();
-
-        BeerDTO beerDTO1 = BeerDTO.builder()
-                .id(UUID.randomUUID())
-                .version(1)
-                .beerName("Galaxy Cat")
-                .beerStyle(BeerStyle.PALE_ALE)
-                .upc("12356")
-                .price(new BigDecimal("12.99"))
-                .quantityOnHand(122)
-                .createdDate(LocalDateTime.now())
-                .updateDate(LocalDateTime.now())
-                .build();
+        this(List.of(
+                BeerDTO.builder()
+                        .beerName("Galaxy Cat")
+                        .beerStyle(BeerStyle.PALE_ALE)
+                        .upc("12356")
+                        .price(new BigDecimal("12.99"))
+                        .quantityOnHand(122)
+                        .build(),
+                BeerDTO.builder()
+                        .beerName("Crank")
+                        .beerStyle(BeerStyle.PALE_ALE)
+                        .upc("12356222")
+                        .price(new BigDecimal("11.99"))
+                        .quantityOnHand(392)
+                        .build(),
+                BeerDTO.builder()
+                        .beerName("Sunshine City")
+                        .beerStyle(BeerStyle.IPA)
+                        .upc("12356")
+                        .price(new BigDecimal("13.99"))
+                        .quantityOnHand(144)
+                        .build()));
+    }
 
-        BeerDTO beerDTO2 = BeerDTO.builder()
-                .id(UUID.randomUUID())
-                .version(1)
-                .beerName("Crank")
-                .beerStyle(BeerStyle.PALE_ALE)
-                .upc("12356222")
-                .price(new BigDecimal("11.99"))
-                .quantityOnHand(392)
-                .createdDate(LocalDateTime.now())
-                .updateDate(LocalDateTime.now())
-                .build();
+    BeerServiceImpl(List<BeerDTO> beers) {
+        saveNewBeers(beers);
+    }
 
-        BeerDTO beerDTO3 = BeerDTO.builder()
-                .id(UUID.randomUUID())
-                .version(1)
-                .beerName("Sunshine City")
-                .beerStyle(BeerStyle.IPA)
-                .upc("12356")
-                .price(new BigDecimal("13.99"))
-                .quantityOnHand(144)
-                .createdDate(LocalDateTime.now())
-                .updateDate(LocalDateTime.now())
-                .build();
+    public PageRequest buildPageRequest(Integer pageNumber, Integer pageSize) {
+        int queryPageNumber = pageNumber != null && pageNumber > 0 ? pageNumber - 1 : DEFAULT_PAGE;
+        int queryPageSize = pageSize == null ? DEFAULT_PAGE_SIZE : Math.min(pageSize, 1000);
 
-        beerMap.put(beerDTO1.getId(), beerDTO1);
-        beerMap.put(beerDTO2.getId(), beerDTO2);
-        beerMap.put(beerDTO3.getId(), beerDTO3);
+        return PageRequest.of(queryPageNumber, queryPageSize, Sort.by(Sort.Order.asc("beerName")));
     }
 
     @Override
     public Page<BeerDTO> listBeers(String beerName, BeerStyle beerStyle, Boolean showInventory, Integer pageNumber, Integer pageSize){
-        return new PageImpl<>(new  ArrayList<>(beerMap.values()));
+        PageRequest pageRequest = buildPageRequest(pageNumber, pageSize);
+        List<BeerDTO> beers = findBeers(beerName, beerStyle).toList();
+
+        return PageableExecutionUtils.getPage(page(beers, pageRequest, showInventory), pageRequest, beers::size);
+    }
+
+    @Override
+    public Slice<BeerDTO> listBeersWithoutTotal(String beerName, BeerStyle beerStyle, Boolean showInventory, Integer pageNumber, Integer pageSize) {
+        PageRequest pageRequest = buildPageRequest(pageNumber, pageSize);
+        List<BeerDTO> beers = findBeers(beerName, beerStyle)
+                .limit(pageRequest.getOffset() + pageRequest.getPageSize() + 1)
+                .toList();
+
+        return new SliceImpl<>(page(beers, pageRequest, showInventory), pageRequest,
+                beers.size() > pageRequest.getOffset() + pageRequest.getPageSize());
+    }
+
+    @Override
+    public Slice<BeerDTO> listBeersAfter(String beerName, BeerStyle beerStyle, Boolean showInventory, BeerCursor cursor, Integer pageSize) {
+        BeerCursor after = cursor != null ? cursor : BeerCursor.FIRST;
+        IndexKey afterKey = new IndexKey(after.beerName(), after.id());
+        int size = buildPageRequest(null, pageSize).getPageSize();
+        boolean withInventory = showInventory == null || showInventory;
+
+        Stream<BeerDTO> candidates = !StringUtils.hasText(beerName) && beerStyle == null
+                ? inOrder(beerOrder.tailSet(afterKey, false))
+                : findBeers(beerName, beerStyle).filter(beer -> orderKey(beer).compareTo(afterKey) > 0);
+        List<BeerDTO> beers = candidates.limit(size + 1).toList();
+
+        boolean hasNext = beers.size() > size;
+
+        return new SliceImpl<>((hasNext ? beers.subList(0, size) : beers).stream()
+                .map(beer -> copy(beer, withInventory))
+                .toList(), PageRequest.ofSize(size), hasNext);
+    }
+
+    //no categories in memory
+    @Override
+    public Page<BeerDTO> listBeersByCategory(String category, Boolean showInventory, Integer pageNumber,
+                                             Integer pageSize) {
+        return Page.empty(buildPageRequest(pageNumber, pageSize));
+    }
+
+    @Override
+    public Page<BeerWithCategoriesDTO> listBeersWithCategories(Integer pageNumber, Integer pageSize) {
+        PageRequest pageRequest = buildPageRequest(pageNumber, pageSize);
+        List<BeerDTO> beers = findBeers(null, null).toList();
+
+        return new PageImpl<>(page(beers, pageRequest, true).stream()
+                .map(beer -> BeerWithCategoriesDTO.builder().beer(beer).categories(Set.of()).build())
+                .toList(), pageRequest, beers.size());
+    }
+
+    @Override
+    public void forEachBeer(BeerStyle beerStyle, Consumer<BeerDTO> action) {
+        Stream<BeerDTO> beers = beerStyle == null
+                ? beerMap.values().stream()
+                : findBeers(null, beerStyle);
+
+        beers.map(beer -> copy(beer, true)).forEach(action);
     }
 
     @Override
@@ -72,17 +173,18 @@ public class BeerServiceImpl implements BeerService {
 
         log.debug("Get Beer by Id - in service. Id: " + id.toString());
 
-        return Optional.of(beerMap.get(id));
+        return Optional.ofNullable(beerMap.get(id)).map(beer -> copy(beer, true));
     }
 
     @Override
     public BeerDTO saveNewBeer(BeerDTO beerDTO) {
+        LocalDateTime now = LocalDateTime.now();
 
         BeerDTO savedBeerDTO = BeerDTO.builder()
-                .id(UUID.randomUUID())
-                .version(1)
-                .createdDate(LocalDateTime.now())
-                .updateDate(LocalDateTime.now())
+                .id(TimeOrderedUuidGenerator.nextUuid())
+                .version(0)
+                .createdDate(now)
+                .updateDate(now)
                 .beerName(beerDTO.getBeerName())
                 .beerStyle(beerDTO.getBeerStyle())
                 .quantityOnHand(beerDTO.getQuantityOnHand())
@@ -90,55 +192,233 @@ public class BeerServiceImpl implements BeerService {
                 .price(beerDTO.getPrice())
                 .build();
 
-        beerMap.put(savedBeerDTO.getId(), savedBeerDTO);
+        write(savedBeerDTO.getId(), current -> savedBeerDTO);
 
+        return copy(savedBeerDTO, true);
+    }
 
-        return savedBeerDTO;
+    @Override
+    public List<BeerDTO> saveNewBeers(List<BeerDTO> beerDTOs) {
+        return beerDTOs.stream()
+                .map(this::saveNewBeer)
+                .toList();
     }
 
+    //the version the caller read must still be current, like the merge BeerServiceJPA does
     @Override
     public Optional<BeerDTO> updateBeerById(UUID beerId, BeerDTO beerDTO) {
-
-        BeerDTO existingBeerDTO = beerMap.get(beerId);
-        existingBeerDTO.setBeerName(beerDTO.getBeerName());
-        existingBeerDTO.setBeerStyle(beerDTO.getBeerStyle());
-        existingBeerDTO.setPrice(beerDTO.getPrice());
-        existingBeerDTO.setUpc(beerDTO.getUpc());
-        existingBeerDTO.setUpdateDate(LocalDateTime.now());
-
-        return Optional.of(existingBeerDTO);
+        return change(beerId, null, beer -> updateFields(beer, beerDTO));
     }
 
     @Override
     public boolean deleteById(UUID beerId) {
-        beerMap.remove(beerId);
+        AtomicBoolean deleted = new AtomicBoolean();
 
-        return true;
+        write(beerId, current -> {
+            deleted.set(current != null);
+            return null;
+        });
+        return deleted.get();
     }
 
     @Override
     public Optional<BeerDTO> patchBeerById(UUID beerId, BeerDTO beerDTO) {
+        return change(beerId, null, beer -> patchFields(beer, beerDTO));
+    }
 
-        BeerDTO existingBeerDTO = beerMap.get(beerId);
+    @Override
+    public Optional<BeerDTO> updateBeerById(UUID beerId, BeerDTO beerDTO, Integer expectedVersion) {
+        return change(beerId, expectedVersion, beer -> updateFields(beer, beerDTO));
+    }
 
-        if (StringUtils.hasText(beerDTO.getBeerName())) {
-            existingBeerDTO.setBeerName(beerDTO.getBeerName());
+    @Override
+    public Optional<BeerDTO> patchBeerById(UUID beerId, BeerDTO beerDTO, Integer expectedVersion) {
+        return change(beerId, expectedVersion, beer -> patchFields(beer, beerDTO));
+    }
+
+    @Override
+    public Optional<Integer> getBeerVersion(UUID beerId) {
+        return Optional.ofNullable(beerMap.get(beerId)).map(BeerDTO::getVersion);
+    }
+
+    @Override
+    public boolean allocateInventory(UUID beerId, int quantity) {
+        AtomicBoolean allocated = new AtomicBoolean();
+
+        write(beerId, current -> {
+            if (current == null || current.getQuantityOnHand() == null || current.getQuantityOnHand() < quantity) {
+                return current;
+            }
+            allocated.set(true);
+            return current.toBuilder()
+                    .quantityOnHand(current.getQuantityOnHand() - quantity)
+                    .version(current.getVersion() + 1)
+                    .updateDate(LocalDateTime.now())
+                    .build();
+        });
+        return allocated.get();
+    }
+
+    /**
+     * Applies fields to a copy of the beer, storing it with the next version unless nothing changed,
+     * in which case the beer keeps its version and update date as an unchanged entity would.
+     */
+    private Optional<BeerDTO> change(UUID beerId, Integer expectedVersion, Consumer<BeerDTO> fields) {
+        BeerDTO changed = write(beerId, current -> {
+            if (current == null) {
+                return null;
+            }
+            checkVersion(current, expectedVersion);
+
+            BeerDTO next = current.toBuilder().build();
+            fields.accept(next);
+            if (next.equals(current)) {
+                return current;
+            }
+            next.setVersion(current.getVersion() + 1);
+            next.setUpdateDate(LocalDateTime.now());
+            return next;
+        });
+
+        return Optional.ofNullable(changed).map(beer -> copy(beer, true));
+    }
+
+    //swaps in the snapshot change returns (null removes the beer) and re-indexes it under the entry's lock
+    private BeerDTO write(UUID beerId, UnaryOperator<BeerDTO> change) {
+        return beerMap.compute(beerId, (id, current) -> {
+            BeerDTO next = change.apply(current);
+            if (next != current) {
+                reindex(id, current, next);
+            }
+            return next;
+        });
+    }
+
+    //new entries go in before stale ones come out, so a reader always finds the beer under one snapshot
+    private void reindex(UUID beerId, BeerDTO current, BeerDTO next) {
+        if (next != null) {
+            if (next.getBeerStyle() != null) {
+                beersByStyle.computeIfAbsent(next.getBeerStyle(), style -> ConcurrentHashMap.newKeySet()).add(beerId);
+            }
+            nameSuffixes(next).forEach(suffix -> beersByName.add(new IndexKey(suffix, beerId)));
+            beerOrder.add(orderKey(next));
         }
 
-        if (beerDTO.getBeerStyle() != null) {
-            existingBeerDTO.setBeerStyle(beerDTO.getBeerStyle());
+        if (current == null) {
+            return;
+        }
+        if (current.getBeerStyle() != null && (next == null || next.getBeerStyle() != current.getBeerStyle())) {
+            beersByStyle.get(current.getBeerStyle()).remove(beerId);
+        }
+        if (next == null || !next.getBeerName().equals(current.getBeerName())) {
+            String nextName = next == null ? null : lowerCase(next.getBeerName());
+            nameSuffixes(current)
+                    .filter(suffix -> nextName == null || !nextName.endsWith(suffix))
+                    .forEach(suffix -> beersByName.remove(new IndexKey(suffix, beerId)));
+            beerOrder.remove(orderKey(current));
         }
+    }
 
-        if (beerDTO.getPrice() != null) {
-            existingBeerDTO.setPrice(beerDTO.getPrice());
+    //matching beers in listing order: the order index for all beers, a sorted index lookup for filtered ones
+    private Stream<BeerDTO> findBeers(String beerName, BeerStyle beerStyle) {
+        if (!StringUtils.hasText(beerName) && beerStyle == null) {
+            return inOrder(beerOrder);
         }
 
-        if (StringUtils.hasText(beerDTO.getUpc())) {
-            existingBeerDTO.setUpc(beerDTO.getUpc());
+        Collection<UUID> candidates = StringUtils.hasText(beerName)
+                ? idsByName(beerName)
+                : beersByStyle.getOrDefault(beerStyle, Set.of());
+
+        return candidates.stream()
+                .map(beerMap::get)
+                .filter(beer -> beer != null && matches(beer, beerName, beerStyle))
+                .sorted(Comparator.comparing(BeerServiceImpl::orderKey));
+    }
+
+    private Set<UUID> idsByName(String beerName) {
+        String search = lowerCase(beerName);
+        Set<UUID> ids = new HashSet<>();
+
+        for (IndexKey suffix : beersByName.tailSet(new IndexKey(search, MIN_ID), true)) {
+            if (!suffix.key().startsWith(search)) {
+                break;
+            }
+            ids.add(suffix.id());
+        }
+        return ids;
+    }
+
+    //order keys whose beer has since been renamed or deleted are skipped
+    private Stream<BeerDTO> inOrder(Collection<IndexKey> orderKeys) {
+        return orderKeys.stream()
+                .map(key -> {
+                    BeerDTO beer = beerMap.get(key.id());
+                    return beer != null && beer.getBeerName().equals(key.key()) ? beer : null;
+                })
+                .filter(Objects::nonNull);
+    }
+
+    private static boolean matches(BeerDTO beer, String beerName, BeerStyle beerStyle) {
+        return (!StringUtils.hasText(beerName) || lowerCase(beer.getBeerName()).contains(lowerCase(beerName)))
+                && (beerStyle == null || beerStyle == beer.getBeerStyle());
+    }
+
+    private static List<BeerDTO> page(List<BeerDTO> beers, PageRequest pageRequest, Boolean showInventory) {
+        //inventory stays in the listing unless explicitly turned off
+        boolean withInventory = showInventory == null || showInventory;
+        int from = (int) Math.min(pageRequest.getOffset(), beers.size());
+        int to = Math.min(from + pageRequest.getPageSize(), beers.size());
+
+        return beers.subList(from, to).stream()
+                .map(beer -> copy(beer, withInventory))
+                .toList();
+    }
+
+    private static IndexKey orderKey(BeerDTO beer) {
+        return new IndexKey(beer.getBeerName(), beer.getId());
+    }
+
+    private static Stream<String> nameSuffixes(BeerDTO beer) {
+        String name = lowerCase(beer.getBeerName());
+        return Stream.iterate(0, i -> i < name.length(), i -> i + 1).map(name::substring);
+    }
+
+    private static String lowerCase(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static BeerDTO copy(BeerDTO beer, boolean withInventory) {
+        return beer.toBuilder()
+                .quantityOnHand(withInventory ? beer.getQuantityOnHand() : null)
+                .build();
+    }
+
+    private void checkVersion(BeerDTO beer, Integer expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(beer.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(BeerDTO.class, beer.getId());
         }
+    }
 
-        existingBeerDTO.setUpdateDate(LocalDateTime.now());
+    private void updateFields(BeerDTO foundBeer, BeerDTO beerDTO) {
+        foundBeer.setBeerName(beerDTO.getBeerName());
+        foundBeer.setBeerStyle(beerDTO.getBeerStyle());
+        foundBeer.setUpc(beerDTO.getUpc());
+        foundBeer.setPrice(beerDTO.getPrice());
+        foundBeer.setQuantityOnHand(beerDTO.getQuantityOnHand());
+    }
 
-        return Optional.of(existingBeerDTO);
+    private void patchFields(BeerDTO foundBeer, BeerDTO beerDTO) {
+        if (StringUtils.hasText(beerDTO.getBeerName())) {
+            foundBeer.setBeerName(beerDTO.getBeerName());
+        }
+        if (beerDTO.getBeerStyle() != null) {
+            foundBeer.setBeerStyle(beerDTO.getBeerStyle());
+        }
+        if (StringUtils.hasText(beerDTO.getUpc())) {
+            foundBeer.setUpc(beerDTO.getUpc());
+        }
+        if (beerDTO.getPrice() != null) {
+            foundBeer.setPrice(beerDTO.getPrice());
+        }
     }
 }
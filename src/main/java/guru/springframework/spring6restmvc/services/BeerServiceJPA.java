@@ -2,23 +2,43 @@ package guru.springframework.spring6restmvc.services;
 
 import guru.springframework.spring6restmvc.entities.Beer;
 import guru.springframework.spring6restmvc.mappers.BeerMapper;
+import guru.springframework.spring6restmvc.mappers.CategoryMapper;
+import guru.springframework.spring6restmvc.model.BeerCursor;
 import guru.springframework.spring6restmvc.model.BeerDTO;
 import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.model.BeerWithCategoriesDTO;
+import guru.springframework.spring6restmvc.model.CategoryDTO;
 import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static guru.springframework.spring6restmvc.repositories.BeerNameSearchFunctionContributor.hasNgramToken;
 
 @Service
 @Primary
@@ -26,6 +46,14 @@ import java.util.stream.Collectors;
 public class BeerServiceJPA implements BeerService {
     private  final BeerRepository beerRepository;
     private final BeerMapper beerMapper;
+    private final CategoryMapper categoryMapper;
+    private final CategoryService categoryService;
+    private final BeerCountCache beerCountCache;
+    private final InventoryService inventoryService;
+    private final EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
 
     private final static int DEFAULT_PAGE = 0;
     private final static int DEFAULT_PAGE_SIZE = 25;
@@ -57,6 +85,7 @@ public class BeerServiceJPA implements BeerService {
     }
 
 
+    @Transactional(readOnly = true)
     @Override
     public Page<BeerDTO> listBeers(
             String beerName,
@@ -66,37 +95,150 @@ public class BeerServiceJPA implements BeerService {
             Integer pageSize
     ) {
         PageRequest pageRequest = buildPageRequest(pageNumber,pageSize);
-        Page<Beer> beerPage;
+        List<BeerDTO> beers = listBeerSlice(beerName, beerStyle, showInventory, pageRequest).getContent();
+
+        //the count only runs when the total can't be derived from the page itself, and is cached for a short time
+        return PageableExecutionUtils.getPage(beers, pageRequest,
+                () -> beerCountCache.get(beerName, beerStyle, () -> countBeers(beerName, beerStyle)));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Slice<BeerDTO> listBeersWithoutTotal(
+            String beerName,
+            BeerStyle beerStyle,
+            Boolean showInventory,
+            Integer pageNumber,
+            Integer pageSize
+    ) {
+        return listBeerSlice(beerName, beerStyle, showInventory, buildPageRequest(pageNumber, pageSize));
+    }
+
+    private Slice<BeerDTO> listBeerSlice(String beerName, BeerStyle beerStyle, Boolean showInventory, PageRequest pageRequest) {
+        //inventory stays in the listing unless explicitly turned off
+        boolean withInventory = showInventory == null || showInventory;
 
         if (StringUtils.hasText(beerName) && beerStyle == null){
-            beerPage = listBeersByName(beerName,pageRequest);
+            return listBeersByName(beerName, withInventory, pageRequest);
         } else if (beerStyle != null && !StringUtils.hasText(beerName)) {
-            beerPage = listBeersByStyle(beerStyle,pageRequest);
+            return listBeersByStyle(beerStyle, withInventory, pageRequest);
         } else  if (StringUtils.hasText(beerName) && beerStyle != null){
-            beerPage = listBeersByNameAndStyle(beerName,beerStyle, pageRequest);
-        } else {
-            beerPage =  beerRepository.findAll(pageRequest);
+            return listBeersByNameAndStyle(beerName, beerStyle, withInventory, pageRequest);
         }
+        return beerRepository.findDtoSliceBy(withInventory, pageRequest);
+    }
 
-        if (showInventory != null && !showInventory) {
-            beerPage.forEach(beer -> beer.setQuantityOnHand(null));
+    private long countBeers(String beerName, BeerStyle beerStyle) {
+        if (StringUtils.hasText(beerName) && beerStyle == null){
+            return hasNgramToken(beerName)
+                    ? beerRepository.countByBeerNameMatching(beerName)
+                    : beerRepository.countByBeerNameContaining(beerName);
+        } else if (beerStyle != null && !StringUtils.hasText(beerName)) {
+            return beerRepository.countByBeerStyle(beerStyle);
+        } else if (StringUtils.hasText(beerName) && beerStyle != null){
+            return hasNgramToken(beerName)
+                    ? beerRepository.countByBeerNameMatchingAndBeerStyle(beerName, beerStyle)
+                    : beerRepository.countByBeerNameContainingAndBeerStyle(beerName, beerStyle);
         }
+        return beerRepository.count();
+    }
 
-        return beerPage.map(beerMapper::beerToBeerDto);
+    @Transactional(readOnly = true)
+    @Override
+    public Slice<BeerDTO> listBeersAfter(
+            String beerName,
+            BeerStyle beerStyle,
+            Boolean showInventory,
+            BeerCursor cursor,
+            Integer pageSize
+    ) {
+        BeerCursor after = cursor != null ? cursor : BeerCursor.FIRST;
+        //the seek queries carry their own ordering, so only the limit is taken from the request
+        Pageable seekRequest = PageRequest.ofSize(buildPageRequest(null, pageSize).getPageSize());
+        boolean withInventory = showInventory == null || showInventory;
+
+        if (StringUtils.hasText(beerName) && beerStyle == null){
+            return hasNgramToken(beerName)
+                    ? beerRepository.findDtoSliceByBeerNameAfter(beerName,
+                            after.beerName(), after.id(), withInventory, seekRequest)
+                    : beerRepository.findDtoSliceByBeerNameContainingAfter(beerName,
+                            after.beerName(), after.id(), withInventory, seekRequest);
+        } else if (beerStyle != null && !StringUtils.hasText(beerName)) {
+            return beerRepository.findDtoSliceByBeerStyleAfter(beerStyle,
+                    after.beerName(), after.id(), withInventory, seekRequest);
+        } else if (StringUtils.hasText(beerName) && beerStyle != null){
+            return hasNgramToken(beerName)
+                    ? beerRepository.findDtoSliceByBeerNameAndBeerStyleAfter(beerName, beerStyle,
+                            after.beerName(), after.id(), withInventory, seekRequest)
+                    : beerRepository.findDtoSliceByBeerNameContainingAndBeerStyleAfter(beerName, beerStyle,
+                            after.beerName(), after.id(), withInventory, seekRequest);
+        }
+        return beerRepository.findDtoSliceAfter(after.beerName(), after.id(), withInventory, seekRequest);
+    }
+
+    //search text without an ngram token would never match the FULLTEXT index on MySQL, so it goes through LIKE
+    public Slice<BeerDTO> listBeersByName(String beerName, boolean showInventory, Pageable pageable) {
+        return hasNgramToken(beerName)
+                ? beerRepository.findDtoSliceByBeerNameMatching(beerName, showInventory, pageable)
+                : beerRepository.findDtoSliceByBeerNameContaining(beerName, showInventory, pageable);
+    }
+
+    public Slice<BeerDTO> listBeersByStyle(BeerStyle beerStyle, boolean showInventory, Pageable pageable) {
+        return beerRepository.findDtoSliceByBeerStyle(beerStyle, showInventory, pageable);
+    }
+
+    public Slice<BeerDTO> listBeersByNameAndStyle(String beerName, BeerStyle beerStyle, boolean showInventory,
+                                                  Pageable pageable) {
+        return hasNgramToken(beerName)
+                ? beerRepository.findDtoSliceByBeerNameMatchingAndBeerStyle(beerName, beerStyle, showInventory, pageable)
+                : beerRepository.findDtoSliceByBeerNameContainingAndBeerStyle(beerName, beerStyle, showInventory, pageable);
     }
 
-    public Page<Beer> listBeersByName(String beerName, Pageable pageable) {
-        return beerRepository.findAllByBeerNameIsLikeIgnoreCase("%"+beerName+"%", pageable);
+    //the category comes from CategoryService's in-memory set, so only the listing itself hits the database
+    @Transactional(readOnly = true)
+    @Override
+    public Page<BeerDTO> listBeersByCategory(String category, Boolean showInventory, Integer pageNumber,
+                                             Integer pageSize) {
+        PageRequest pageRequest = buildPageRequest(pageNumber, pageSize);
+        Optional<UUID> categoryId = categoryService.findCategory(category).map(CategoryDTO::getId);
+        if (categoryId.isEmpty()) {
+            return Page.empty(pageRequest);
+        }
+
+        boolean withInventory = showInventory == null || showInventory;
+        List<BeerDTO> beers = beerRepository.findDtoSliceByCategoryId(categoryId.get(), withInventory, pageRequest)
+                .getContent();
+
+        return PageableExecutionUtils.getPage(beers, pageRequest,
+                () -> beerRepository.countByCategoryId(categoryId.get()));
     }
 
-    public Page<Beer> listBeersByStyle(BeerStyle beerStyle, Pageable pageable) {
-        return beerRepository.findAllByBeerStyle(beerStyle, pageable);
+    //one query for the page of ids (plus the count), one for the beers with their categories
+    @Transactional(readOnly = true)
+    @Override
+    public Page<BeerWithCategoriesDTO> listBeersWithCategories(Integer pageNumber, Integer pageSize) {
+        Page<UUID> ids = beerRepository.findIdsBy(buildPageRequest(pageNumber, pageSize));
+
+        Map<UUID, Beer> beers = beerRepository.findWithCategoriesByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(Beer::getId, Function.identity()));
+
+        return new PageImpl<>(ids.getContent().stream()
+                .map(beers::get)
+                .map(categoryMapper::beerToBeerWithCategoriesDto)
+                .toList(), ids.getPageable(), ids.getTotalElements());
     }
 
-    public Page<Beer> listBeersByNameAndStyle(String beerName, BeerStyle beerStyle, Pageable pageable) {
-        return beerRepository.findAllByBeerNameIsLikeIgnoreCaseAndBeerStyle("%"+beerName+"%",beerStyle, pageable);
+    @Transactional(readOnly = true)
+    @Override
+    public void forEachBeer(BeerStyle beerStyle, Consumer<BeerDTO> action) {
+        try (Stream<BeerDTO> beers = beerStyle == null
+                ? beerRepository.streamDtosBy(true)
+                : beerRepository.streamDtosByBeerStyle(beerStyle, true)) {
+            beers.forEach(action);
+        }
     }
 
+    @Cacheable(cacheNames = "beerCache", key = "#id", unless = "#result == null")
     @Override
     public Optional<BeerDTO> getBeerById(UUID id) {
         return Optional.ofNullable(beerMapper.beerToBeerDto(beerRepository.findById(id)
@@ -105,63 +247,166 @@ public class BeerServiceJPA implements BeerService {
 
     @Override
     public BeerDTO saveNewBeer(BeerDTO beerDTO) {
+        BeerDTO savedBeer = beerMapper.beerToBeerDto(beerRepository.save(beerMapper.beerDtoToBeer(beerDTO)));
+        beerCountCache.invalidateAll();
+
+        return savedBeer;
+    }
+
+    /**
+     * Persists all beers in one transaction, flushing and clearing every jdbcBatchSize rows so
+     * Hibernate sends them as JDBC batches and the persistence context stays small.
+     */
+    @Transactional
+    @Override
+    public List<BeerDTO> saveNewBeers(List<BeerDTO> beerDTOs) {
+        List<BeerDTO> savedBeers = new ArrayList<>(beerDTOs.size());
+        List<Beer> batch = new ArrayList<>(jdbcBatchSize);
+
+        for (BeerDTO beerDTO : beerDTOs) {
+            Beer beer = beerMapper.beerDtoToBeer(beerDTO);
+            //new rows only: a client supplied id or version would make persist see a detached entity
+            beer.setId(null);
+            beer.setVersion(null);
+            entityManager.persist(beer);
+            batch.add(beer);
+
+            if (batch.size() == jdbcBatchSize) {
+                flushBatch(batch, savedBeers);
+            }
+        }
+        flushBatch(batch, savedBeers);
+        beerCountCache.invalidateAll();
+
+        return savedBeers;
+    }
 
-        return beerMapper.beerToBeerDto(beerRepository.save(beerMapper.beerDtoToBeer(beerDTO)));
+    private void flushBatch(List<Beer> batch, List<BeerDTO> savedBeers) {
+        entityManager.flush();
+        batch.forEach(beer -> savedBeers.add(beerMapper.beerToBeerDto(beer)));
+        entityManager.clear();
+        batch.clear();
     }
 
+    @CacheEvict(cacheNames = "beerCache", key = "#beerId")
+    @Transactional
     @Override
     public Optional<BeerDTO> updateBeerById(UUID beerId, BeerDTO beerDTO) {
+        inventoryService.evict(beerId);
         AtomicReference<Optional<BeerDTO>> atomicReference = new AtomicReference<>();
 
         beerRepository.findById(beerId).ifPresentOrElse(foundBeer -> {
-            foundBeer.setBeerName(beerDTO.getBeerName());
-            foundBeer.setBeerStyle(beerDTO.getBeerStyle());
-            foundBeer.setUpc(beerDTO.getUpc());
-            foundBeer.setPrice(beerDTO.getPrice());
-            foundBeer.setQuantityOnHand(beerDTO.getQuantityOnHand());
-            foundBeer.setVersion(beerDTO.getVersion());
+            updateFields(foundBeer, beerDTO);
             atomicReference
                     .set(Optional.of(beerMapper
                         .beerToBeerDto(beerRepository
-                                .save(foundBeer))));
+                                .saveAndFlush(foundBeer))));
+            beerCountCache.invalidateAll();
         }, () -> atomicReference.set(Optional.empty()));
 
         return atomicReference.get();
     }
 
+    @CacheEvict(cacheNames = "beerCache", key = "#beerId")
+    @Transactional
     @Override
     public boolean deleteById(UUID beerId) {
+        inventoryService.evict(beerId);
 
-        if (beerRepository.existsById(beerId)) {
-            beerRepository.deleteById(beerId);
+        //findById rather than existsById, the lookup can be answered by the second-level cache
+        return beerRepository.findById(beerId).map(beer -> {
+            beerRepository.delete(beer);
+            beerCountCache.invalidateAll();
             return true;
-        }
-        return false;
+        }).orElse(false);
     }
 
+    @CacheEvict(cacheNames = "beerCache", key = "#beerId")
+    @Transactional
     @Override
     public Optional<BeerDTO> patchBeerById(UUID beerId, BeerDTO beerDTO) {
+        inventoryService.evict(beerId);
         AtomicReference<Optional<BeerDTO>> atomicReference = new AtomicReference<>();
 
         beerRepository.findById(beerId).ifPresentOrElse(foundBeer -> {
-            if (StringUtils.hasText(beerDTO.getBeerName())) {
-                foundBeer.setBeerName(beerDTO.getBeerName());
-            }
-            if (beerDTO.getBeerStyle() != null) {
-                foundBeer.setBeerStyle(beerDTO.getBeerStyle());
-            }
-            if (StringUtils.hasText(beerDTO.getUpc())) {
-                foundBeer.setUpc(beerDTO.getUpc());
-            }
-            if (beerDTO.getPrice() != null) {
-                foundBeer.setPrice(beerDTO.getPrice());
-            }
+            patchFields(foundBeer, beerDTO);
             atomicReference
                     .set(Optional.of(beerMapper
                             .beerToBeerDto(beerRepository
-                                    .save(foundBeer))));
+                                    .saveAndFlush(foundBeer))));
+            beerCountCache.invalidateAll();
         }, () -> atomicReference.set(Optional.empty()));
 
         return atomicReference.get();
     }
+
+    @CacheEvict(cacheNames = "beerCache", key = "#beerId")
+    @Transactional
+    @Override
+    public Optional<BeerDTO> updateBeerById(UUID beerId, BeerDTO beerDTO, Integer expectedVersion) {
+        inventoryService.evict(beerId);
+        return beerRepository.findById(beerId).map(foundBeer -> {
+            checkVersion(foundBeer, expectedVersion);
+            updateFields(foundBeer, beerDTO);
+            BeerDTO updatedBeer = beerMapper.beerToBeerDto(beerRepository.saveAndFlush(foundBeer));
+            beerCountCache.invalidateAll();
+            return updatedBeer;
+        });
+    }
+
+    @CacheEvict(cacheNames = "beerCache", key = "#beerId")
+    @Transactional
+    @Override
+    public Optional<BeerDTO> patchBeerById(UUID beerId, BeerDTO beerDTO, Integer expectedVersion) {
+        inventoryService.evict(beerId);
+        return beerRepository.findById(beerId).map(foundBeer -> {
+            checkVersion(foundBeer, expectedVersion);
+            patchFields(foundBeer, beerDTO);
+            BeerDTO patchedBeer = beerMapper.beerToBeerDto(beerRepository.saveAndFlush(foundBeer));
+            beerCountCache.invalidateAll();
+            return patchedBeer;
+        });
+    }
+
+    @Override
+    public Optional<Integer> getBeerVersion(UUID beerId) {
+        return beerRepository.findVersionById(beerId);
+    }
+
+    @CacheEvict(cacheNames = "beerCache", key = "#beerId")
+    @Transactional
+    @Override
+    public boolean allocateInventory(UUID beerId, int quantity) {
+        return inventoryService.reserve(beerId, quantity);
+    }
+
+    //a writer that commits after this check is still caught, by the version check of the flush
+    private void checkVersion(Beer foundBeer, Integer expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(foundBeer.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Beer.class, foundBeer.getId());
+        }
+    }
+
+    private void updateFields(Beer foundBeer, BeerDTO beerDTO) {
+        foundBeer.setBeerName(beerDTO.getBeerName());
+        foundBeer.setBeerStyle(beerDTO.getBeerStyle());
+        foundBeer.setUpc(beerDTO.getUpc());
+        foundBeer.setPrice(beerDTO.getPrice());
+        foundBeer.setQuantityOnHand(beerDTO.getQuantityOnHand());
+    }
+
+    private void patchFields(Beer foundBeer, BeerDTO beerDTO) {
+        if (StringUtils.hasText(beerDTO.getBeerName())) {
+            foundBeer.setBeerName(beerDTO.getBeerName());
+        }
+        if (beerDTO.getBeerStyle() != null) {
+            foundBeer.setBeerStyle(beerDTO.getBeerStyle());
+        }
+        if (StringUtils.hasText(beerDTO.getUpc())) {
+            foundBeer.setUpc(beerDTO.getUpc());
+        }
+        if (beerDTO.getPrice() != null) {
+            foundBeer.setPrice(beerDTO.getPrice());
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package guru.springframework.spring6restmvc.services;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvException;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CSV style names to BeerStyle, read from beer.csv-import.style-table (a "style","beerStyle" CSV)
+ * rather than compiled in. Styles not in the table, and rows without one, get defaultStyle.
+ * The names sit in an open addressing table keyed by String.hashCode.
+ */
+@Component
+public class BeerStyleTable {
+
+    private final String[] names;
+    private final BeerStyle[] styles;
+    private final int mask;
+    private final BeerStyle defaultStyle;
+
+    @Autowired
+    public BeerStyleTable(@Value("${beer.csv-import.style-table:classpath:csvdata/beer-styles.csv}") Resource styleTable,
+                          @Value("${beer.csv-import.default-style:PILSNER}") BeerStyle defaultStyle) {
+        this(read(styleTable), defaultStyle);
+    }
+
+    public BeerStyleTable(Map<String, BeerStyle> styleTable, BeerStyle defaultStyle) {
+        this.defaultStyle = defaultStyle;
+
+        //at most half full, so probe sequences stay short
+        int capacity = Integer.highestOneBit(Math.max(styleTable.size(), 1) * 4 - 1);
+        this.names = new String[capacity];
+        this.styles = new BeerStyle[capacity];
+        this.mask = capacity - 1;
+
+        styleTable.forEach((name, style) -> {
+            int slot = spread(name.hashCode()) & mask;
+            while (names[slot] != null && !names[slot].equals(name)) {
+                slot = (slot + 1) & mask;
+            }
+            names[slot] = name;
+            styles[slot] = style;
+        });
+    }
+
+    public BeerStyle lookup(CharSequence style) {
+        if (style == null || style.isEmpty()) {
+            return defaultStyle;
+        }
+
+        int hash = 0;
+        for (int i = 0; i < style.length(); i++) {
+            hash = 31 * hash + style.charAt(i);
+        }
+
+        for (int slot = spread(hash) & mask; names[slot] != null; slot = (slot + 1) & mask) {
+            if (names[slot].contentEquals(style)) {
+                return styles[slot];
+            }
+        }
+        return defaultStyle;
+    }
+
+    public BeerStyle getDefaultStyle() {
+        return defaultStyle;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static Map<String, BeerStyle> read(Resource styleTable) {
+        try (CSVReader reader = new CSVReader(new InputStreamReader(styleTable.getInputStream(), StandardCharsets.UTF_8))) {
+            List<String[]> rows = reader.readAll();
+            Map<String, BeerStyle> styles = new LinkedHashMap<>();
+
+            //first row is the header
+            for (String[] row : rows.subList(Math.min(1, rows.size()), rows.size())) {
+                if (row.length < 2) {
+                    throw new IllegalStateException("Style table " + styleTable + " has an incomplete row: "
+                            + String.join(",", row));
+                }
+                styles.put(row[0], BeerStyle.valueOf(row[1].trim()));
+            }
+            return styles;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (CsvException e) {
+            throw new IllegalStateException("Style table " + styleTable + " could not be read", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.CategoryDTO;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface CategoryService {
+
+    //all categories by description, served from memory
+    List<CategoryDTO> listCategories();
+
+    Optional<CategoryDTO> getCategoryById(UUID id);
+
+    //category by id or, failing that, by description ignoring case, served from memory
+    Optional<CategoryDTO> findCategory(String idOrDescription);
+
+    //descriptions are unique ignoring case, saving one that is taken fails with a DuplicateKeyException
+    CategoryDTO saveNewCategory(CategoryDTO category);
+
+    Optional<CategoryDTO> updateCategoryById(UUID categoryId, CategoryDTO category);
+
+    boolean deleteById(UUID categoryId);
+}
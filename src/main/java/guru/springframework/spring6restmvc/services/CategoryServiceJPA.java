@@ -0,0 +1,173 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.entities.Category;
+import guru.springframework.spring6restmvc.mappers.CategoryMapper;
+import guru.springframework.spring6restmvc.model.CategoryDTO;
+import guru.springframework.spring6restmvc.repositories.CategoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Categories are few and rarely change, so the whole set is held in memory and reads (including
+ * resolving the category of a beer listing) never go to the database. Writes through this service
+ * drop the set once they commit and the next read loads it again; changes made elsewhere, e.g. by
+ * another instance, show up once the set is older than category.cache.ttl.
+ */
+@Service
+public class CategoryServiceJPA implements CategoryService {
+
+    private record CategorySet(List<CategoryDTO> all, Map<UUID, CategoryDTO> byId,
+                               Map<String, CategoryDTO> byDescription, long expiresAt) {}
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryMapper categoryMapper;
+    private final long ttlNanos;
+
+    private final AtomicReference<CategorySet> categories = new AtomicReference<>();
+
+    //bumped on every invalidation, so a set loaded before a write is never kept after it
+    private final AtomicLong generation = new AtomicLong();
+
+    public CategoryServiceJPA(CategoryRepository categoryRepository, CategoryMapper categoryMapper,
+                              @Value("${category.cache.ttl:5m}") Duration ttl) {
+        this.categoryRepository = categoryRepository;
+        this.categoryMapper = categoryMapper;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public List<CategoryDTO> listCategories() {
+        return categorySet().all();
+    }
+
+    @Override
+    public Optional<CategoryDTO> getCategoryById(UUID id) {
+        return Optional.ofNullable(categorySet().byId().get(id));
+    }
+
+    @Override
+    public Optional<CategoryDTO> findCategory(String idOrDescription) {
+        if (idOrDescription == null) {
+            return Optional.empty();
+        }
+
+        CategorySet current = categorySet();
+        try {
+            CategoryDTO byId = current.byId().get(UUID.fromString(idOrDescription));
+            if (byId != null) {
+                return Optional.of(byId);
+            }
+        } catch (IllegalArgumentException e) {
+            //not an id, try the description
+        }
+        return Optional.ofNullable(current.byDescription().get(idOrDescription.trim().toLowerCase()));
+    }
+
+    @Transactional
+    @Override
+    public CategoryDTO saveNewCategory(CategoryDTO category) {
+        if (categoryRepository.existsByDescriptionIgnoreCase(category.getDescription())) {
+            throw duplicateDescription(category);
+        }
+        Category saved = categoryRepository.saveAndFlush(categoryMapper.categoryDtoToCategory(category));
+        invalidateAfterCommit();
+
+        return categoryMapper.categoryToCategoryDto(saved);
+    }
+
+    @Transactional
+    @Override
+    public Optional<CategoryDTO> updateCategoryById(UUID categoryId, CategoryDTO category) {
+        if (categoryRepository.existsByDescriptionIgnoreCaseAndIdNot(category.getDescription(), categoryId)) {
+            throw duplicateDescription(category);
+        }
+        return categoryRepository.findById(categoryId).map(found -> {
+            found.setDescription(category.getDescription());
+            invalidateAfterCommit();
+
+            return categoryMapper.categoryToCategoryDto(categoryRepository.saveAndFlush(found));
+        });
+    }
+
+    //unlinks the category from its beers first, beer_category references it
+    @Transactional
+    @Override
+    public boolean deleteById(UUID categoryId) {
+        return categoryRepository.findById(categoryId).map(found -> {
+            found.getBeers().forEach(beer -> beer.getCategories().remove(found));
+            categoryRepository.delete(found);
+            invalidateAfterCommit();
+
+            return true;
+        }).orElse(false);
+    }
+
+    private CategorySet categorySet() {
+        long now = System.nanoTime();
+        CategorySet current = categories.get();
+        if (current != null && current.expiresAt() - now > 0) {
+            return current;
+        }
+
+        long loadedGeneration = generation.get();
+        CategorySet loaded = load(now);
+
+        if (categories.compareAndSet(current, loaded) && generation.get() != loadedGeneration) {
+            categories.compareAndSet(loaded, null);
+        }
+        return loaded;
+    }
+
+    private CategorySet load(long now) {
+        List<CategoryDTO> all = categoryRepository.findAll(Sort.by("description")).stream()
+                .map(categoryMapper::categoryToCategoryDto)
+                .toList();
+
+        //descriptions are unique, a duplicate can only be left over from before category_description_uidx
+        return new CategorySet(all,
+                all.stream().collect(Collectors.toUnmodifiableMap(CategoryDTO::getId, Function.identity())),
+                all.stream().filter(category -> category.getDescription() != null)
+                        .collect(Collectors.toMap(category -> category.getDescription().toLowerCase(),
+                                Function.identity(), (first, duplicate) -> first, LinkedHashMap::new)),
+                now + ttlNanos);
+    }
+
+    private static DuplicateKeyException duplicateDescription(CategoryDTO category) {
+        return new DuplicateKeyException("Category " + category.getDescription() + " already exists");
+    }
+
+    //a rolled back write leaves the set as it was, other transactions never see an uncommitted category
+    private void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    void invalidate() {
+        generation.incrementAndGet();
+        categories.set(null);
+    }
+}
@@ -2,22 +2,43 @@ package guru.springframework.spring6restmvc.services;
 
 
 import guru.springframework.spring6restmvc.model.CustomerDTO;
+import guru.springframework.spring6restmvc.model.CustomerWithOrdersDTO;
+import org.springframework.data.domain.Page;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface CustomerService {
 
     List<CustomerDTO> listCustomer();
 
+    Page<CustomerDTO> listCustomers(Integer pageNumber, Integer pageSize);
+
+    //customers with their orders, lines and line beers, in a fixed number of queries whatever the page size
+    Page<CustomerWithOrdersDTO> listCustomersWithOrders(Integer pageNumber, Integer pageSize);
+
+    //hands every customer to action in turn without holding them all in memory
+    void forEachCustomer(Consumer<CustomerDTO> action);
+
     Optional<CustomerDTO> getCustomerById(UUID id);
 
     CustomerDTO saveNewCustomer(CustomerDTO customer);
 
+    List<CustomerDTO> saveNewCustomers(List<CustomerDTO> customers);
+
     Optional<CustomerDTO> updateExistingCustomerById(UUID id, CustomerDTO customer);
 
     boolean deleteById(UUID customerId);
 
     Optional<CustomerDTO> patchCustomerById(UUID customerId, CustomerDTO customer);
+
+    //expectedVersion variants fail with an OptimisticLockingFailureException when the customer has moved on,
+    //a null expectedVersion skips the check
+    Optional<CustomerDTO> updateExistingCustomerById(UUID id, CustomerDTO customer, Integer expectedVersion);
+
+    Optional<CustomerDTO> patchCustomerById(UUID customerId, CustomerDTO customer, Integer expectedVersion);
+
+    Optional<Integer> getCustomerVersion(UUID customerId);
 }
@@ -1,98 +1,199 @@
 package guru.springframework.spring6restmvc.services;
 
+import guru.springframework.spring6restmvc.entities.TimeOrderedUuidGenerator;
 import guru.springframework.spring6restmvc.model.CustomerDTO;
+import guru.springframework.spring6restmvc.model.CustomerWithOrdersDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory CustomerService that pages and versions customers the way CustomerServiceJPA does.
+ * Like BeerServiceImpl it stores snapshots that are replaced, never changed, through
+ * ConcurrentHashMap.compute, and hands out copies.
+ */
 @Service
 public class CustomerServiceImpl implements CustomerService {
 
-    private Map<UUID, CustomerDTO> customerMap;
+    private final static int DEFAULT_PAGE = 0;
+    private final static int DEFAULT_PAGE_SIZE = 25;
+
+    //customerName (nulls first, as the database sorts them) then id
+    private static final Comparator<CustomerDTO> CUSTOMER_ORDER = Comparator
+            .comparing(CustomerDTO::getCustomerName, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(CustomerDTO::getId, (first, second) -> {
+                int byHigh = Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits());
+                return byHigh != 0 ? byHigh
+                        : Long.compareUnsigned(first.getLeastSignificantBits(), second.getLeastSignificantBits());
+            });
+
+    private final Map<UUID, CustomerDTO> customerMap = new ConcurrentHashMap<>();
 
     public CustomerServiceImpl () {
-        this.customerMap = new HashMap<>();
-
-        CustomerDTO customer1 = CustomerDTO.builder()
-                .id(UUID.randomUUID())
-                .version(1)
-                .customerName("Andrea Monizza")
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build();
+        this(List.of(
+                CustomerDTO.builder().customerName("Andrea Monizza").build(),
+                CustomerDTO.builder().customerName("Fede Ricco").build(),
+                CustomerDTO.builder().customerName("John Thompson").build()));
+    }
 
-        CustomerDTO customer2 = CustomerDTO.builder()
-                .id(UUID.randomUUID())
-                .version(1)
-                .customerName("Fede Ricco")
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build();
+    CustomerServiceImpl(List<CustomerDTO> customers) {
+        saveNewCustomers(customers);
+    }
 
-        CustomerDTO customer3 = CustomerDTO.builder()
-                .id(UUID.randomUUID())
-                .version(1)
-                .customerName("John Thompson")
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build();
+    public PageRequest buildPageRequest(Integer pageNumber, Integer pageSize) {
+        int queryPageNumber = pageNumber != null && pageNumber > 0 ? pageNumber - 1 : DEFAULT_PAGE;
+        int queryPageSize = pageSize == null ? DEFAULT_PAGE_SIZE : Math.min(pageSize, 1000);
 
-        customerMap.put(customer1.getId(), customer1);
-        customerMap.put(customer2.getId(), customer2);
-        customerMap.put(customer3.getId(), customer3);
+        return PageRequest.of(queryPageNumber, queryPageSize, Sort.by(Sort.Order.asc("customerName")));
     }
+
     @Override
     public List<CustomerDTO> listCustomer() {
-        return new ArrayList<>(customerMap.values());
+        return customerMap.values().stream()
+                .map(CustomerServiceImpl::copy)
+                .toList();
+    }
+
+    @Override
+    public Page<CustomerDTO> listCustomers(Integer pageNumber, Integer pageSize) {
+        PageRequest pageRequest = buildPageRequest(pageNumber, pageSize);
+        List<CustomerDTO> customers = sortedCustomers();
+
+        return new PageImpl<>(page(customers, pageRequest), pageRequest, customers.size());
+    }
+
+    @Override
+    public Page<CustomerWithOrdersDTO> listCustomersWithOrders(Integer pageNumber, Integer pageSize) {
+        PageRequest pageRequest = buildPageRequest(pageNumber, pageSize);
+        List<CustomerDTO> customers = sortedCustomers();
+
+        return new PageImpl<>(page(customers, pageRequest).stream()
+                .map(customer -> CustomerWithOrdersDTO.builder().customer(customer).beerOrders(Set.of()).build())
+                .toList(), pageRequest, customers.size());
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<CustomerDTO> action) {
+        customerMap.values().stream()
+                .map(CustomerServiceImpl::copy)
+                .forEach(action);
     }
 
     @Override
     public Optional<CustomerDTO> getCustomerById(UUID id) {
-        return Optional.ofNullable(customerMap.get(id));
+        return Optional.ofNullable(customerMap.get(id)).map(CustomerServiceImpl::copy);
     }
 
     @Override
     public CustomerDTO saveNewCustomer(CustomerDTO customer) {
+        LocalDateTime now = LocalDateTime.now();
+
         CustomerDTO savedCustomer = CustomerDTO.builder()
-                .id(UUID.randomUUID())
-                .version(1)
+                .id(TimeOrderedUuidGenerator.nextUuid())
+                .version(0)
                 .customerName(customer.getCustomerName())
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
+                .email(customer.getEmail())
+                .createdDate(now)
+                .lastModifiedDate(now)
                 .build();
-        customerMap.put(savedCustomer.getId(),savedCustomer);
+        customerMap.put(savedCustomer.getId(), savedCustomer);
 
-        return savedCustomer;
+        return copy(savedCustomer);
     }
 
     @Override
-    public Optional<CustomerDTO> updateExistingCustomerById(UUID id, CustomerDTO customer) {
-
-        CustomerDTO existingCustomer = customerMap.get(id);
-        existingCustomer.setCustomerName(customer.getCustomerName());
-        existingCustomer.setLastModifiedDate(LocalDateTime.now());
+    public List<CustomerDTO> saveNewCustomers(List<CustomerDTO> customers) {
+        return customers.stream()
+                .map(this::saveNewCustomer)
+                .toList();
+    }
 
-        return Optional.of(existingCustomer);
+    @Override
+    public Optional<CustomerDTO> updateExistingCustomerById(UUID id, CustomerDTO customer) {
+        return change(id, null, existingCustomer -> existingCustomer.setCustomerName(customer.getCustomerName()));
     }
 
     @Override
     public boolean deleteById(UUID customerId) {
-        customerMap.remove(customerId);
-        return true;
+        return customerMap.remove(customerId) != null;
     }
 
     @Override
     public Optional<CustomerDTO> patchCustomerById(UUID customerId, CustomerDTO customer) {
+        return change(customerId, null, existingCustomer -> patchFields(existingCustomer, customer));
+    }
+
+    @Override
+    public Optional<CustomerDTO> updateExistingCustomerById(UUID id, CustomerDTO customer, Integer expectedVersion) {
+        return change(id, expectedVersion,
+                existingCustomer -> existingCustomer.setCustomerName(customer.getCustomerName()));
+    }
+
+    @Override
+    public Optional<CustomerDTO> patchCustomerById(UUID customerId, CustomerDTO customer, Integer expectedVersion) {
+        return change(customerId, expectedVersion, existingCustomer -> patchFields(existingCustomer, customer));
+    }
 
-        CustomerDTO existingCustomer = customerMap.get(customerId);
+    @Override
+    public Optional<Integer> getCustomerVersion(UUID customerId) {
+        return Optional.ofNullable(customerMap.get(customerId)).map(CustomerDTO::getVersion);
+    }
 
+    //same rules as BeerServiceImpl.change: a new version only when something changed
+    private Optional<CustomerDTO> change(UUID customerId, Integer expectedVersion, Consumer<CustomerDTO> fields) {
+        CustomerDTO changed = customerMap.computeIfPresent(customerId, (id, current) -> {
+            checkVersion(current, expectedVersion);
+
+            CustomerDTO next = current.toBuilder().build();
+            fields.accept(next);
+            if (next.equals(current)) {
+                return current;
+            }
+            next.setVersion(current.getVersion() + 1);
+            next.setLastModifiedDate(LocalDateTime.now());
+            return next;
+        });
+
+        return Optional.ofNullable(changed).map(CustomerServiceImpl::copy);
+    }
+
+    private List<CustomerDTO> sortedCustomers() {
+        return customerMap.values().stream()
+                .sorted(CUSTOMER_ORDER)
+                .toList();
+    }
+
+    private static List<CustomerDTO> page(List<CustomerDTO> customers, PageRequest pageRequest) {
+        int from = (int) Math.min(pageRequest.getOffset(), customers.size());
+        int to = Math.min(from + pageRequest.getPageSize(), customers.size());
+
+        return customers.subList(from, to).stream()
+                .map(CustomerServiceImpl::copy)
+                .toList();
+    }
+
+    private static CustomerDTO copy(CustomerDTO customer) {
+        return customer.toBuilder().build();
+    }
+
+    private void patchFields(CustomerDTO existingCustomer, CustomerDTO customer) {
         if (StringUtils.hasText(customer.getCustomerName())) {
             existingCustomer.setCustomerName(customer.getCustomerName());
         }
-        existingCustomer.setLastModifiedDate(LocalDateTime.now());
+    }
 
-        return Optional.of(existingCustomer);
+    private void checkVersion(CustomerDTO customer, Integer expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(customer.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(CustomerDTO.class, customer.getId());
+        }
     }
 }
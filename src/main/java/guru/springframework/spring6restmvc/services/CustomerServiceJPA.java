@@ -1,18 +1,36 @@
 package guru.springframework.spring6restmvc.services;
 
+import guru.springframework.spring6restmvc.entities.Customer;
+import guru.springframework.spring6restmvc.mappers.BeerOrderMapper;
 import guru.springframework.spring6restmvc.mappers.CustomerMapper;
 import guru.springframework.spring6restmvc.model.CustomerDTO;
+import guru.springframework.spring6restmvc.model.CustomerWithOrdersDTO;
 import guru.springframework.spring6restmvc.repositories.CustomerRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Primary
@@ -20,6 +38,14 @@ import java.util.stream.Collectors;
 public class CustomerServiceJPA implements CustomerService {
     private final CustomerRepository customerRepository;
     private final CustomerMapper customerMapper;
+    private final BeerOrderMapper beerOrderMapper;
+    private final EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
+
+    private final static int DEFAULT_PAGE = 0;
+    private final static int DEFAULT_PAGE_SIZE = 25;
 
 
     @Override
@@ -30,6 +56,59 @@ public class CustomerServiceJPA implements CustomerService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public Page<CustomerDTO> listCustomers(Integer pageNumber, Integer pageSize) {
+        return customerRepository.findAll(buildPageRequest(pageNumber, pageSize))
+                .map(customerMapper::customerToCustomerDto);
+    }
+
+    //one query for the page of ids (plus the count), one for the customers with everything under their orders
+    @Transactional(readOnly = true)
+    @Override
+    public Page<CustomerWithOrdersDTO> listCustomersWithOrders(Integer pageNumber, Integer pageSize) {
+        Page<UUID> ids = customerRepository.findIdsBy(buildPageRequest(pageNumber, pageSize));
+
+        Map<UUID, Customer> customers = customerRepository.findWithOrdersByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+
+        return new PageImpl<>(ids.getContent().stream()
+                .map(customers::get)
+                .map(beerOrderMapper::customerToCustomerWithOrdersDto)
+                .toList(), ids.getPageable(), ids.getTotalElements());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void forEachCustomer(Consumer<CustomerDTO> action) {
+        try (Stream<Customer> customers = customerRepository.streamAllBy()) {
+            customers.forEach(customer -> {
+                action.accept(customerMapper.customerToCustomerDto(customer));
+                //keep the persistence context from growing with the table
+                entityManager.detach(customer);
+            });
+        }
+    }
+
+    public PageRequest buildPageRequest(Integer pageNumber, Integer pageSize) {
+        int queryPageNumber;
+        int queryPageSize;
+
+        if (pageNumber != null && pageNumber > 0) {
+            queryPageNumber = pageNumber - 1;
+        } else {
+            queryPageNumber = DEFAULT_PAGE;
+        }
+
+        if (pageSize == null) {
+            queryPageSize = DEFAULT_PAGE_SIZE;
+        } else {
+            queryPageSize = Math.min(pageSize, 1000);
+        }
+
+        return PageRequest.of(queryPageNumber, queryPageSize, Sort.by(Sort.Order.asc("customerName")));
+    }
+
+    @Cacheable(cacheNames = "customerCache", key = "#id", unless = "#result == null")
     @Override
     public Optional<CustomerDTO> getCustomerById(UUID id) {
         return Optional.ofNullable(customerMapper.customerToCustomerDto(customerRepository.findById(id)
@@ -41,6 +120,40 @@ public class CustomerServiceJPA implements CustomerService {
         return customerMapper.customerToCustomerDto(customerRepository.save(customerMapper.customerDtoToCustomer(customerDTO)));
     }
 
+    /**
+     * Same batching as BeerServiceJPA.saveNewBeers: flush and clear every jdbcBatchSize rows.
+     */
+    @Transactional
+    @Override
+    public List<CustomerDTO> saveNewCustomers(List<CustomerDTO> customerDTOs) {
+        List<CustomerDTO> savedCustomers = new ArrayList<>(customerDTOs.size());
+        List<Customer> batch = new ArrayList<>(jdbcBatchSize);
+
+        for (CustomerDTO customerDTO : customerDTOs) {
+            Customer customer = customerMapper.customerDtoToCustomer(customerDTO);
+            //new rows only: a client supplied id or version would make persist see a detached entity
+            customer.setId(null);
+            customer.setVersion(null);
+            entityManager.persist(customer);
+            batch.add(customer);
+
+            if (batch.size() == jdbcBatchSize) {
+                flushBatch(batch, savedCustomers);
+            }
+        }
+        flushBatch(batch, savedCustomers);
+
+        return savedCustomers;
+    }
+
+    private void flushBatch(List<Customer> batch, List<CustomerDTO> savedCustomers) {
+        entityManager.flush();
+        batch.forEach(customer -> savedCustomers.add(customerMapper.customerToCustomerDto(customer)));
+        entityManager.clear();
+        batch.clear();
+    }
+
+    @CacheEvict(cacheNames = "customerCache", key = "#customerId")
     @Override
     public Optional<CustomerDTO> updateExistingCustomerById(UUID customerId, CustomerDTO customerDTO) {
         AtomicReference<Optional<CustomerDTO>> atomicReference = new AtomicReference<>();
@@ -56,15 +169,16 @@ public class CustomerServiceJPA implements CustomerService {
         return atomicReference.get();
     }
 
+    @CacheEvict(cacheNames = "customerCache", key = "#customerId")
     @Override
     public boolean deleteById(UUID customerId) {
-        if (customerRepository.existsById(customerId)) {
-            customerRepository.deleteById(customerId);
+        return customerRepository.findById(customerId).map(customer -> {
+            customerRepository.delete(customer);
             return true;
-        }
-        return false;
+        }).orElse(false);
     }
 
+    @CacheEvict(cacheNames = "customerCache", key = "#customerId")
     @Override
     public Optional<CustomerDTO> patchCustomerById(UUID customerId, CustomerDTO customerDTO) {
         AtomicReference<Optional<CustomerDTO>> atomicReference = new AtomicReference<>();
@@ -81,4 +195,40 @@ public class CustomerServiceJPA implements CustomerService {
 
         return atomicReference.get();
     }
+
+    @CacheEvict(cacheNames = "customerCache", key = "#customerId")
+    @Transactional
+    @Override
+    public Optional<CustomerDTO> updateExistingCustomerById(UUID customerId, CustomerDTO customerDTO,
+                                                            Integer expectedVersion) {
+        return customerRepository.findById(customerId).map(foundCustomer -> {
+            checkVersion(foundCustomer, expectedVersion);
+            foundCustomer.setCustomerName(customerDTO.getCustomerName());
+            return customerMapper.customerToCustomerDto(customerRepository.saveAndFlush(foundCustomer));
+        });
+    }
+
+    @CacheEvict(cacheNames = "customerCache", key = "#customerId")
+    @Transactional
+    @Override
+    public Optional<CustomerDTO> patchCustomerById(UUID customerId, CustomerDTO customerDTO, Integer expectedVersion) {
+        return customerRepository.findById(customerId).map(foundCustomer -> {
+            checkVersion(foundCustomer, expectedVersion);
+            if (StringUtils.hasText(customerDTO.getCustomerName())){
+                foundCustomer.setCustomerName(customerDTO.getCustomerName());
+            }
+            return customerMapper.customerToCustomerDto(customerRepository.saveAndFlush(foundCustomer));
+        });
+    }
+
+    @Override
+    public Optional<Integer> getCustomerVersion(UUID customerId) {
+        return customerRepository.findVersionById(customerId);
+    }
+
+    private void checkVersion(Customer foundCustomer, Integer expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(foundCustomer.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Customer.class, foundCustomer.getId());
+        }
+    }
 }
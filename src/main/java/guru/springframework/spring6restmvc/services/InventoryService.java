@@ -0,0 +1,21 @@
+package guru.springframework.spring6restmvc.services;
+
+import java.util.UUID;
+
+/**
+ * Stock reservations against Beer.quantityOnHand. Only BeerServiceJPA should talk to it, so quantity
+ * writes that bypass it (PUT, PATCH, DELETE of a beer, CSV upserts of known UPCs) evict the beer first.
+ */
+public interface InventoryService {
+
+    //takes quantity off the beer's available stock when at least that much is left, false otherwise.
+    //Undone when the surrounding transaction rolls back
+    boolean reserve(UUID beerId, int quantity);
+
+    //puts a reserved quantity back
+    void release(UUID beerId, int quantity);
+
+    //writes out and forgets anything held for the beer, before its quantity on hand is written directly.
+    //Inside a transaction the write is part of it
+    void evict(UUID beerId);
+}
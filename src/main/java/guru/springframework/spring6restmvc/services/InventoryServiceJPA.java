@@ -0,0 +1,36 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+/**
+ * Every reservation is one conditional UPDATE on the beer row, the default.
+ */
+@Service
+@ConditionalOnProperty(name = "beer.inventory.write-behind.enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+public class InventoryServiceJPA implements InventoryService {
+
+    private final BeerRepository beerRepository;
+
+    @Transactional
+    @Override
+    public boolean reserve(UUID beerId, int quantity) {
+        return beerRepository.allocateStock(beerId, quantity) == 1;
+    }
+
+    @Transactional
+    @Override
+    public void release(UUID beerId, int quantity) {
+        beerRepository.releaseStock(beerId, quantity);
+    }
+
+    @Override
+    public void evict(UUID beerId) {
+    }
+}
@@ -0,0 +1,409 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reservations against in-memory counters, for promotions where thousands of requests hit the same
+ * few beers. Each beer's counter is loaded from quantity_on_hand on first use (which is also all the
+ * recovery a restart needs) and changed with a CAS, so reservations never block or touch the
+ * database. The summed changes are written back as relative updates in one JDBC batch per flush
+ * interval, and once more on shutdown; changes reserved after the last flush are lost on a crash.
+ * <p>
+ * Changes made inside a transaction are undone on the counters when it rolls back, like the
+ * conditional UPDATE of InventoryServiceJPA would be. An eviction inside a transaction writes the
+ * pending change in that transaction and holds the beer until it ends: other threads wait for it
+ * instead of loading a counter the transaction's own quantity write is about to change.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "beer.inventory.write-behind.enabled", havingValue = "true")
+public class InventoryServiceWriteBehind implements InventoryService {
+
+    static final String UPDATE_QUANTITY = "update beer set quantity_on_hand = coalesce(quantity_on_hand, 0) + ?, " +
+            "version = version + 1, update_date = ? where id = ?";
+
+    //marks a counter that was taken out of the map, whoever still holds it goes back to the map
+    private static final int RETIRED = Integer.MIN_VALUE;
+
+    private final Map<UUID, StockCounter> counters = new ConcurrentHashMap<>();
+    //beers being evicted, loads of a new counter wait for the eviction to finish
+    private final Map<UUID, Eviction> evictions = new ConcurrentHashMap<>();
+    //bumped by every eviction, a counter loaded while it changed may have missed a write
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final BeerRepository beerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final int batchSize;
+
+    public InventoryServiceWriteBehind(BeerRepository beerRepository,
+                                       JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       ObjectProvider<CacheManager> cacheManager,
+                                       EntityManagerFactory entityManagerFactory,
+                                       @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.beerRepository = beerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.batchSize = batchSize;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Available stock and the change not yet written to quantity_on_hand, packed into one long so a
+     * reservation moves both in a single CAS and a flush can take the pending change without a lock.
+     */
+    static final class StockCounter {
+
+        final AtomicLong state;
+
+        StockCounter(int available) {
+            this(available, 0);
+        }
+
+        StockCounter(int available, int pending) {
+            state = new AtomicLong(pack(available, pending));
+        }
+
+        static long pack(int available, int pending) {
+            return ((long) available << 32) | (pending & 0xFFFFFFFFL);
+        }
+
+        static int available(long state) {
+            return (int) (state >> 32);
+        }
+
+        static int pending(long state) {
+            return (int) state;
+        }
+    }
+
+    //the thread evicting a beer and what the others wait on
+    private record Eviction(Thread owner, CompletableFuture<Void> done) {
+    }
+
+    @Override
+    public boolean reserve(UUID beerId, int quantity) {
+        return apply(beerId, -quantity);
+    }
+
+    @Override
+    public void release(UUID beerId, int quantity) {
+        apply(beerId, quantity);
+    }
+
+    private boolean apply(UUID beerId, int change) {
+        while (true) {
+            StockCounter counter = counters.get(beerId);
+            if (counter == null) {
+                long seenEvictions = evictionCount.get();
+
+                Eviction eviction = evictions.get(beerId);
+                if (eviction != null) {
+                    if (eviction.owner() == Thread.currentThread()) {
+                        return applyToRow(beerId, change);
+                    }
+                    eviction.done().join();
+                    continue;
+                }
+
+                //the query runs outside any map lock, the counter only goes in if no eviction ran meanwhile
+                StockCounter loaded = loadCounter(beerId);
+                if (loaded == null) {
+                    return false;
+                }
+                counter = counters.compute(beerId, (id, existing) -> existing != null ? existing
+                        : evictionCount.get() == seenEvictions ? loaded : null);
+                if (counter == null) {
+                    continue;
+                }
+            }
+
+            Boolean applied = applyToCounter(counter, change);
+            if (applied != null) {
+                if (applied) {
+                    trackInTransaction(beerId, change);
+                }
+                return applied;
+            }
+        }
+    }
+
+    //null when the counter was retired and the map has to be read again
+    private static Boolean applyToCounter(StockCounter counter, int change) {
+        while (true) {
+            long state = counter.state.get();
+            int available = StockCounter.available(state);
+
+            if (available == RETIRED) {
+                return null;
+            } else if (available + change < 0) {
+                return false;
+            } else if (counter.state.compareAndSet(state,
+                    StockCounter.pack(available + change, StockCounter.pending(state) + change))) {
+                return true;
+            }
+        }
+    }
+
+    //this thread's open transaction has written the beer's pending change, so until it ends the row is the stock
+    private boolean applyToRow(UUID beerId, int change) {
+        if (change < 0) {
+            return beerRepository.allocateStock(beerId, -change) == 1;
+        }
+        beerRepository.releaseStock(beerId, change);
+        return true;
+    }
+
+    //null for unknown beers, so nothing is cached for them
+    private StockCounter loadCounter(UUID beerId) {
+        return beerRepository.findQuantityOnHandById(beerId).map(StockCounter::new).orElse(null);
+    }
+
+    /**
+     * Takes the beer's counter out and writes its pending change. Inside a transaction the write joins
+     * it and the beer stays held until it completes, a rollback puts the counter back as it was.
+     * Without one the write gets its own transaction. If the beer is already being evicted, that
+     * eviction writes the change and this one returns right away.
+     */
+    @Override
+    public void evict(UUID beerId) {
+        Eviction eviction = new Eviction(Thread.currentThread(), new CompletableFuture<>());
+        if (evictions.putIfAbsent(beerId, eviction) != null) {
+            return;
+        }
+
+        evictionCount.incrementAndGet();
+        StockCounter counter = counters.remove(beerId);
+        long state = counter == null ? StockCounter.pack(0, 0) : counter.state.getAndSet(StockCounter.pack(RETIRED, 0));
+        List<PendingChange> changes = StockCounter.pending(state) == 0 ? List.of()
+                : List.of(new PendingChange(beerId, StockCounter.pending(state)));
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionChanges().evicted.add(new EvictedBeer(beerId, eviction, counter == null ? null : state));
+            if (!changes.isEmpty()) {
+                write(changes);
+            }
+            return;
+        }
+
+        try {
+            if (!changes.isEmpty()) {
+                writeTransaction.executeWithoutResult(status -> write(changes));
+                evictCaches(List.of(beerId));
+            }
+        } catch (RuntimeException e) {
+            log.error("Inventory change of " + StockCounter.pending(state) + " for beer " + beerId
+                    + " could not be written", e);
+            restoreCounter(beerId, state);
+            throw e;
+        } finally {
+            finishEviction(beerId, eviction);
+        }
+    }
+
+    /**
+     * Writes the pending changes of every counter in one transaction. On failure the changes are put
+     * back on their counters and go out with the next flush.
+     *
+     * @return the number of beers written
+     */
+    @Scheduled(fixedDelayString = "${beer.inventory.write-behind.flush-interval:1s}")
+    public int flush() {
+        List<PendingChange> changes = new ArrayList<>();
+
+        counters.forEach((beerId, counter) -> {
+            int pending = takePending(counter);
+            if (pending != 0) {
+                changes.add(new PendingChange(beerId, pending));
+            }
+        });
+
+        if (changes.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            writeTransaction.executeWithoutResult(status -> write(changes));
+        } catch (RuntimeException e) {
+            log.warn("Inventory flush of " + changes.size() + " beers failed, retrying with the next flush", e);
+            changes.forEach(change -> restorePending(change.beerId(), change.quantity()));
+            return 0;
+        }
+
+        evictCaches(changes.stream().map(PendingChange::beerId).toList());
+        return changes.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private int takePending(StockCounter counter) {
+        while (true) {
+            long state = counter.state.get();
+            int available = StockCounter.available(state);
+            int pending = StockCounter.pending(state);
+
+            if (available == RETIRED || pending == 0) {
+                return 0;
+            }
+            if (counter.state.compareAndSet(state, StockCounter.pack(available, 0))) {
+                return pending;
+            }
+        }
+    }
+
+    private void restorePending(UUID beerId, int quantity) {
+        StockCounter counter = counters.get(beerId);
+
+        while (counter != null) {
+            long state = counter.state.get();
+            if (StockCounter.available(state) == RETIRED) {
+                break;
+            }
+            if (counter.state.compareAndSet(state,
+                    StockCounter.pack(StockCounter.available(state), StockCounter.pending(state) + quantity))) {
+                return;
+            }
+        }
+        log.error("Inventory change of " + quantity + " for beer " + beerId + " could not be written");
+    }
+
+    //while the eviction is registered no other counter can be loaded for the beer
+    private void restoreCounter(UUID beerId, long state) {
+        if (counters.putIfAbsent(beerId,
+                new StockCounter(StockCounter.available(state), StockCounter.pending(state))) != null) {
+            log.error("Inventory counter for beer " + beerId + " was reloaded during its eviction");
+        }
+    }
+
+    private void finishEviction(UUID beerId, Eviction eviction) {
+        evictions.remove(beerId, eviction);
+        eviction.done().complete(null);
+    }
+
+    //runs in the caller's transaction when there is one
+    private void write(List<PendingChange> changes) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate(UPDATE_QUANTITY, changes, batchSize, (ps, change) -> {
+            ps.setInt(1, change.quantity());
+            ps.setTimestamp(2, now);
+            ps.setBytes(3, UuidBytes.toBytes(change.beerId()));
+        });
+
+        //a Hibernate read later in the same transaction must not be answered from the second-level cache
+        org.hibernate.Cache secondLevelCache = entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class);
+        changes.forEach(change -> secondLevelCache.evictEntityData(Beer.class, change.beerId()));
+    }
+
+    //the batch bypasses Hibernate, so its second-level and query caches are told directly
+    private void evictCaches(List<UUID> beerIds) {
+        org.hibernate.Cache secondLevelCache = entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class);
+        beerIds.forEach(beerId -> secondLevelCache.evictEntityData(Beer.class, beerId));
+        secondLevelCache.evictQueryRegions();
+
+        CacheManager manager = cacheManager.getIfAvailable();
+        Cache beerCache = manager == null ? null : manager.getCache("beerCache");
+        if (beerCache != null) {
+            beerIds.forEach(beerCache::evict);
+        }
+    }
+
+    private void trackInTransaction(UUID beerId, int change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionChanges().applied.merge(beerId, change, Integer::sum);
+        }
+    }
+
+    private TransactionChanges transactionChanges() {
+        TransactionChanges changes = (TransactionChanges) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new TransactionChanges();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        return changes;
+    }
+
+    //available stock as the counters see it, null when the beer isn't loaded
+    Integer availableStock(UUID beerId) {
+        StockCounter counter = counters.get(beerId);
+        return counter == null ? null : StockCounter.available(counter.state.get());
+    }
+
+    private record PendingChange(UUID beerId, int quantity) {
+    }
+
+    //state is null when there was no counter to take out
+    private record EvictedBeer(UUID beerId, Eviction eviction, Long state) {
+    }
+
+    /**
+     * What one transaction did to the counters. Evicted beers are settled first, so that undoing a
+     * rolled back reservation finds its counter again.
+     */
+    private final class TransactionChanges implements TransactionSynchronization {
+
+        private final Map<UUID, Integer> applied = new HashMap<>();
+        private final List<EvictedBeer> evicted = new ArrayList<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(InventoryServiceWriteBehind.this);
+
+            evicted.forEach(beer -> {
+                if (status == STATUS_ROLLED_BACK && beer.state() != null) {
+                    restoreCounter(beer.beerId(), beer.state());
+                }
+                finishEviction(beer.beerId(), beer.eviction());
+            });
+            if (status == STATUS_COMMITTED) {
+                evictCaches(evicted.stream().map(EvictedBeer::beerId).toList());
+            }
+
+            //an unknown outcome keeps the stock taken, it can't be oversold that way
+            if (status == STATUS_ROLLED_BACK) {
+                applied.forEach((beerId, change) -> {
+                    if (change != 0 && !apply(beerId, -change)) {
+                        log.warn("Rolled back release of " + change + " for beer " + beerId + " could not be taken back");
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package guru.springframework.spring6restmvc.services;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+//same layout Hibernate binds for UUID ids in binary(16) columns, for services writing over plain JDBC
+final class UuidBytes {
+
+    private UuidBytes() {
+    }
+
+    static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
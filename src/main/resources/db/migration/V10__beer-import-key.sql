@@ -0,0 +1,10 @@
+-- UPC keyed imports: the beer each supplier UPC was imported as and a hash of its last imported row,
+-- so a re-import only writes the rows that changed. Deleting a beer drops its key with it.
+CREATE TABLE beer_import_key (
+    upc          varchar(255) NOT NULL,
+    beer_id      binary(16)   NOT NULL,
+    content_hash binary(32)   NOT NULL,
+    update_date  datetime(6),
+    PRIMARY KEY (upc),
+    CONSTRAINT bik_beer_fk FOREIGN KEY (beer_id) REFERENCES beer (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
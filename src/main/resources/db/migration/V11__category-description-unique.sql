@@ -0,0 +1,3 @@
+-- one category per description: the column's default collation compares ignoring case, as the
+-- description lookup of CategoryServiceJPA does
+CREATE UNIQUE INDEX category_description_uidx ON category (description);
@@ -0,0 +1,5 @@
+-- ngram tokens that contain a stopword (e.g. 'a') are dropped, so build the index without stopwords
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+ALTER TABLE beer
+    ADD FULLTEXT INDEX beer_name_ngram_idx (beer_name) WITH PARSER ngram;
@@ -0,0 +1,8 @@
+-- listing sorts by beer_name and keyset paging continues on (beer_name, id)
+CREATE INDEX beer_name_idx ON beer (beer_name, id);
+
+-- style filter with the same name ordering, also covers the plain style lookups
+CREATE INDEX beer_style_name_idx ON beer (beer_style, beer_name, id);
+
+-- replaces the implicit foreign key index, orders of a customer come back newest first
+CREATE INDEX beer_order_customer_idx ON beer_order (customer_id, created_date);
@@ -0,0 +1,82 @@
+-- ids move from varchar(36) text to binary(16), new rows get time ordered (v7) ids from the application.
+-- Each column goes through varbinary so the text is kept byte for byte, then UUID_TO_BIN packs it
+-- in place without the swap flag, matching how Hibernate binds java.util.UUID.
+
+-- foreign keys can't span the type change, drop them first (the V3 ones carry generated names)
+ALTER TABLE beer_order DROP FOREIGN KEY beer_order_ibfk_1;
+ALTER TABLE beer_order DROP FOREIGN KEY bos_shipment_fk;
+ALTER TABLE beer_order_line DROP FOREIGN KEY beer_order_line_ibfk_1;
+ALTER TABLE beer_order_line DROP FOREIGN KEY beer_order_line_ibfk_2;
+ALTER TABLE beer_category DROP FOREIGN KEY pc_beer_id_fk;
+ALTER TABLE beer_category DROP FOREIGN KEY pc_category_id_fk;
+ALTER TABLE beer_order_shipment DROP FOREIGN KEY bos_pk;
+
+ALTER TABLE beer MODIFY id varbinary(36) NOT NULL;
+UPDATE beer SET id = UUID_TO_BIN(id);
+ALTER TABLE beer MODIFY id binary(16) NOT NULL;
+
+ALTER TABLE customer MODIFY id varbinary(36) NOT NULL;
+UPDATE customer SET id = UUID_TO_BIN(id);
+ALTER TABLE customer MODIFY id binary(16) NOT NULL;
+
+ALTER TABLE category MODIFY id varbinary(36) NOT NULL;
+UPDATE category SET id = UUID_TO_BIN(id);
+ALTER TABLE category MODIFY id binary(16) NOT NULL;
+
+ALTER TABLE beer_order
+    MODIFY id varbinary(36) NOT NULL,
+    MODIFY customer_id varbinary(36),
+    MODIFY beer_order_shipment_id varbinary(36);
+UPDATE beer_order
+SET id                     = UUID_TO_BIN(id),
+    customer_id            = UUID_TO_BIN(customer_id),
+    beer_order_shipment_id = UUID_TO_BIN(beer_order_shipment_id);
+ALTER TABLE beer_order
+    MODIFY id binary(16) NOT NULL,
+    MODIFY customer_id binary(16),
+    MODIFY beer_order_shipment_id binary(16);
+
+ALTER TABLE beer_order_line
+    MODIFY id varbinary(36) NOT NULL,
+    MODIFY beer_id varbinary(36),
+    MODIFY beer_order_id varbinary(36);
+UPDATE beer_order_line
+SET id            = UUID_TO_BIN(id),
+    beer_id       = UUID_TO_BIN(beer_id),
+    beer_order_id = UUID_TO_BIN(beer_order_id);
+ALTER TABLE beer_order_line
+    MODIFY id binary(16) NOT NULL,
+    MODIFY beer_id binary(16),
+    MODIFY beer_order_id binary(16);
+
+ALTER TABLE beer_category
+    MODIFY beer_id varbinary(36) NOT NULL,
+    MODIFY category_id varbinary(36) NOT NULL;
+UPDATE beer_category
+SET beer_id     = UUID_TO_BIN(beer_id),
+    category_id = UUID_TO_BIN(category_id);
+ALTER TABLE beer_category
+    MODIFY beer_id binary(16) NOT NULL,
+    MODIFY category_id binary(16) NOT NULL;
+
+ALTER TABLE beer_order_shipment
+    MODIFY id varbinary(36) NOT NULL,
+    MODIFY beer_order_id varbinary(36);
+UPDATE beer_order_shipment
+SET id            = UUID_TO_BIN(id),
+    beer_order_id = UUID_TO_BIN(beer_order_id);
+ALTER TABLE beer_order_shipment
+    MODIFY id binary(16) NOT NULL,
+    MODIFY beer_order_id binary(16);
+
+ALTER TABLE beer_order
+    ADD CONSTRAINT beer_order_customer_fk FOREIGN KEY (customer_id) REFERENCES customer (id),
+    ADD CONSTRAINT bos_shipment_fk FOREIGN KEY (beer_order_shipment_id) REFERENCES beer_order_shipment (id);
+ALTER TABLE beer_order_line
+    ADD CONSTRAINT bol_beer_order_fk FOREIGN KEY (beer_order_id) REFERENCES beer_order (id),
+    ADD CONSTRAINT bol_beer_fk FOREIGN KEY (beer_id) REFERENCES beer (id);
+ALTER TABLE beer_category
+    ADD CONSTRAINT pc_beer_id_fk FOREIGN KEY (beer_id) REFERENCES beer (id),
+    ADD CONSTRAINT pc_category_id_fk FOREIGN KEY (category_id) REFERENCES category (id);
+ALTER TABLE beer_order_shipment
+    ADD CONSTRAINT bos_pk FOREIGN KEY (beer_order_id) REFERENCES beer_order (id);
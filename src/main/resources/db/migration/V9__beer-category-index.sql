@@ -0,0 +1,3 @@
+-- beers of a category: replaces the implicit foreign key index on category_id, the primary key
+-- (beer_id, category_id) only serves the other direction
+CREATE INDEX beer_category_category_idx ON beer_category (category_id, beer_id);
@@ -2,19 +2,27 @@ package guru.springframework.spring6restmvc.bootstrap;
 
 import guru.springframework.spring6restmvc.repositories.BeerRepository;
 import guru.springframework.spring6restmvc.repositories.CustomerRepository;
-import guru.springframework.spring6restmvc.services.BeerCsvService;
+import guru.springframework.spring6restmvc.services.BeerCountCache;
+import guru.springframework.spring6restmvc.services.BeerCsvImportServiceImpl;
 import guru.springframework.spring6restmvc.services.BeerCsvServiceImpl;
+import guru.springframework.spring6restmvc.services.BeerCsvUpsertWriter;
+import guru.springframework.spring6restmvc.services.BeerStyleTable;
+import guru.springframework.spring6restmvc.services.BeerImportJobService;
+import guru.springframework.spring6restmvc.services.BeerImportJobServiceImpl;
+import guru.springframework.spring6restmvc.services.InventoryServiceJPA;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
-@Import(BeerCsvServiceImpl.class)
+@Import({BeerCsvServiceImpl.class, BeerCsvImportServiceImpl.class, BeerCsvUpsertWriter.class, BeerStyleTable.class,
+        BeerImportJobServiceImpl.class, BeerCountCache.class, InventoryServiceJPA.class, LocalValidatorFactoryBean.class})
 class BootstrapDataTest {
 
     @Autowired
@@ -24,13 +32,13 @@ class BootstrapDataTest {
     CustomerRepository customerRepository;
 
     @Autowired
-    BeerCsvService beerCsvService;
+    BeerImportJobService beerImportJobService;
 
     BootstrapData bootstrapData;
 
     @BeforeEach
     void setUp() {
-        bootstrapData = new BootstrapData(beerRepository,customerRepository, beerCsvService);
+        bootstrapData = new BootstrapData(beerRepository,customerRepository, beerImportJobService);
     }
 
     @Test
@@ -0,0 +1,52 @@
+package guru.springframework.spring6restmvc.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ConnectionLimitingDataSourceTest {
+
+    @Test
+    void testPermitIsHeldUntilConnectionIsClosed() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        given(target.getConnection()).willReturn(connection);
+
+        ConnectionLimitingDataSource dataSource =
+                new ConnectionLimitingDataSource(target, 1, Duration.ofMillis(50));
+
+        Connection first = dataSource.getConnection();
+        assertThat(dataSource.getAvailablePermits()).isZero();
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        first.close();
+        first.close();
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+        verify(connection, times(2)).close();
+
+        dataSource.getConnection().close();
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void testPermitIsReleasedWhenPoolFails() throws Exception {
+        DataSource target = mock(DataSource.class);
+        given(target.getConnection()).willThrow(new SQLTransientConnectionException("pool exhausted"));
+
+        ConnectionLimitingDataSource dataSource =
+                new ConnectionLimitingDataSource(target, 1, Duration.ofMillis(50));
+
+        assertThatThrownBy(dataSource::getConnection).hasMessage("pool exhausted");
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+}
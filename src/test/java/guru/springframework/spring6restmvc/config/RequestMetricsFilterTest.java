@@ -0,0 +1,68 @@
+package guru.springframework.spring6restmvc.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(OutputCaptureExtension.class)
+class RequestMetricsFilterTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testStatementsRecordedPerEndpoint(CapturedOutput output) throws Exception {
+        RequestMetricsFilter filter = new RequestMetricsFilter(meterRegistry, Duration.ofMinutes(1), 0, 10);
+
+        handle(filter, 3);
+        handle(filter, 5);
+
+        assertThat(meterRegistry.get("http.server.requests.jdbc.statements")
+                .tag("method", "GET").tag("uri", "/api/v1/beer/{beerId}")
+                .summary().totalAmount()).isEqualTo(8);
+        assertThat(meterRegistry.get("http.server.requests.jdbc.time")
+                .tag("uri", "/api/v1/beer/{beerId}")
+                .timer().count()).isEqualTo(2);
+        assertThat(RequestStatistics.current()).isNull();
+        assertThat(output).doesNotContain("Slow request");
+    }
+
+    @Test
+    void testSlowRequestLoggedWithStatements(CapturedOutput output) throws Exception {
+        RequestMetricsFilter filter = new RequestMetricsFilter(meterRegistry, Duration.ZERO, 0, 2);
+
+        handle(filter, 3);
+
+        assertThat(output).contains("Slow request GET /api/v1/beer/42 (200)", "3 statements",
+                "select statement 0", "select statement 1", "1 more");
+        assertThat(output).doesNotContain("select statement 2");
+    }
+
+    @Test
+    void testSampledRequestTraced(CapturedOutput output) throws Exception {
+        RequestMetricsFilter filter = new RequestMetricsFilter(meterRegistry, Duration.ofMinutes(1), 1, 10);
+
+        handle(filter, 1);
+
+        assertThat(output).contains("Traced request GET /api/v1/beer/42", "select statement 0");
+    }
+
+    private void handle(RequestMetricsFilter filter, int statements) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/beer/42");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/beer/{beerId}");
+            for (int i = 0; i < statements; i++) {
+                RequestStatistics.current().record("select statement " + i, 1000);
+            }
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package guru.springframework.spring6restmvc.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class StatementMetricsDataSourceTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        RequestStatistics.end();
+    }
+
+    @Test
+    void testStatementsAreTimedAndAddedToRequest() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        Statement statement = mock(Statement.class);
+        given(target.getConnection()).willReturn(connection);
+        given(connection.prepareStatement(anyString())).willReturn(preparedStatement);
+        given(connection.createStatement()).willReturn(statement);
+
+        StatementMetricsDataSource dataSource = new StatementMetricsDataSource(target, () -> meterRegistry);
+        RequestStatistics statistics = RequestStatistics.begin(2);
+
+        try (Connection instrumented = dataSource.getConnection()) {
+            PreparedStatement select = instrumented.prepareStatement("select * from beer where id = ?");
+            select.setInt(1, 1);
+            select.executeQuery();
+            select.executeQuery();
+            instrumented.createStatement().execute("delete from beer_audit");
+        }
+
+        verify(preparedStatement).setInt(1, 1);
+        verify(statement).execute("delete from beer_audit");
+        verify(connection).close();
+
+        assertThat(meterRegistry.get("jdbc.statements").timer().count()).isEqualTo(3);
+        assertThat(statistics.getStatementCount()).isEqualTo(3);
+        assertThat(statistics.getExecuted())
+                .extracting(RequestStatistics.ExecutedStatement::sql)
+                .containsExactly("select * from beer where id = ?", "select * from beer where id = ?");
+    }
+
+    @Test
+    void testStatementsOutsideRequestOnlyTimed() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        given(target.getConnection()).willReturn(connection);
+        given(connection.prepareStatement(anyString())).willReturn(preparedStatement);
+
+        StatementMetricsDataSource dataSource = new StatementMetricsDataSource(target, () -> meterRegistry);
+
+        PreparedStatement insert = dataSource.getConnection().prepareStatement("insert into beer values (?)");
+        insert.addBatch();
+        insert.executeBatch();
+
+        assertThat(RequestStatistics.current()).isNull();
+        assertThat(meterRegistry.get("jdbc.statements").timer().count()).isEqualTo(1);
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import guru.springframework.spring6restmvc.entities.Beer;
 import guru.springframework.spring6restmvc.mappers.BeerMapper;
 import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerSliceDTO;
 import guru.springframework.spring6restmvc.model.BeerStyle;
 import guru.springframework.spring6restmvc.repositories.BeerRepository;
 import jakarta.transaction.Transactional;
@@ -26,6 +27,8 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -176,6 +179,73 @@ class BeerControllerIT {
                 .andExpect(jsonPath("$.content.size()", is(336)));
     }
 
+    @Test
+    void testListBeersByStyleWithoutTotal() throws Exception {
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .queryParam("beerStyle", BeerStyle.IPA.name())
+                        .queryParam("includeTotal", "false")
+                        .queryParam("pageSize", "800"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.size()", is(548)))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void testListBeersWithCursorWalksAllBeers() {
+        Set<UUID> beerIds = new HashSet<>();
+        String cursor = "";
+        int requests = 0;
+        BeerSliceDTO beerSlice;
+
+        do {
+            beerSlice = beerController.listBeerAfter(null, null, false, cursor, 1000);
+            beerSlice.getContent().forEach(beerDTO -> beerIds.add(beerDTO.getId()));
+            cursor = beerSlice.getNextCursor();
+            requests++;
+        } while (beerSlice.isHasNext());
+
+        assertThat(beerIds.size()).isEqualTo((int) beerRepository.count());
+        assertThat(requests).isEqualTo(3);
+    }
+
+    @Test
+    void testListBeersByNameAndStyleWithCursor() {
+        int total = 0;
+        String cursor = "";
+        BeerSliceDTO beerSlice;
+
+        do {
+            beerSlice = beerController.listBeerAfter("IPA", BeerStyle.IPA, true, cursor, 100);
+            total += beerSlice.getSize();
+            cursor = beerSlice.getNextCursor();
+        } while (beerSlice.isHasNext());
+
+        assertThat(total).isEqualTo(310);
+    }
+
+    @Test
+    void testListBeersFirstSliceByCursor() throws Exception {
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .queryParam("beerStyle", BeerStyle.IPA.name())
+                        .queryParam("cursor", "")
+                        .queryParam("pageSize", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.size()", is(50)))
+                .andExpect(jsonPath("$.hasNext", is(true)))
+                .andExpect(jsonPath("$.nextCursor").value(IsNull.notNullValue()))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void testListBeersBadCursor() throws Exception {
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .queryParam("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testPatchBeerBadName() throws Exception {
         Beer beer = beerRepository.findAll().get(0);
@@ -210,15 +280,80 @@ class BeerControllerIT {
         assertThat(dtos.getContent().size()).isEqualTo(0);
     }
 
+    @Test
+    void testExportBeersByStyle() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        beerController.exportBeersNdjson(BeerStyle.IPA).getBody().writeTo(outputStream);
+
+        List<String> lines = outputStream.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines.size()).isEqualTo((int) beerRepository.countByBeerStyle(BeerStyle.IPA));
+        assertThat(objectMapper.readValue(lines.get(0), BeerDTO.class).getBeerStyle()).isEqualTo(BeerStyle.IPA);
+    }
+
+    @Test
+    void testExportAllBeersCsv() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        beerController.exportBeersCsv(null).getBody().writeTo(outputStream);
+
+        //header plus one line per beer, beer names in the dataset contain no line breaks
+        assertThat(outputStream.toString(StandardCharsets.UTF_8).lines().count())
+                .isEqualTo(beerRepository.count() + 1);
+    }
+
     @Test
     void testGetById() {
         Beer beer = beerRepository.findAll().get(0);
 
-        BeerDTO dto = beerController.getBeerById(beer.getId());
+        BeerDTO dto = beerController.getBeerById(beer.getId(), null).getBody();
 
         assertThat(dto).isNotNull();
     }
 
+    @Rollback
+    @Transactional
+    @Test
+    void testConditionalGetAndUpdate() throws Exception {
+        Beer beer = beerRepository.findAll().get(0);
+
+        String eTag = mockMvc.perform(get(BeerController.BEER_PATH_ID, beer.getId())
+                        .with(BeerControllerTest.jwtRequestPostProcessor))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get(BeerController.BEER_PATH_ID, beer.getId())
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        BeerDTO beerDTO = beerMapper.beerToBeerDto(beer);
+        beerDTO.setBeerName("Conditional Update");
+
+        String updatedETag = mockMvc.perform(put(BeerController.BEER_PATH_ID, beer.getId())
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .header("If-Match", eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(beerDTO)))
+                .andExpect(status().isNoContent())
+                .andReturn().getResponse().getHeader("ETag");
+
+        assertNotEquals(eTag, updatedETag);
+
+        mockMvc.perform(get(BeerController.BEER_PATH_ID, beer.getId())
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.beerName", is("Conditional Update")));
+
+        mockMvc.perform(patch(BeerController.BEER_PATH_ID, beer.getId())
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .header("If-Match", eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(BeerDTO.builder().beerName("Lost Update").build())))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Rollback
     @Transactional
     @Test
@@ -228,7 +363,7 @@ class BeerControllerIT {
         beerRepository.deleteById(beer.getId());
 
 
-        assertThrows(NotFoundException.class, () -> beerController.getBeerById(beer.getId()));
+        assertThrows(NotFoundException.class, () -> beerController.getBeerById(beer.getId(), null).getBody());
 
     }
 
@@ -264,7 +399,7 @@ class BeerControllerIT {
         beerDTO.setBeerName(name);
 
         System.out.println(beerDTO.toString());
-        ResponseEntity responseEntity = beerController.updateById(beerId, beerDTO);
+        ResponseEntity responseEntity = beerController.updateById(beerId, beerDTO, null);
 
         assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
         assertThat(responseEntity.getHeaders().getLocation()).isNotNull();
@@ -282,7 +417,7 @@ class BeerControllerIT {
     void testUpdateNotFound() {
         BeerDTO beerDTO = BeerDTO.builder().beerName("New Beer").build();
 
-        assertThrows(NotFoundException.class, () -> beerController.updateById(UUID.randomUUID(), beerDTO));
+        assertThrows(NotFoundException.class, () -> beerController.updateById(UUID.randomUUID(), beerDTO, null));
     }
 
     @Rollback
@@ -312,7 +447,7 @@ class BeerControllerIT {
         final String name = "UPDATED BEER NAME";
         beerDTO.setBeerName(name);
 
-        ResponseEntity responseEntity = beerController.patchUpdateById(beerDTO.getId(), beerDTO);
+        ResponseEntity responseEntity = beerController.patchUpdateById(beerDTO.getId(), beerDTO, null);
         System.out.println(beerDTO);
         System.out.println(beerRepository.findById(beerDTO.getId()));
         assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
@@ -323,6 +458,6 @@ class BeerControllerIT {
     @Transactional
     @Test
     void testPatchExistingBeerByIdNotFound() {
-        assertThrows(NotFoundException.class, () -> beerController.patchUpdateById(UUID.randomUUID(), BeerDTO.builder().build()));
+        assertThrows(NotFoundException.class, () -> beerController.patchUpdateById(UUID.randomUUID(), BeerDTO.builder().build(), null));
     }
 }
\ No newline at end of file
@@ -3,7 +3,11 @@ package guru.springframework.spring6restmvc.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import guru.springframework.spring6restmvc.config.SpringSecurityConfig;
 import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerOperationDTO;
+import guru.springframework.spring6restmvc.model.BeerOperationResultDTO;
+import guru.springframework.spring6restmvc.model.BeerOperationType;
 import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.services.BeerBulkService;
 import guru.springframework.spring6restmvc.services.BeerService;
 import guru.springframework.spring6restmvc.services.BeerServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +22,7 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -27,6 +32,7 @@ import org.springframework.test.web.servlet.MvcResult;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -34,8 +40,11 @@ import java.util.UUID;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -56,6 +65,9 @@ public class BeerControllerTest {
     @MockitoBean
     BeerService beerService;
 
+    @MockitoBean
+    BeerBulkService beerBulkService;
+
     BeerServiceImpl  beerServiceImpl = new BeerServiceImpl();
 
     @Captor
@@ -141,6 +153,165 @@ public class BeerControllerTest {
 
     }
 
+    @Test
+    void testListBeersByCategory() throws Exception {
+        given(beerService.listBeersByCategory(any(), any(), any(), any()))
+                .willReturn(beerServiceImpl.listBeers(null, null, false, 1, 25));
+
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(jwtRequestPostProcessor)
+                        .queryParam("category", "Seasonal")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(3)));
+
+        verify(beerService).listBeersByCategory(eq("Seasonal"), any(), any(), any());
+    }
+
+    //the category listings have no keyset or no-total variant, asking for one is an error rather than ignored
+    @Test
+    void testCategoryListingsRejectOtherPaging() throws Exception {
+        for (String query : List.of("category=Seasonal&includeTotal=false", "category=Seasonal&cursor=",
+                "category=Seasonal&withCategories=true", "withCategories=true&cursor=",
+                "withCategories=true&includeTotal=false")) {
+            mockMvc.perform(get(BeerController.BEER_PATH + "?" + query)
+                            .with(jwtRequestPostProcessor)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest());
+        }
+
+        verify(beerService, never()).listBeersByCategory(any(), any(), any(), any());
+        verify(beerService, never()).listBeersWithCategories(any(), any());
+        verify(beerService, never()).listBeersAfter(any(), any(), any(), any(), any());
+        verify(beerService, never()).listBeersWithoutTotal(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testCreateNewBeersBatch() throws Exception {
+        List<BeerDTO> beerDTOs = beerServiceImpl.listBeers(null, null, false, 1, 25).getContent();
+
+        given(beerService.saveNewBeers(any())).willReturn(beerDTOs);
+
+        mockMvc.perform(post(BeerController.BEER_BATCH_PATH)
+                        .with(jwtRequestPostProcessor)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(beerDTOs)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.length()", is(3)));
+    }
+
+    @Test
+    void testCreateNewBeersBatchInvalidBeer() throws Exception {
+        List<BeerDTO> beerDTOs = List.of(beerServiceImpl.listBeers(null, null, false, 1, 25).getContent().get(0),
+                BeerDTO.builder().beerName("No Style").upc("123").price(BigDecimal.ONE).build());
+
+        mockMvc.perform(post(BeerController.BEER_BATCH_PATH)
+                        .with(jwtRequestPostProcessor)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(beerDTOs)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].['[1].beerStyle']").exists());
+    }
+
+    @Test
+    void testBulkOperations() throws Exception {
+        BeerDTO beer = beerServiceImpl.listBeers(null, null, false, 1, 25).getContent().get(0);
+        List<BeerOperationDTO> operations = List.of(
+                BeerOperationDTO.builder().operation(BeerOperationType.PATCH).beerId(beer.getId())
+                        .beer(BeerDTO.builder().beerName("Patched").build()).build(),
+                BeerOperationDTO.builder().operation(BeerOperationType.DELETE).beerId(UUID.randomUUID()).build());
+
+        given(beerBulkService.execute(any())).willReturn(List.of(
+                BeerOperationResultDTO.builder().index(0).operation(BeerOperationType.PATCH)
+                        .beerId(beer.getId()).status(204).build(),
+                BeerOperationResultDTO.builder().index(1).operation(BeerOperationType.DELETE)
+                        .beerId(operations.get(1).getBeerId()).status(404).build()));
+
+        mockMvc.perform(post(BeerController.BEER_BULK_PATH)
+                        .with(jwtRequestPostProcessor)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(operations)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].status", is(204)))
+                .andExpect(jsonPath("$[1].status", is(404)));
+    }
+
+    @Test
+    void testExportBeersNdjson() throws Exception {
+        willAnswer(invocation -> {
+            beerServiceImpl.forEachBeer(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).given(beerService).forEachBeer(any(), any());
+
+        MvcResult asyncResult = mockMvc.perform(get(BeerController.BEER_EXPORT_PATH)
+                        .with(jwtRequestPostProcessor)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body.lines().count()).isEqualTo(3);
+    }
+
+    @Test
+    void testExportBeersCsvByStyle() throws Exception {
+        willAnswer(invocation -> {
+            beerServiceImpl.forEachBeer(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).given(beerService).forEachBeer(any(), any());
+
+        MvcResult asyncResult = mockMvc.perform(get(BeerController.BEER_EXPORT_PATH)
+                        .with(jwtRequestPostProcessor)
+                        .queryParam("beerStyle", BeerStyle.PALE_ALE.name())
+                        .accept(BeerController.TEXT_CSV))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(BeerController.TEXT_CSV))
+                .andReturn().getResponse().getContentAsString();
+
+        verify(beerService).forEachBeer(eq(BeerStyle.PALE_ALE), any());
+        assertThat(body.lines().findFirst().orElseThrow()).startsWith("\"id\",\"version\",\"beerName\"");
+    }
+
+    @Test
+    void testExportBeersAnyAccept() throws Exception {
+        MvcResult asyncResult = mockMvc.perform(get(BeerController.BEER_EXPORT_PATH)
+                        .with(jwtRequestPostProcessor)
+                        .accept(MediaType.ALL))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testListBeersByCursor() throws Exception {
+        given(beerService.listBeersAfter(any(), any(), any(), any(), any()))
+                .willReturn(beerServiceImpl.listBeersAfter(null, null, false, null, 2));
+
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(jwtRequestPostProcessor)
+                        .queryParam("cursor", "")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(2)))
+                .andExpect(jsonPath("$.hasNext", is(true)))
+                .andExpect(jsonPath("$.nextCursor").exists());
+    }
+
     @Test
     void getBeerById() throws Exception {
 
@@ -157,6 +328,55 @@ public class BeerControllerTest {
                 .andExpect(jsonPath("$.beerName", is(testBeerDTO.getBeerName())));
     }
 
+    @Test
+    void getBeerByIdNotModified() throws Exception {
+        BeerDTO testBeerDTO = beerServiceImpl.listBeers(null, null, false, 1, 25).getContent().get(0);
+        String eTag = "\"" + testBeerDTO.getId() + "-" + testBeerDTO.getVersion() + "\"";
+
+        given(beerService.getBeerVersion(testBeerDTO.getId())).willReturn(Optional.of(testBeerDTO.getVersion()));
+
+        mockMvc.perform(get(BeerController.BEER_PATH_ID, testBeerDTO.getId())
+                        .with(jwtRequestPostProcessor)
+                        .header("If-None-Match", eTag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+
+        verify(beerService, never()).getBeerById(any());
+    }
+
+    @Test
+    void testUpdateBeerStaleIfMatch() throws Exception {
+        BeerDTO beerDTO = beerServiceImpl.listBeers(null, null, false, 1, 25).getContent().get(0);
+
+        given(beerService.updateBeerById(any(), any(), any()))
+                .willThrow(new ObjectOptimisticLockingFailureException(BeerDTO.class, beerDTO.getId()));
+
+        mockMvc.perform(put(BeerController.BEER_PATH_ID, beerDTO.getId())
+                        .with(jwtRequestPostProcessor)
+                        .header("If-Match", "\"" + beerDTO.getId() + "-0\"")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(beerDTO)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testUpdateBeerIfMatchOtherBeer() throws Exception {
+        BeerDTO beerDTO = beerServiceImpl.listBeers(null, null, false, 1, 25).getContent().get(0);
+
+        mockMvc.perform(put(BeerController.BEER_PATH_ID, beerDTO.getId())
+                        .with(jwtRequestPostProcessor)
+                        .header("If-Match", "\"" + UUID.randomUUID() + "-1\"")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(beerDTO)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(beerService, never()).updateBeerById(any(), any(), any());
+    }
+
     @Test
     void testDeleteBeer() throws Exception {
         BeerDTO beerDTO = beerServiceImpl.listBeers(null, null, false, 1, 25).getContent().get(0);
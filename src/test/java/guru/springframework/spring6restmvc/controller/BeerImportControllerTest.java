@@ -0,0 +1,107 @@
+package guru.springframework.spring6restmvc.controller;
+
+import guru.springframework.spring6restmvc.config.SpringSecurityConfig;
+import guru.springframework.spring6restmvc.model.BeerImportJobDTO;
+import guru.springframework.spring6restmvc.model.BeerImportJobStatus;
+import guru.springframework.spring6restmvc.model.BeerImportMode;
+import guru.springframework.spring6restmvc.services.BeerImportJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(BeerImportController.class)
+@Import(SpringSecurityConfig.class)
+class BeerImportControllerTest {
+
+    @MockitoBean
+    BeerImportJobService beerImportJobService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    BeerImportJobDTO job = BeerImportJobDTO.builder()
+            .id(UUID.randomUUID())
+            .fileName("beers.csv")
+            .status(BeerImportJobStatus.RUNNING)
+            .rowsRead(1200)
+            .beersInserted(1000)
+            .build();
+
+    @Test
+    void testSubmitImport() throws Exception {
+        given(beerImportJobService.submitImport(eq("beers.csv"), any(InputStream.class), eq(BeerImportMode.INSERT)))
+                .willReturn(job);
+
+        mockMvc.perform(multipart(BeerImportController.BEER_IMPORT_PATH)
+                        .file(new MockMultipartFile("file", "beers.csv", "text/csv",
+                                "\"row\",\"beer\"\n\"1\",\"Beer\"\n".getBytes(StandardCharsets.UTF_8)))
+                        .with(BeerControllerTest.jwtRequestPostProcessor))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", BeerImportController.BEER_IMPORT_PATH + "/" + job.getId()))
+                .andExpect(jsonPath("$.status", is("RUNNING")));
+    }
+
+    @Test
+    void testSubmitUpsert() throws Exception {
+        given(beerImportJobService.submitImport(eq("beers.csv"), any(InputStream.class), eq(BeerImportMode.UPSERT)))
+                .willReturn(job);
+
+        mockMvc.perform(multipart(BeerImportController.BEER_IMPORT_PATH)
+                        .file(new MockMultipartFile("file", "beers.csv", "text/csv",
+                                "\"row\",\"beer\"\n\"1\",\"Beer\"\n".getBytes(StandardCharsets.UTF_8)))
+                        .param("mode", "UPSERT")
+                        .with(BeerControllerTest.jwtRequestPostProcessor))
+                .andExpect(status().isAccepted());
+
+        verify(beerImportJobService).submitImport(eq("beers.csv"), any(InputStream.class), eq(BeerImportMode.UPSERT));
+    }
+
+    @Test
+    void testSubmitEmptyFile() throws Exception {
+        mockMvc.perform(multipart(BeerImportController.BEER_IMPORT_PATH)
+                        .file(new MockMultipartFile("file", "beers.csv", "text/csv", new byte[0]))
+                        .with(BeerControllerTest.jwtRequestPostProcessor))
+                .andExpect(status().isBadRequest());
+
+        verify(beerImportJobService, never()).submitImport(anyString(), any(InputStream.class), any(BeerImportMode.class));
+    }
+
+    @Test
+    void testGetImportJob() throws Exception {
+        given(beerImportJobService.getJob(job.getId())).willReturn(Optional.of(job));
+
+        mockMvc.perform(get(BeerImportController.BEER_IMPORT_PATH_ID, job.getId())
+                        .with(BeerControllerTest.jwtRequestPostProcessor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsRead", is(1200)))
+                .andExpect(jsonPath("$.beersInserted", is(1000)));
+    }
+
+    @Test
+    void testGetImportJobNotFound() throws Exception {
+        given(beerImportJobService.getJob(any(UUID.class))).willReturn(Optional.empty());
+
+        mockMvc.perform(get(BeerImportController.BEER_IMPORT_PATH_ID, UUID.randomUUID())
+                        .with(BeerControllerTest.jwtRequestPostProcessor))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,159 @@
+package guru.springframework.spring6restmvc.controller;
+
+import guru.springframework.spring6restmvc.config.ConnectionLimitingDataSource;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Fires the same burst of GET /api/v1/beer at a real Tomcat in both execution modes and prints
+ * throughput and latency, the numbers are meant to be compared run to run rather than asserted on.
+ */
+class BeerListLoadIT {
+
+    static final int CLIENTS = 300;
+    static final int REQUESTS_PER_CLIENT = 10;
+    static final int WARMUP_REQUESTS = 200;
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = "spring.threads.virtual.enabled=false")
+    class PlatformThreads {
+
+        @LocalServerPort
+        int port;
+
+        @MockitoBean
+        JwtDecoder jwtDecoder;
+
+        @Test
+        void testListBeersUnderLoad() throws Exception {
+            LoadResult result = runLoad(jwtDecoder, port);
+
+            System.out.println("Platform threads: " + result);
+            assertThat(result.errors()).isZero();
+        }
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = "spring.threads.virtual.enabled=true")
+    class VirtualThreads {
+
+        @LocalServerPort
+        int port;
+
+        @MockitoBean
+        JwtDecoder jwtDecoder;
+
+        @Autowired
+        ServletWebServerApplicationContext context;
+
+        @Autowired
+        DataSource dataSource;
+
+        @Test
+        void testListBeersUnderLoad() throws Exception {
+            TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+            assertThat(webServer.getTomcat().getConnector().getProtocolHandler().getExecutor().getClass().getSimpleName())
+                    .isEqualTo("VirtualThreadExecutor");
+            assertThat(dataSource).isInstanceOf(ConnectionLimitingDataSource.class);
+
+            LoadResult result = runLoad(jwtDecoder, port);
+
+            System.out.println("Virtual threads:  " + result);
+            assertThat(result.errors()).isZero();
+        }
+    }
+
+    static LoadResult runLoad(JwtDecoder jwtDecoder, int port) throws Exception {
+        given(jwtDecoder.decode(anyString())).willReturn(Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject("load-test")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(600))
+                .build());
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + BeerController.BEER_PATH))
+                .header("Authorization", "Bearer token")
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        try (HttpClient client = HttpClient.newHttpClient();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            for (int i = 0; i < WARMUP_REQUESTS; i++) {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+            }
+
+            AtomicInteger errors = new AtomicInteger();
+            List<Future<long[]>> futures = new ArrayList<>(CLIENTS);
+            long start = System.nanoTime();
+
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    long[] latencies = new long[REQUESTS_PER_CLIENT];
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        long requestStart = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[r] = System.nanoTime() - requestStart;
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+
+            long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+            for (int c = 0; c < CLIENTS; c++) {
+                System.arraycopy(futures.get(c).get(), 0, latencies, c * REQUESTS_PER_CLIENT, REQUESTS_PER_CLIENT);
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            return new LoadResult(latencies.length, errors.get(),
+                    latencies.length * 1_000_000_000d / elapsedNanos,
+                    percentileMillis(latencies, 0.50), percentileMillis(latencies, 0.99));
+        }
+    }
+
+    static double percentileMillis(long[] sortedNanos, double percentile) {
+        return sortedNanos[(int) Math.ceil(percentile * sortedNanos.length) - 1] / 1_000_000d;
+    }
+
+    record LoadResult(int requests, int errors, double requestsPerSecond, double p50Millis, double p99Millis) {
+
+        @Override
+        public String toString() {
+            return String.format("%d requests, %d errors, %.0f req/s, p50 %.1f ms, p99 %.1f ms",
+                    requests, errors, requestsPerSecond, p50Millis, p99Millis);
+        }
+    }
+}
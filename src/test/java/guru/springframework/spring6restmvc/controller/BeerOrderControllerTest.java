@@ -0,0 +1,104 @@
+package guru.springframework.spring6restmvc.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.spring6restmvc.config.SpringSecurityConfig;
+import guru.springframework.spring6restmvc.model.BeerOrderCreateDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderLineCreateDTO;
+import guru.springframework.spring6restmvc.services.BeerOrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(BeerOrderController.class)
+@Import(SpringSecurityConfig.class)
+class BeerOrderControllerTest {
+
+    @MockitoBean
+    BeerOrderService beerOrderService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    BeerOrderCreateDTO beerOrderCreate = BeerOrderCreateDTO.builder()
+            .customerId(UUID.randomUUID())
+            .customerRef("test order")
+            .beerOrderLines(List.of(BeerOrderLineCreateDTO.builder()
+                    .beerId(UUID.randomUUID())
+                    .orderQuantity(3)
+                    .build()))
+            .build();
+
+    @Test
+    void testPlaceOrder() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        given(beerOrderService.placeOrder(any(BeerOrderCreateDTO.class)))
+                .willReturn(BeerOrderDTO.builder().id(orderId).customerRef("test order").build());
+
+        mockMvc.perform(post(BeerOrderController.BEER_ORDER_PATH)
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(beerOrderCreate)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", BeerOrderController.BEER_ORDER_PATH + "/" + orderId))
+                .andExpect(jsonPath("$.customerRef", is("test order")));
+    }
+
+    @Test
+    void testPlaceOrderWithoutLines() throws Exception {
+        beerOrderCreate.setBeerOrderLines(List.of());
+
+        mockMvc.perform(post(BeerOrderController.BEER_ORDER_PATH)
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(beerOrderCreate)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.length()", is(1)));
+
+        verify(beerOrderService, never()).placeOrder(any());
+    }
+
+    @Test
+    void testPlaceOrderUnknownBeer() throws Exception {
+        given(beerOrderService.placeOrder(any(BeerOrderCreateDTO.class)))
+                .willThrow(new IllegalArgumentException("Beers not found"));
+
+        mockMvc.perform(post(BeerOrderController.BEER_ORDER_PATH)
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(beerOrderCreate)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetOrderNotFound() throws Exception {
+        given(beerOrderService.getOrderById(any(UUID.class))).willReturn(Optional.empty());
+
+        mockMvc.perform(get(BeerOrderController.BEER_ORDER_PATH_ID, UUID.randomUUID())
+                        .with(BeerControllerTest.jwtRequestPostProcessor))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,114 @@
+package guru.springframework.spring6restmvc.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.spring6restmvc.config.SpringSecurityConfig;
+import guru.springframework.spring6restmvc.model.CategoryDTO;
+import guru.springframework.spring6restmvc.services.CategoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(CategoryController.class)
+@Import(SpringSecurityConfig.class)
+class CategoryControllerTest {
+
+    @MockitoBean
+    CategoryService categoryService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    CategoryDTO category = CategoryDTO.builder()
+            .id(UUID.randomUUID())
+            .version(0L)
+            .description("Seasonal")
+            .build();
+
+    @Test
+    void testListCategories() throws Exception {
+        given(categoryService.listCategories()).willReturn(List.of(category));
+
+        mockMvc.perform(get(CategoryController.CATEGORY_PATH)
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].description", is("Seasonal")));
+    }
+
+    @Test
+    void testGetCategoryByIdNotFound() throws Exception {
+        given(categoryService.getCategoryById(any(UUID.class))).willReturn(Optional.empty());
+
+        mockMvc.perform(get(CategoryController.CATEGORY_PATH_ID, UUID.randomUUID())
+                        .with(BeerControllerTest.jwtRequestPostProcessor))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testCreateCategory() throws Exception {
+        given(categoryService.saveNewCategory(any(CategoryDTO.class))).willReturn(category);
+
+        mockMvc.perform(post(CategoryController.CATEGORY_PATH)
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(CategoryDTO.builder().description("Seasonal").build())))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", CategoryController.CATEGORY_PATH + "/" + category.getId()));
+    }
+
+    @Test
+    void testCreateCategoryBlankDescription() throws Exception {
+        mockMvc.perform(post(CategoryController.CATEGORY_PATH)
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(CategoryDTO.builder().description(" ").build())))
+                .andExpect(status().isBadRequest());
+
+        verify(categoryService, never()).saveNewCategory(any());
+    }
+
+    @Test
+    void testCreateCategoryDuplicateDescription() throws Exception {
+        given(categoryService.saveNewCategory(any(CategoryDTO.class)))
+                .willThrow(new DuplicateKeyException("Category Seasonal already exists"));
+
+        mockMvc.perform(post(CategoryController.CATEGORY_PATH)
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(CategoryDTO.builder().description("Seasonal").build())))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testDeleteCategoryNotFound() throws Exception {
+        given(categoryService.deleteById(any(UUID.class))).willReturn(false);
+
+        mockMvc.perform(delete(CategoryController.CATEGORY_PATH_ID, UUID.randomUUID())
+                        .with(BeerControllerTest.jwtRequestPostProcessor))
+                .andExpect(status().isNotFound());
+    }
+}
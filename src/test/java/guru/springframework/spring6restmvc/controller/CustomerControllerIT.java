@@ -15,6 +15,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.annotation.Rollback;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -38,15 +40,24 @@ class CustomerControllerIT {
 
     @Test
     void testGetCustomerList() {
-        List<CustomerDTO> dtos = customerController.listCustomer();
+        List<CustomerDTO> dtos = customerController.listCustomer(null, null).getContent();
 
         assertThat(dtos.size()).isEqualTo(3);
     }
 
 
+    @Test
+    void testStreamCustomers() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        customerController.streamCustomers().getBody().writeTo(outputStream);
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8).lines().count()).isEqualTo(3L);
+    }
+
     @Test
     void testGetCustomerById() {
-        CustomerDTO customer = customerController.listCustomer().get(0);
+        CustomerDTO customer = customerController.listCustomer(null, null).getContent().get(0);
 
         assertThat(customer).isNotNull();
     }
@@ -56,11 +67,11 @@ class CustomerControllerIT {
     @Transactional
     @Test
     void testGetCustomerByIdNotFound() {
-        CustomerDTO customer = customerController.listCustomer().get(0);
+        CustomerDTO customer = customerController.listCustomer(null, null).getContent().get(0);
 
         customerRepository.deleteById(customer.getId());
 
-        assertThrows(NotFoundException.class, () -> customerController.getCustomerById(customer.getId()));
+        assertThrows(NotFoundException.class, () -> customerController.getCustomerById(customer.getId(), null));
     }
 
 
@@ -70,14 +81,14 @@ class CustomerControllerIT {
     void testListAllEmptyList() {
         customerRepository.deleteAll();
 
-        assertThat(customerController.listCustomer().size()).isEqualTo(0);
+        assertThat(customerController.listCustomer(null, null).getContent().size()).isEqualTo(0);
     }
 
     @Rollback
     @Transactional
     @Test
     void updateExistingCustomer() {
-        CustomerDTO customerDTO = customerController.listCustomer().get(0);
+        CustomerDTO customerDTO = customerController.listCustomer(null, null).getContent().get(0);
         UUID customerId = customerDTO.getId();
         customerDTO.setVersion(null);
         customerDTO.setId(null);
@@ -85,7 +96,7 @@ class CustomerControllerIT {
         customerDTO.setCustomerName(name);
 
         System.out.println(customerDTO.toString());
-        ResponseEntity responseEntity = customerController.updateById(customerId, customerDTO);
+        ResponseEntity responseEntity = customerController.updateById(customerId, customerDTO, null);
 
         assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
         assertThat(responseEntity.getHeaders().getLocation()).isNotNull();
@@ -103,7 +114,7 @@ class CustomerControllerIT {
     void testUpdateNotFound() {
         CustomerDTO customerDTO = CustomerDTO.builder().build();
 
-        assertThrows(NotFoundException.class,() ->customerController.updateById(UUID.randomUUID(), customerDTO));
+        assertThrows(NotFoundException.class,() ->customerController.updateById(UUID.randomUUID(), customerDTO, null));
     }
 
     @Rollback
@@ -134,7 +145,7 @@ class CustomerControllerIT {
         final String name = "UPDATED CUSTOMER NAME";
         customerDTO.setCustomerName(name);
 
-        ResponseEntity responseEntity = customerController.patchById(customerDTO.getId(), customerDTO);
+        ResponseEntity responseEntity = customerController.patchById(customerDTO.getId(), customerDTO, null);
 
         assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
         assertThat(customerRepository.findById(customerDTO.getId()).get().getCustomerName()).isEqualTo(name);
@@ -144,6 +155,6 @@ class CustomerControllerIT {
     @Transactional
     @Test
     void testPatchExistinfCustomerByIdNotFound() {
-        assertThrows(NotFoundException.class, () -> customerController.patchById(UUID.randomUUID(), CustomerDTO.builder().build()));
+        assertThrows(NotFoundException.class, () -> customerController.patchById(UUID.randomUUID(), CustomerDTO.builder().build(), null));
     }
 }
\ No newline at end of file
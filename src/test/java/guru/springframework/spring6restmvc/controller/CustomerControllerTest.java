@@ -17,6 +17,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -27,6 +28,8 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -105,13 +108,55 @@ public class CustomerControllerTest {
     @Test
     void testGetCustomerList() throws Exception {
 
-        given(customerService.listCustomer()).willReturn(customerServiceImpl.listCustomer());
+        given(customerService.listCustomers(any(), any())).willReturn(customerServiceImpl.listCustomers(1, 25));
 
         mockMvc.perform(get(CustomerController.CUSTOMER_PATH)
                         .with(BeerControllerTest.jwtRequestPostProcessor)
                 .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.content.length()", is(3)));
+    }
+
+    @Test
+    void testStreamCustomersNdjson() throws Exception {
+        willAnswer(invocation -> {
+            customerServiceImpl.forEachCustomer(invocation.getArgument(0));
+            return null;
+        }).given(customerService).forEachCustomer(any());
+
+        MvcResult asyncResult = mockMvc.perform(get(CustomerController.CUSTOMER_PATH)
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body.lines().count()).isEqualTo(3);
+        assertThat(objectMapper.readValue(body.lines().findFirst().orElseThrow(), CustomerDTO.class).getId())
+                .isNotNull();
+    }
+
+    @Test
+    void testListAllCustomersUnpaged() throws Exception {
+        willAnswer(invocation -> {
+            customerServiceImpl.forEachCustomer(invocation.getArgument(0));
+            return null;
+        }).given(customerService).forEachCustomer(any());
+
+        MvcResult asyncResult = mockMvc.perform(get(CustomerController.CUSTOMER_PATH)
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .queryParam("unpaged", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()", is(3)));
     }
 
@@ -130,6 +175,23 @@ public class CustomerControllerTest {
                 .andExpect(jsonPath("$.customerName", is(customer.getCustomerName())));
     }
 
+    @Test
+    void testGetCustomerByIdNotModified() throws Exception {
+        CustomerDTO customer = customerServiceImpl.listCustomer().get(0);
+        String eTag = "\"" + customer.getId() + "-" + customer.getVersion() + "\"";
+
+        given(customerService.getCustomerVersion(customer.getId())).willReturn(Optional.of(customer.getVersion()));
+
+        mockMvc.perform(get(CustomerController.CUSTOMER_PATH_ID, customer.getId().toString())
+                        .with(BeerControllerTest.jwtRequestPostProcessor)
+                        .header("If-None-Match", "W/" + eTag)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+
+        verify(customerService, never()).getCustomerById(any());
+    }
+
     @Test
     void testDeleteBeer() throws Exception {
         CustomerDTO customer = customerServiceImpl.listCustomer().get(0);
@@ -0,0 +1,37 @@
+package guru.springframework.spring6restmvc.entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedUuidGeneratorTest {
+
+    @Test
+    void testVersionAndVariant() {
+        UUID uuid = TimeOrderedUuidGenerator.nextUuid();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void testIdsSortByCreationTime() throws InterruptedException {
+        Set<UUID> ids = new HashSet<>();
+        UUID previous = TimeOrderedUuidGenerator.nextUuid();
+
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(2);
+            UUID next = TimeOrderedUuidGenerator.nextUuid();
+
+            //the timestamp leads, so later ids are greater as unsigned bytes, the way binary(16) compares
+            assertThat(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits()))
+                    .isPositive();
+            assertThat(ids.add(next)).isTrue();
+            previous = next;
+        }
+    }
+}
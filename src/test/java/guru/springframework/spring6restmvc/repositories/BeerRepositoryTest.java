@@ -2,14 +2,24 @@ package guru.springframework.spring6restmvc.repositories;
 
 import guru.springframework.spring6restmvc.bootstrap.BootstrapData;
 import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.model.BeerDTO;
 import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.services.BeerCountCache;
+import guru.springframework.spring6restmvc.services.BeerCsvImportServiceImpl;
 import guru.springframework.spring6restmvc.services.BeerCsvServiceImpl;
+import guru.springframework.spring6restmvc.services.BeerCsvUpsertWriter;
+import guru.springframework.spring6restmvc.services.BeerStyleTable;
+import guru.springframework.spring6restmvc.services.BeerImportJobServiceImpl;
+import guru.springframework.spring6restmvc.services.InventoryServiceJPA;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -18,7 +28,8 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
-@Import({BootstrapData.class, BeerCsvServiceImpl.class})
+@Import({BootstrapData.class, BeerCsvServiceImpl.class, BeerCsvImportServiceImpl.class, BeerCsvUpsertWriter.class, BeerStyleTable.class,
+        BeerImportJobServiceImpl.class, BeerCountCache.class, InventoryServiceJPA.class, LocalValidatorFactoryBean.class})
 class BeerRepositoryTest {
 
     @Autowired
@@ -31,6 +42,65 @@ class BeerRepositoryTest {
         assertThat(list.getContent().size()).isEqualTo(336);
     }
 
+    @Test
+    void testGetBeerListByNameMatching() {
+        Slice<Beer> slice = beerRepository.findSliceByBeerNameMatching("ipa", PageRequest.of(0, 1000));
+
+        assertThat(slice.getContent().size()).isEqualTo(336);
+        assertThat(beerRepository.countByBeerNameMatching("ipa")).isEqualTo(336);
+        assertThat(beerRepository.countByBeerNameMatchingAndBeerStyle("IPA", BeerStyle.IPA)).isEqualTo(310);
+    }
+
+    @Test
+    void testGetBeerListByNameContaining() {
+        assertThat(beerRepository.countByBeerNameContaining("ipa")).isEqualTo(336);
+        assertThat(beerRepository.countByBeerNameContainingAndBeerStyle("IPA", BeerStyle.IPA)).isEqualTo(310);
+        assertThat(beerRepository.countByBeerNameContaining("q"))
+                .isEqualTo(beerRepository.findAllByBeerNameIsLikeIgnoreCase("%Q%", null).getTotalElements());
+
+        assertFalse(BeerNameSearchFunctionContributor.hasNgramToken("q"));
+        assertFalse(BeerNameSearchFunctionContributor.hasNgramToken(" a \"b\" "));
+        assertTrue(BeerNameSearchFunctionContributor.hasNgramToken("a ipa"));
+    }
+
+    @Test
+    void testDtoSliceOmitsInventory() {
+        Slice<BeerDTO> slice = beerRepository.findDtoSliceByBeerNameMatchingAndBeerStyle("ipa", BeerStyle.IPA,
+                false, PageRequest.of(0, 25));
+
+        assertThat(slice.getContent().size()).isEqualTo(25);
+        assertTrue(slice.getContent().stream().allMatch(beer -> beer.getQuantityOnHand() == null));
+        assertTrue(slice.getContent().stream().allMatch(beer -> beer.getId() != null && beer.getVersion() != null));
+
+        Slice<BeerDTO> withInventory = beerRepository.findDtoSliceBy(true, PageRequest.of(0, 25));
+        assertTrue(withInventory.getContent().stream().allMatch(beer -> beer.getQuantityOnHand() != null));
+    }
+
+    //BEER_DTO_SELECT passes its columns to BeerDTO by position, every field has to land in its own property
+    @Test
+    void testDtoProjectionFields() {
+        Beer beer = beerRepository.saveAndFlush(Beer.builder()
+                .beerName("Projection Check")
+                .beerStyle(BeerStyle.SAISON)
+                .upc("projection-upc")
+                .quantityOnHand(17)
+                .price(new BigDecimal("4.25"))
+                .build());
+
+        BeerDTO dto = beerRepository.findDtoSliceByBeerNameMatching("Projection Check", true, PageRequest.of(0, 1))
+                .getContent().get(0);
+
+        assertEquals(beer.getId(), dto.getId());
+        assertEquals(beer.getVersion(), dto.getVersion());
+        assertEquals("Projection Check", dto.getBeerName());
+        assertEquals(BeerStyle.SAISON, dto.getBeerStyle());
+        assertEquals("projection-upc", dto.getUpc());
+        assertEquals(17, dto.getQuantityOnHand());
+        assertEquals(0, new BigDecimal("4.25").compareTo(dto.getPrice()));
+        assertEquals(beer.getCreatedDate(), dto.getCreatedDate());
+        assertEquals(beer.getUpdateDate(), dto.getUpdateDate());
+    }
+
     @Test
     void testListBeersByStyleAndName() {
 
@@ -1,22 +1,54 @@
 package guru.springframework.spring6restmvc.repositories;
 
+import com.mysql.cj.MysqlConnection;
+import com.mysql.cj.Query;
+import com.mysql.cj.interceptors.QueryInterceptor;
+import com.mysql.cj.log.Log;
+import com.mysql.cj.protocol.Resultset;
+import com.mysql.cj.protocol.ServerSession;
 import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.model.BeerCsvImportReport;
+import guru.springframework.spring6restmvc.model.BeerCursor;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.services.BeerCsvImportProgress;
+import guru.springframework.spring6restmvc.services.BeerCsvImportService;
+import guru.springframework.spring6restmvc.services.BeerService;
+import guru.springframework.spring6restmvc.services.CustomerService;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.testcontainers.containers.MySQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 
 
 @Testcontainers
-@SpringBootTest
+//client side prepared statements (useCursorFetch turns server side ones back on) so SelectCapture sees the parameters
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.data-source-properties.useServerPrepStmts=false",
+        "spring.datasource.hikari.data-source-properties.useCursorFetch=false",
+        "spring.datasource.hikari.data-source-properties.queryInterceptors=" +
+                "guru.springframework.spring6restmvc.repositories.MySqlIT$SelectCapture"})
 @ActiveProfiles("localmysql")
 public class MySqlIT {
 
@@ -42,10 +74,166 @@ public class MySqlIT {
     @Autowired
     BeerRepository beerRepository;
 
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    BeerCsvImportService beerCsvImportService;
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    CustomerService customerService;
+
     @Test
     void testListBeers() {
         List<Beer> beers = beerRepository.findAll();
 
         assertThat(beers.size()).isGreaterThan(0);
     }
+
+    //the selects behind each listing, captured as the driver sends them (parameters inlined) and explained.
+    //Name searches sort their FULLTEXT matches, the other listings have to come out of the index in order
+    static Stream<Arguments> listings() {
+        BeerCursor after = new BeerCursor("M", new UUID(0L, 0L));
+
+        return Stream.of(
+                Arguments.of("all", (Consumer<BeerService>) beers -> beers.listBeers(null, null, false, 1, 25), true),
+                Arguments.of("by style", (Consumer<BeerService>) beers ->
+                        beers.listBeers(null, BeerStyle.IPA, false, 1, 25), true),
+                Arguments.of("by name", (Consumer<BeerService>) beers ->
+                        beers.listBeers("ipa", null, false, 1, 25), false),
+                Arguments.of("by name and style", (Consumer<BeerService>) beers ->
+                        beers.listBeers("ipa", BeerStyle.IPA, false, 1, 25), false),
+                Arguments.of("after cursor", (Consumer<BeerService>) beers ->
+                        beers.listBeersAfter(null, null, false, after, 25), true),
+                Arguments.of("by style after cursor", (Consumer<BeerService>) beers ->
+                        beers.listBeersAfter(null, BeerStyle.IPA, false, after, 25), true),
+                Arguments.of("by name after cursor", (Consumer<BeerService>) beers ->
+                        beers.listBeersAfter("ipa", null, false, after, 25), false));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("listings")
+    void testListQueriesUseIndex(String listing, Consumer<BeerService> list, boolean indexOrdered) {
+        jdbcTemplate.execute("analyze table beer");
+
+        List<String> selects = SelectCapture.capture(() -> list.accept(beerService));
+
+        assertThat(selects).as("selects of %s", listing).isNotEmpty();
+        selects.forEach(sql -> assertThat(jdbcTemplate.queryForList("explain " + sql)).allSatisfy(row -> {
+            assertThat(row.get("type")).as("access type for %s", sql).isNotEqualTo("ALL");
+            assertThat(row.get("key")).as("index for %s", sql).isNotNull();
+            if (indexOrdered) {
+                assertThat(String.valueOf(row.get("Extra"))).as("extra for %s", sql).doesNotContain("filesort");
+            }
+        }));
+    }
+
+    //orders of a page of customers are read through beer_order_customer_idx
+    @Test
+    void testCustomerOrdersUseIndex() {
+        jdbcTemplate.execute("analyze table customer, beer_order");
+
+        List<String> selects = SelectCapture.capture(() -> customerService.listCustomersWithOrders(1, 25)).stream()
+                .filter(sql -> sql.contains("beer_order"))
+                .toList();
+
+        assertThat(selects).isNotEmpty();
+        selects.forEach(sql -> assertThat(jdbcTemplate.queryForList("explain " + sql))
+                .anySatisfy(row -> assertThat(row.get("key")).isEqualTo("beer_order_customer_idx")));
+    }
+
+    //beers of a category: the category's rows of beer_category by index, each beer by primary key
+    @Test
+    void testCategoryListingUsesIndex() {
+        jdbcTemplate.execute("analyze table beer, beer_category");
+
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("explain select b.* from beer b " +
+                "join beer_category bc on bc.beer_id = b.id where bc.category_id = x'00000000000000000000000000000000' " +
+                "order by b.beer_name limit 25");
+
+        assertThat(plan).allSatisfy(row -> {
+            assertThat(row.get("type")).as("access type for %s", row.get("table")).isNotEqualTo("ALL");
+            assertThat(row.get("key")).as("index for %s", row.get("table")).isNotNull();
+        });
+        assertThat(plan).anySatisfy(row -> assertThat(row.get("key")).isEqualTo("beer_category_category_idx"));
+    }
+
+    //upserts go out as ON DUPLICATE KEY UPDATE here, the changed row keeps its id
+    @Test
+    void testUpsertCsvOnDuplicateKey() {
+        String csv = """
+                "row","count.x","beer","style"
+                "920001",5,"MySQL Upsert Beer","American IPA"
+                """;
+        beerCsvImportService.upsertCsv(new StringReader(csv), new BeerCsvImportProgress());
+        byte[] id = jdbcTemplate.queryForObject("select id from beer where upc = '920001'", byte[].class);
+
+        BeerCsvImportReport report = beerCsvImportService.upsertCsv(new StringReader(csv.replace(",5,", ",8,")),
+                new BeerCsvImportProgress());
+
+        assertThat(report.getBeersUpdated()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("select id, quantity_on_hand, version from beer where upc = '920001'"))
+                .singleElement()
+                .satisfies(row -> {
+                    assertThat((byte[]) row.get("id")).isEqualTo(id);
+                    assertThat(row.get("quantity_on_hand")).isEqualTo(8);
+                    assertThat(row.get("version")).isEqualTo(1);
+                });
+    }
+
+    /**
+     * Collects the selects the current thread sends while capturing. Registered through the
+     * queryInterceptors driver property; with client side prepared statements the SQL it sees
+     * has the parameters inlined, ready to be explained.
+     */
+    public static class SelectCapture implements QueryInterceptor {
+
+        private static final ThreadLocal<List<String>> SELECTS = new ThreadLocal<>();
+
+        static List<String> capture(Runnable action) {
+            List<String> selects = new ArrayList<>();
+            SELECTS.set(selects);
+            try {
+                action.run();
+            } finally {
+                SELECTS.remove();
+            }
+            return selects;
+        }
+
+        @Override
+        public QueryInterceptor init(MysqlConnection conn, Properties props, Log log) {
+            return this;
+        }
+
+        @Override
+        public <T extends Resultset> T preProcess(Supplier<String> sql, Query interceptedQuery) {
+            List<String> selects = SELECTS.get();
+            if (selects != null) {
+                String statement = sql.get().strip();
+                if (statement.regionMatches(true, 0, "select", 0, 6)) {
+                    selects.add(statement);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean executeTopLevelOnly() {
+            return true;
+        }
+
+        @Override
+        public void destroy() {
+        }
+
+        @Override
+        public <T extends Resultset> T postProcess(Supplier<String> sql, Query interceptedQuery, T originalResultSet,
+                                                  ServerSession serverSession) {
+            return originalResultSet;
+        }
+    }
 }
@@ -0,0 +1,186 @@
+package guru.springframework.spring6restmvc.repositories;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.entities.Category;
+import guru.springframework.spring6restmvc.entities.Customer;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.services.BeerService;
+import guru.springframework.spring6restmvc.services.CustomerService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class SecondLevelCacheIT {
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    CustomerService customerService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Statistics statistics;
+    Beer beer;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+
+        beer = beerRepository.save(Beer.builder()
+                .beerName("Cached Beer")
+                .beerStyle(BeerStyle.GOSE)
+                .upc("424242")
+                .price(new BigDecimal("8.25"))
+                .quantityOnHand(30)
+                .build());
+    }
+
+    @Test
+    void testFindByIdServedFromCache() {
+        beerRepository.findById(beer.getId());
+
+        statistics.clear();
+        assertThat(beerRepository.findById(beer.getId())).isPresent();
+        assertThat(beerService.getBeerById(beer.getId())).isPresent();
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(region("beer").getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testUpdateReplacesCachedBeer() {
+        beerRepository.findById(beer.getId());
+
+        beerService.updateBeerById(beer.getId(), BeerDTO.builder()
+                .version(beer.getVersion())
+                .beerName("Updated Cached Beer")
+                .beerStyle(BeerStyle.GOSE)
+                .upc("424242")
+                .price(new BigDecimal("9.25"))
+                .build());
+
+        statistics.clear();
+        Beer cached = beerRepository.findById(beer.getId()).orElseThrow();
+
+        assertThat(cached.getBeerName()).isEqualTo("Updated Cached Beer");
+        assertThat(cached.getVersion()).isEqualTo(beer.getVersion() + 1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void testDeleteEvictsBeerAndNeedsNoLookup() {
+        beerRepository.findById(beer.getId());
+
+        statistics.clear();
+        assertThat(beerService.deleteById(beer.getId())).isTrue();
+
+        //only the delete itself (and its beer_category cleanup), the lookup came from the cache
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(region("beer").getHitCount()).isGreaterThanOrEqualTo(1);
+
+        assertThat(beerRepository.findById(beer.getId())).isEmpty();
+        assertThat(beerService.deleteById(beer.getId())).isFalse();
+    }
+
+    @Test
+    void testListingServedFromQueryCacheUntilBeerChanges() {
+        beerService.listBeers(null, BeerStyle.GOSE, true, 1, 25);
+
+        statistics.clear();
+        assertThat(beerService.listBeers(null, BeerStyle.GOSE, true, 1, 25).getContent())
+                .extracting(BeerDTO::getBeerName).contains("Cached Beer");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryRegionStatistics("beer-queries").getHitCount()).isEqualTo(1);
+
+        beerService.patchBeerById(beer.getId(), BeerDTO.builder().beerName("Renamed Cached Beer").build());
+
+        statistics.clear();
+        assertThat(beerService.listBeers(null, BeerStyle.GOSE, true, 1, 25).getContent())
+                .filteredOn(listed -> listed.getId().equals(beer.getId()))
+                .extracting(BeerDTO::getBeerName).containsExactly("Renamed Cached Beer");
+        assertThat(statistics.getQueryRegionStatistics("beer-queries").getHitCount()).isZero();
+    }
+
+    @Test
+    void testCategoriesCachedWithBeerAndRefreshedOnChange() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Category category = categoryRepository.save(Category.builder().description("Cached Sours").build());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Beer managed = beerRepository.findById(beer.getId()).orElseThrow();
+            managed.addCategory(categoryRepository.findById(category.getId()).orElseThrow());
+        });
+        assertThat(categoryDescriptions()).containsExactly("Cached Sours");
+
+        statistics.clear();
+        assertThat(categoryDescriptions()).containsExactly("Cached Sours");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(region("beer-categories").getHitCount()).isEqualTo(1);
+
+        transactionTemplate.executeWithoutResult(status ->
+                beerRepository.findById(beer.getId()).orElseThrow().getCategories().clear());
+
+        assertThat(categoryDescriptions()).isEmpty();
+        Integer categoryBeers = transactionTemplate.execute(status ->
+                categoryRepository.findById(category.getId()).orElseThrow().getBeers().size());
+        assertThat(categoryBeers).isZero();
+    }
+
+    @Test
+    void testCustomerCachedUntilDeleted() {
+        Customer customer = customerRepository.save(Customer.builder().customerName("Cached Customer").build());
+        customerRepository.findById(customer.getId());
+
+        statistics.clear();
+        assertThat(customerService.getCustomerById(customer.getId())).isPresent();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(region("customer").getHitCount()).isEqualTo(1);
+
+        assertThat(customerService.deleteById(customer.getId())).isTrue();
+        assertThat(customerRepository.findById(customer.getId())).isEmpty();
+    }
+
+    private List<String> categoryDescriptions() {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                beerRepository.findById(beer.getId()).orElseThrow().getCategories().stream()
+                        .map(Category::getDescription)
+                        .toList());
+    }
+
+    private CacheRegionStatistics region(String regionName) {
+        return statistics.getDomainDataRegionStatistics(regionName);
+    }
+}
@@ -0,0 +1,120 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerOperationDTO;
+import guru.springframework.spring6restmvc.model.BeerOperationResultDTO;
+import guru.springframework.spring6restmvc.model.BeerOperationType;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class BeerBulkServiceImplTest {
+
+    BeerService beerService;
+    PlatformTransactionManager transactionManager;
+    BeerBulkServiceImpl beerBulkService;
+
+    @BeforeEach
+    void setUp() {
+        beerService = mock(BeerService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        given(transactionManager.getTransaction(any())).willReturn(mock(TransactionStatus.class));
+
+        beerBulkService = new BeerBulkServiceImpl(beerService,
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, 2);
+    }
+
+    @Test
+    void testOperationsAreChunked() {
+        given(beerService.saveNewBeer(any())).willAnswer(invocation -> {
+            BeerDTO beer = invocation.getArgument(0);
+            beer.setId(UUID.randomUUID());
+            return beer;
+        });
+
+        List<BeerOperationResultDTO> results = beerBulkService.execute(List.of(create(), create(), create()));
+
+        assertThat(results).extracting(BeerOperationResultDTO::getStatus).containsExactly(201, 201, 201);
+        assertThat(results).allSatisfy(result -> assertThat(result.getBeerId()).isNotNull());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testInvalidOperationsAreNotExecuted() {
+        BeerOperationDTO invalidCreate = BeerOperationDTO.builder().operation(BeerOperationType.CREATE)
+                .beer(BeerDTO.builder().beerName("No Style").upc("123").price(BigDecimal.ONE).build()).build();
+        BeerOperationDTO deleteWithoutId = BeerOperationDTO.builder().operation(BeerOperationType.DELETE).build();
+
+        List<BeerOperationResultDTO> results = beerBulkService.execute(List.of(invalidCreate, deleteWithoutId));
+
+        assertThat(results).extracting(BeerOperationResultDTO::getStatus).containsExactly(400, 400);
+        assertThat(results.get(0).getErrors()).anySatisfy(error -> assertThat(error).containsKey("beer.beerStyle"));
+        assertThat(results.get(1).getErrors()).anySatisfy(error -> assertThat(error).containsKey("beerId"));
+        verify(beerService, never()).saveNewBeer(any());
+        verify(beerService, never()).deleteById(any());
+    }
+
+    @Test
+    void testPatchOnlyValidatesSetFields() {
+        UUID beerId = UUID.randomUUID();
+        given(beerService.patchBeerById(any(), any())).willReturn(Optional.of(BeerDTO.builder().build()));
+
+        List<BeerOperationResultDTO> results = beerBulkService.execute(List.of(
+                BeerOperationDTO.builder().operation(BeerOperationType.PATCH).beerId(beerId)
+                        .beer(BeerDTO.builder().price(new BigDecimal("9.99")).build()).build()));
+
+        assertThat(results.get(0).getStatus()).isEqualTo(204);
+    }
+
+    @Test
+    void testFailedChunkIsRetriedOneByOne() {
+        UUID staleId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        given(beerService.updateBeerById(any(), any()))
+                .willThrow(new OptimisticLockingFailureException("stale"));
+        given(beerService.deleteById(missingId)).willReturn(false);
+
+        beerBulkService = new BeerBulkServiceImpl(beerService,
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, 10);
+
+        List<BeerOperationResultDTO> results = beerBulkService.execute(List.of(
+                BeerOperationDTO.builder().operation(BeerOperationType.DELETE).beerId(missingId).build(),
+                BeerOperationDTO.builder().operation(BeerOperationType.UPDATE).beerId(staleId).beer(beer()).build()));
+
+        assertThat(results).extracting(BeerOperationResultDTO::getStatus).containsExactly(404, 409);
+        //the chunk and the retried update are rolled back, the retried delete commits
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(beerService, times(2)).deleteById(missingId);
+    }
+
+    private BeerOperationDTO create() {
+        return BeerOperationDTO.builder().operation(BeerOperationType.CREATE).beer(beer()).build();
+    }
+
+    private BeerDTO beer() {
+        return BeerDTO.builder()
+                .beerName("Bulk Beer")
+                .beerStyle(BeerStyle.IPA)
+                .upc("123456")
+                .price(new BigDecimal("10.99"))
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BeerCountCacheTest {
+
+    BeerCountCache beerCountCache = new BeerCountCache(Duration.ofMinutes(1), 10);
+
+    @Test
+    void testCountIsCachedPerFilter() {
+        AtomicInteger countQueries = new AtomicInteger();
+
+        beerCountCache.get("IPA", BeerStyle.IPA, () -> countQueries.incrementAndGet() * 100L);
+        long cached = beerCountCache.get("ipa", BeerStyle.IPA, () -> countQueries.incrementAndGet() * 100L);
+        beerCountCache.get("IPA", null, () -> countQueries.incrementAndGet() * 100L);
+
+        assertThat(cached).isEqualTo(100L);
+        assertThat(countQueries.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testInvalidateAllForcesReload() {
+        beerCountCache.get(null, BeerStyle.ALE, () -> 5L);
+        beerCountCache.invalidateAll();
+
+        assertThat(beerCountCache.get(null, BeerStyle.ALE, () -> 6L)).isEqualTo(6L);
+    }
+
+    @Test
+    void testZeroTtlDisablesCaching() {
+        BeerCountCache noCache = new BeerCountCache(Duration.ZERO, 10);
+
+        noCache.get(null, null, () -> 1L);
+
+        assertThat(noCache.get(null, null, () -> 2L)).isEqualTo(2L);
+    }
+}
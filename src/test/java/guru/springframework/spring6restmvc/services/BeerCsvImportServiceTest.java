@@ -0,0 +1,144 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerCsvImportReport;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ResourceUtils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({BeerCsvServiceImpl.class, BeerCsvImportServiceImpl.class, BeerCsvUpsertWriter.class,
+        BeerStyleTable.class, BeerCountCache.class, InventoryServiceJPA.class, LocalValidatorFactoryBean.class})
+@TestPropertySource(properties = "beer.csv-import.chunk-size=1000")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BeerCsvImportServiceTest {
+
+    @Autowired
+    BeerCsvImportService beerCsvImportService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerStyleTable beerStyleTable;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    BeerCountCache beerCountCache;
+
+    @Test
+    void testImportCsvInChunks() throws FileNotFoundException {
+        File file = ResourceUtils.getFile("classpath:csvdata/beers.csv");
+        long beersBefore = beerRepository.count();
+
+        BeerCsvImportReport report = beerCsvImportService.importCsv(file);
+
+        assertThat(report.getRowsRead()).isEqualTo(2410);
+        assertThat(report.getBeersInserted()).isEqualTo(2410);
+        assertThat(report.getRowsRejected()).isZero();
+        assertThat(report.getChunksCommitted()).isEqualTo(3);
+        assertThat(beerRepository.count()).isEqualTo(beersBefore + 2410);
+    }
+
+    @Test
+    void testImportCsvRejectsInvalidRows() {
+        String csv = """
+                "row","count.x","beer","style"
+                "1",5,"Good Beer","American IPA"
+                "2",7,"","American IPA"
+                "three",9,"Bad Row Beer","American Porter"
+                "4",3,"Another Beer",
+                """;
+
+        BeerCsvImportReport report = beerCsvImportService.importCsv(new StringReader(csv));
+
+        assertThat(report.getRowsRead()).isEqualTo(4);
+        assertThat(report.getBeersInserted()).isEqualTo(2);
+        assertThat(report.getRowsRejected()).isEqualTo(2);
+        assertThat(beerStyleTable.lookup(null)).isEqualTo(BeerStyle.PILSNER);
+    }
+
+    @Test
+    void testUpsertCsvWritesOnlyNewAndChangedRows() {
+        String csv = """
+                "row","count.x","beer","style"
+                "900001",5,"Upsert Beer 1","American IPA"
+                "900002",7,"Upsert Beer 2","American Porter"
+                "900003",9,"Upsert Beer 3","Saison / Farmhouse Ale"
+                """;
+        long beersBefore = beerRepository.count();
+
+        BeerCsvImportReport first = beerCsvImportService.upsertCsv(new StringReader(csv), new BeerCsvImportProgress());
+        assertThat(first.getBeersInserted()).isEqualTo(3);
+        assertThat(beerRepository.count()).isEqualTo(beersBefore + 3);
+
+        BeerCsvImportReport again = beerCsvImportService.upsertCsv(new StringReader(csv), new BeerCsvImportProgress());
+        assertThat(again.getRowsRead()).isEqualTo(3);
+        assertThat(again.getBeersInserted()).isZero();
+        assertThat(again.getBeersUpdated()).isZero();
+        assertThat(again.getRowsUnchanged()).isEqualTo(3);
+
+        String changed = csv.replace("\"900002\",7", "\"900002\",70")
+                + "\"900004\",1,\"Upsert Beer 4\",\"American IPA\"\n";
+        BeerCsvImportReport update = beerCsvImportService.upsertCsv(new StringReader(changed),
+                new BeerCsvImportProgress());
+
+        assertThat(update.getBeersInserted()).isEqualTo(1);
+        assertThat(update.getBeersUpdated()).isEqualTo(1);
+        assertThat(update.getRowsUnchanged()).isEqualTo(2);
+        assertThat(beerRepository.count()).isEqualTo(beersBefore + 4);
+        assertThat(jdbcTemplate.queryForMap("select quantity_on_hand, version from beer where upc = '900002'"))
+                .containsEntry("QUANTITY_ON_HAND", 70)
+                .containsEntry("VERSION", 1);
+    }
+
+    //an update only, no new UPC, still moves the beer from one style count to another
+    @Test
+    void testUpsertCsvUpdateInvalidatesCounts() {
+        String csv = """
+                "row","count.x","beer","style"
+                "920101",5,"Restyled Beer","American IPA"
+                """;
+        beerCsvImportService.upsertCsv(new StringReader(csv), new BeerCsvImportProgress());
+        long stouts = beerCountCache.get(null, BeerStyle.STOUT, () -> beerRepository.countByBeerStyle(BeerStyle.STOUT));
+
+        BeerCsvImportReport report = beerCsvImportService.upsertCsv(
+                new StringReader(csv.replace("American IPA", "Oatmeal Stout")), new BeerCsvImportProgress());
+
+        assertThat(report.getBeersUpdated()).isEqualTo(1);
+        assertThat(beerCountCache.get(null, BeerStyle.STOUT, () -> beerRepository.countByBeerStyle(BeerStyle.STOUT)))
+                .isEqualTo(stouts + 1);
+    }
+
+    @Test
+    void testUpsertCsvLastRowWins() {
+        String csv = """
+                "row","count.x","beer","style"
+                "910001",5,"First Name","American IPA"
+                "910001",6,"Second Name","American IPA"
+                """;
+
+        BeerCsvImportReport report = beerCsvImportService.upsertCsv(new StringReader(csv), new BeerCsvImportProgress());
+
+        assertThat(report.getBeersInserted()).isEqualTo(1);
+        assertThat(report.getRowsUnchanged()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("select beer_name from beer where upc = '910001'", String.class))
+                .containsExactly("Second Name");
+    }
+}
@@ -0,0 +1,104 @@
+package guru.springframework.spring6restmvc.services;
+
+import com.opencsv.bean.CsvToBeanBuilder;
+import guru.springframework.spring6restmvc.model.BeerCSVRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BeerCsvParserTest {
+
+    @Test
+    void testMatchesOpenCsvOnBeersCsv() throws IOException {
+        List<BeerCSVRecord> expected;
+        try (Reader reader = beersCsv()) {
+            expected = new CsvToBeanBuilder<BeerCSVRecord>(reader).withType(BeerCSVRecord.class).build().parse();
+        }
+
+        List<BeerCSVRecord> parsed = new ArrayList<>();
+        try (Reader reader = beersCsv()) {
+            BeerCsvParser parser = new BeerCsvParser(reader);
+            while (parser.next()) {
+                parsed.add(parser.toRecord());
+            }
+        }
+
+        assertThat(parsed).hasSize(2410);
+        assertThat(parsed).extracting(BeerCSVRecord::getRow, BeerCSVRecord::getCount, BeerCSVRecord::getBeer,
+                        BeerCSVRecord::getStyle)
+                .containsExactlyElementsOf(expected.stream()
+                        .map(beerCSVRecord -> org.assertj.core.groups.Tuple.tuple(beerCSVRecord.getRow(),
+                                beerCSVRecord.getCount(), beerCSVRecord.getBeer(), beerCSVRecord.getStyle()))
+                        .toList());
+    }
+
+    @Test
+    void testQuotingAndLineEndings() throws IOException {
+        String csv = "\"label\",\"beer\",\"row\",\"style\",\"count.x\"\r\n" +
+                "\"a, b\",\"Say \"\"Cheers\"\"\",1,\"American IPA\",4\r\n" +
+                "\r\n" +
+                "\"multi\nline\",\"Two\nLines\",2,,\n" +
+                "x,Short,3";
+
+        BeerCsvParser parser = new BeerCsvParser(new StringReader(csv));
+
+        assertThat(parser.next()).isTrue();
+        assertThat(parser.getLineNumber()).isEqualTo(2);
+        assertThat(parser.getBeer()).isEqualTo("Say \"Cheers\"");
+        assertThat(parser.getRow()).isEqualTo(1);
+        assertThat(parser.getCount()).isEqualTo(4);
+        assertThat(parser.getStyle()).isEqualTo("American IPA");
+
+        assertThat(parser.next()).isTrue();
+        assertThat(parser.getLineNumber()).isEqualTo(4);
+        assertThat(parser.getBeer()).isEqualTo("Two\nLines");
+        assertThat(parser.getStyle()).isNull();
+        assertThat(parser.getCount()).isNull();
+
+        assertThat(parser.next()).isTrue();
+        assertThat(parser.getLineNumber()).isEqualTo(7);
+        assertThat(parser.getBeer()).isEqualTo("Short");
+        assertThat(parser.getStyle()).isNull();
+
+        assertThat(parser.next()).isFalse();
+    }
+
+    @Test
+    void testNumbers() throws IOException {
+        BeerCsvParser parser = new BeerCsvParser(new StringReader("""
+                row,count.x
+                -12,2147483647
+                three,1
+                1,2147483648
+                """));
+
+        assertThat(parser.next()).isTrue();
+        assertThat(parser.getRow()).isEqualTo(-12);
+        assertThat(parser.getCount()).isEqualTo(Integer.MAX_VALUE);
+
+        assertThat(parser.next()).isTrue();
+        assertThatThrownBy(parser::getRow).isInstanceOf(NumberFormatException.class).hasMessageContaining("three");
+
+        assertThat(parser.next()).isTrue();
+        assertThatThrownBy(parser::getCount).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void testEmptyInput() throws IOException {
+        assertThat(new BeerCsvParser(new StringReader("")).next()).isFalse();
+    }
+
+    private static Reader beersCsv() throws IOException {
+        return new InputStreamReader(new ClassPathResource("csvdata/beers.csv").getInputStream(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,110 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerImportJobDTO;
+import guru.springframework.spring6restmvc.model.BeerImportJobStatus;
+import guru.springframework.spring6restmvc.model.BeerImportMode;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({BeerCsvServiceImpl.class, BeerCsvImportServiceImpl.class, BeerCsvUpsertWriter.class, BeerStyleTable.class,
+        BeerImportJobServiceImpl.class, BeerCountCache.class, InventoryServiceJPA.class, LocalValidatorFactoryBean.class})
+@TestPropertySource(properties = {"beer.csv-import.chunk-size=100", "beer.csv-import.writer-threads=3"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BeerImportJobServiceImplTest {
+
+    @Autowired
+    BeerImportJobService beerImportJobService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Test
+    void testImportRunsInBackground() throws Exception {
+        long beersBefore = beerRepository.count();
+
+        BeerImportJobDTO submitted;
+        try (InputStream csv = new ClassPathResource("csvdata/beers.csv").getInputStream()) {
+            submitted = beerImportJobService.submitImport("beers.csv", csv, BeerImportMode.INSERT);
+        }
+        assertThat(submitted.getStatus()).isIn(BeerImportJobStatus.QUEUED, BeerImportJobStatus.RUNNING);
+
+        BeerImportJobDTO finished = beerImportJobService.awaitJob(submitted.getId(), Duration.ofMinutes(1)).orElseThrow();
+
+        assertThat(finished.getStatus()).isEqualTo(BeerImportJobStatus.COMPLETED);
+        assertThat(finished.getRowsRead()).isEqualTo(2410);
+        assertThat(finished.getBeersInserted()).isEqualTo(2410);
+        assertThat(finished.getRowsRejected()).isZero();
+        assertThat(finished.getChunksCommitted()).isEqualTo(25);
+        assertThat(finished.getRowsPerSecond()).isPositive();
+        assertThat(finished.getFinishedDate()).isNotNull();
+        assertThat(beerRepository.count()).isEqualTo(beersBefore + 2410);
+
+        assertThat(beerImportJobService.getJob(submitted.getId())).contains(finished);
+        assertThat(beerImportJobService.listJobs()).extracting(BeerImportJobDTO::getId).contains(submitted.getId());
+    }
+
+    @Test
+    void testUpsertTwiceLeavesBeersUnchanged() throws Exception {
+        long beersBefore = beerRepository.count();
+
+        BeerImportJobDTO first = upsertBeersCsv();
+        BeerImportJobDTO second = upsertBeersCsv();
+
+        assertThat(first.getMode()).isEqualTo(BeerImportMode.UPSERT);
+        assertThat(first.getBeersInserted()).isEqualTo(2410);
+        assertThat(second.getStatus()).isEqualTo(BeerImportJobStatus.COMPLETED);
+        assertThat(second.getBeersInserted()).isZero();
+        assertThat(second.getBeersUpdated()).isZero();
+        assertThat(second.getRowsUnchanged()).isEqualTo(2410);
+        assertThat(beerRepository.count()).isEqualTo(beersBefore + 2410);
+    }
+
+    private BeerImportJobDTO upsertBeersCsv() throws Exception {
+        try (InputStream csv = new ClassPathResource("csvdata/beers.csv").getInputStream()) {
+            UUID jobId = beerImportJobService.submitImport("beers.csv", csv, BeerImportMode.UPSERT).getId();
+            return beerImportJobService.awaitJob(jobId, Duration.ofMinutes(1)).orElseThrow();
+        }
+    }
+
+    @Test
+    void testRejectedRowsCounted() throws Exception {
+        String csv = """
+                "row","count.x","beer","style"
+                "1",5,"Good Beer","American IPA"
+                "2",7,"","American IPA"
+                "three",9,"Bad Row Beer","American Porter"
+                """;
+
+        UUID jobId = beerImportJobService.submitImport("rejects.csv",
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), BeerImportMode.INSERT).getId();
+        BeerImportJobDTO finished = beerImportJobService.awaitJob(jobId, Duration.ofMinutes(1)).orElseThrow();
+
+        assertThat(finished.getStatus()).isEqualTo(BeerImportJobStatus.COMPLETED);
+        assertThat(finished.getRowsRead()).isEqualTo(3);
+        assertThat(finished.getBeersInserted()).isEqualTo(1);
+        assertThat(finished.getRowsRejected()).isEqualTo(2);
+    }
+
+    @Test
+    void testUnknownJob() {
+        assertThat(beerImportJobService.getJob(UUID.randomUUID())).isEmpty();
+        assertThat(beerImportJobService.awaitJob(UUID.randomUUID(), Duration.ofMillis(10))).isEmpty();
+    }
+}
@@ -0,0 +1,177 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.entities.Customer;
+import guru.springframework.spring6restmvc.mappers.BeerMapperImpl;
+import guru.springframework.spring6restmvc.mappers.BeerOrderMapperImpl;
+import guru.springframework.spring6restmvc.mappers.CategoryMapperImpl;
+import guru.springframework.spring6restmvc.mappers.CustomerMapperImpl;
+import guru.springframework.spring6restmvc.mappers.DateMapperImpl;
+import guru.springframework.spring6restmvc.model.BeerOrderCreateDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderLineCreateDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderLineDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import guru.springframework.spring6restmvc.repositories.CustomerRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@Import({BeerOrderServiceJPA.class, BeerServiceJPA.class, CategoryServiceJPA.class,
+        BeerCountCache.class, InventoryServiceJPA.class,
+        BeerOrderMapperImpl.class, BeerMapperImpl.class, CustomerMapperImpl.class,
+        CategoryMapperImpl.class, DateMapperImpl.class})
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BeerOrderServiceJPATest {
+
+    static final int LINES = 20;
+
+    @Autowired
+    BeerOrderService beerOrderService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Customer customer;
+    List<Beer> beers;
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        customer = customerRepository.save(Customer.builder().customerName("Order Test").build());
+
+        beers = beerRepository.saveAll(IntStream.range(0, LINES)
+                .mapToObj(i -> Beer.builder()
+                        .beerName("Order Beer " + i)
+                        .beerStyle(BeerStyle.LAGER)
+                        .upc("12345" + i)
+                        .price(new BigDecimal("9.99"))
+                        .quantityOnHand(10)
+                        .build())
+                .toList());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testPlaceOrderAllocatesWhatIsOnHand() {
+        BeerOrderDTO order = beerOrderService.placeOrder(BeerOrderCreateDTO.builder()
+                .customerId(customer.getId())
+                .customerRef("allocation")
+                .beerOrderLines(List.of(
+                        line(beers.get(0).getId(), 4),
+                        line(beers.get(1).getId(), 11)))
+                .build());
+
+        assertThat(order.getId()).isNotNull();
+        assertThat(order.getCustomer().getId()).isEqualTo(customer.getId());
+        assertThat(order.getBeerOrderLines()).hasSize(2);
+        assertThat(allocated(order, beers.get(0).getId())).isEqualTo(4);
+        assertThat(allocated(order, beers.get(1).getId())).isEqualTo(0);
+
+        Beer allocatedBeer = beerRepository.findById(beers.get(0).getId()).orElseThrow();
+        assertThat(allocatedBeer.getQuantityOnHand()).isEqualTo(6);
+        assertThat(allocatedBeer.getVersion()).isEqualTo(beers.get(0).getVersion() + 1);
+        assertThat(beerRepository.findById(beers.get(1).getId()).orElseThrow().getQuantityOnHand()).isEqualTo(10);
+    }
+
+    @Test
+    void testPlaceOrderUnknownBeer() {
+        BeerOrderCreateDTO order = BeerOrderCreateDTO.builder()
+                .customerId(customer.getId())
+                .beerOrderLines(List.of(line(beers.get(0).getId(), 1), line(UUID.randomUUID(), 1)))
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> beerOrderService.placeOrder(order));
+        assertThat(beerRepository.findById(beers.get(0).getId()).orElseThrow().getQuantityOnHand()).isEqualTo(10);
+    }
+
+    @Test
+    void testStatementCountsDoNotGrowPerLine() {
+        statistics.clear();
+        BeerOrderDTO order = beerOrderService.placeOrder(BeerOrderCreateDTO.builder()
+                .customerId(customer.getId())
+                .beerOrderLines(beers.stream().map(beer -> line(beer.getId(), 1)).toList())
+                .build());
+        long placeStatements = statistics.getPrepareStatementCount();
+
+        //one conditional update per line is inherent, the line inserts go out batched
+        assertThat(order.getBeerOrderLines()).hasSize(LINES);
+        assertThat(placeStatements).isLessThanOrEqualTo(LINES + 6);
+
+        statistics.clear();
+        BeerOrderDTO fetched = beerOrderService.getOrderById(order.getId()).orElseThrow();
+        assertThat(fetched.getBeerOrderLines()).allSatisfy(line -> assertThat(line.getBeer().getBeerName()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        Page<BeerOrderDTO> page = beerOrderService.listOrders(1, 25);
+        assertThat(page.getContent()).isNotEmpty();
+        assertThat(page.getContent().get(0).getBeerOrderLines()).isNotEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void testConcurrentOrdersNeverOversell() throws Exception {
+        UUID beerId = beers.get(2).getId();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        List<Future<BeerOrderDTO>> futures = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            futures.add(executor.submit(() -> beerOrderService.placeOrder(BeerOrderCreateDTO.builder()
+                    .customerId(customer.getId())
+                    .beerOrderLines(List.of(line(beerId, 1)))
+                    .build())));
+        }
+
+        int allocatedTotal = 0;
+        for (Future<BeerOrderDTO> future : futures) {
+            allocatedTotal += allocated(future.get(), beerId);
+        }
+        executor.shutdown();
+
+        assertThat(allocatedTotal).isEqualTo(10);
+        assertThat(beerRepository.findById(beerId).orElseThrow().getQuantityOnHand()).isEqualTo(0);
+    }
+
+    private static BeerOrderLineCreateDTO line(UUID beerId, int quantity) {
+        return BeerOrderLineCreateDTO.builder().beerId(beerId).orderQuantity(quantity).build();
+    }
+
+    private static int allocated(BeerOrderDTO order, UUID beerId) {
+        return order.getBeerOrderLines().stream()
+                .filter(line -> line.getBeer().getId().equals(beerId))
+                .mapToInt(BeerOrderLineDTO::getQuantityAllocated)
+                .sum();
+    }
+}
@@ -0,0 +1,113 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.mappers.BeerMapper;
+import guru.springframework.spring6restmvc.mappers.BeerMapperImpl;
+import guru.springframework.spring6restmvc.mappers.CategoryMapperImpl;
+import guru.springframework.spring6restmvc.mappers.DateMapperImpl;
+import guru.springframework.spring6restmvc.model.BeerCSVRecord;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ResourceUtils;
+
+import java.io.FileNotFoundException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Saves csvdata/beers.csv once row by row (one transaction and insert per beer) and once through
+ * saveNewBeers, comparing elapsed time and the number of JDBC statements Hibernate prepared.
+ */
+@DataJpaTest
+@Import({BeerServiceJPA.class, CategoryServiceJPA.class, BeerMapperImpl.class, CategoryMapperImpl.class,
+        DateMapperImpl.class, BeerCountCache.class, InventoryServiceJPA.class})
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BeerServiceJPABatchTest {
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerMapper beerMapper;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    List<BeerDTO> csvBeers;
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() throws FileNotFoundException {
+        List<BeerCSVRecord> recs = new BeerCsvServiceImpl()
+                .convertCSV(ResourceUtils.getFile("classpath:csvdata/beers.csv"));
+
+        BeerStyleTable beerStyleTable = new BeerStyleTable(new ClassPathResource("csvdata/beer-styles.csv"), BeerStyle.PILSNER);
+        LocalDateTime createdDate = LocalDateTime.now();
+
+        csvBeers = recs.stream()
+                .map(rec -> BeerCsvImportServiceImpl.toBeer(rec, beerStyleTable.lookup(rec.getStyle()), createdDate))
+                .map(beerMapper::beerToBeerDto)
+                .toList();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testSaveNewBeersBatchedVersusOneByOne() {
+        long beersBefore = beerRepository.count();
+
+        statistics.clear();
+        long start = System.nanoTime();
+        csvBeers.forEach(beerService::saveNewBeer);
+        long oneByOneMillis = (System.nanoTime() - start) / 1_000_000;
+        long oneByOneStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        start = System.nanoTime();
+        List<BeerDTO> savedBeers = beerService.saveNewBeers(csvBeers);
+        long batchedMillis = (System.nanoTime() - start) / 1_000_000;
+        long batchedStatements = statistics.getPrepareStatementCount();
+
+        System.out.println("One by one: " + oneByOneMillis + " ms, " + oneByOneStatements + " statements");
+        System.out.println("Batched:    " + batchedMillis + " ms, " + batchedStatements + " statements");
+
+        assertThat(savedBeers).hasSize(csvBeers.size());
+        assertThat(savedBeers.get(0).getId()).isNotNull();
+        assertThat(savedBeers.get(0).getVersion()).isNotNull();
+        assertThat(beerRepository.count()).isEqualTo(beersBefore + 2L * csvBeers.size());
+        assertThat(batchedStatements).isLessThan(oneByOneStatements / 10);
+    }
+
+    @Test
+    void testSaveNewBeersIgnoresClientIdAndVersion() {
+        BeerDTO sent = csvBeers.get(0).toBuilder()
+                .id(UUID.randomUUID())
+                .version(7)
+                .build();
+
+        BeerDTO saved = beerService.saveNewBeers(List.of(sent)).get(0);
+
+        assertThat(saved.getId()).isNotEqualTo(sent.getId());
+        assertThat(saved.getVersion()).isZero();
+        assertThat(beerRepository.findById(saved.getId())).isPresent();
+    }
+}
@@ -0,0 +1,37 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BeerStyleTableTest {
+
+    BeerStyleTable beerStyleTable = new BeerStyleTable(new ClassPathResource("csvdata/beer-styles.csv"), BeerStyle.PILSNER);
+
+    @Test
+    void testLookup() {
+        assertThat(beerStyleTable.lookup("American IPA")).isEqualTo(BeerStyle.IPA);
+        assertThat(beerStyleTable.lookup("Saison / Farmhouse Ale")).isEqualTo(BeerStyle.SAISON);
+        assertThat(beerStyleTable.lookup(new StringBuilder("English Pale Ale"))).isEqualTo(BeerStyle.PALE_ALE);
+        assertThat(beerStyleTable.lookup("American Adjunct Lager")).isEqualTo(BeerStyle.PILSNER);
+        assertThat(beerStyleTable.lookup("")).isEqualTo(BeerStyle.PILSNER);
+        assertThat(beerStyleTable.lookup(null)).isEqualTo(BeerStyle.PILSNER);
+    }
+
+    @Test
+    void testUnknownBeerStyleInTable() {
+        ByteArrayResource table = new ByteArrayResource("""
+                "style","beerStyle"
+                "Lambic","SOUR"
+                """.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> new BeerStyleTable(table, BeerStyle.PILSNER))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
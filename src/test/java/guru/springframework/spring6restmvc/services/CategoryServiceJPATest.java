@@ -0,0 +1,161 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.entities.Category;
+import guru.springframework.spring6restmvc.mappers.BeerMapperImpl;
+import guru.springframework.spring6restmvc.mappers.CategoryMapperImpl;
+import guru.springframework.spring6restmvc.mappers.DateMapperImpl;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.model.CategoryDTO;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import guru.springframework.spring6restmvc.repositories.CategoryRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import({CategoryServiceJPA.class, BeerServiceJPA.class, BeerCountCache.class, InventoryServiceJPA.class,
+        CategoryMapperImpl.class, BeerMapperImpl.class, DateMapperImpl.class})
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CategoryServiceJPATest {
+
+    @Autowired
+    CategoryServiceJPA categoryService;
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Statistics statistics;
+    Category seasonal;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        seasonal = new TransactionTemplate(transactionManager).execute(status -> {
+            Category category = categoryRepository.save(Category.builder().description("Seasonal " + System.nanoTime()).build());
+            IntStream.range(0, 3).forEach(i -> {
+                Beer beer = Beer.builder()
+                        .beerName("Seasonal Beer " + i)
+                        .beerStyle(BeerStyle.ALE)
+                        .upc("5551" + i)
+                        .price(new BigDecimal("6.49"))
+                        .quantityOnHand(12)
+                        .build();
+                beer.addCategory(category);
+                beerRepository.save(beer);
+            });
+            return category;
+        });
+        categoryService.invalidate();
+    }
+
+    @Test
+    void testListingByCategoryServedFromMemory() {
+        categoryService.listCategories();
+
+        statistics.clear();
+        Page<BeerDTO> page = beerService.listBeersByCategory(seasonal.getDescription().toUpperCase(), true, 1, 25);
+        Page<BeerDTO> byId = beerService.listBeersByCategory(seasonal.getId().toString(), true, 1, 25);
+
+        //only the two listings, the category is resolved in memory and the total comes from the short pages
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(BeerDTO::getBeerName)
+                .containsExactly("Seasonal Beer 0", "Seasonal Beer 1", "Seasonal Beer 2");
+        assertThat(byId.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void testUnknownCategoryListsNothing() {
+        categoryService.listCategories();
+
+        statistics.clear();
+        assertThat(beerService.listBeersByCategory("No Such Category", true, 1, 25)).isEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void testWritesRefreshCategories() {
+        CategoryDTO saved = categoryService.saveNewCategory(CategoryDTO.builder().description("Limited").build());
+        assertThat(categoryService.findCategory("limited")).contains(saved);
+
+        categoryService.updateCategoryById(saved.getId(), CategoryDTO.builder().description("Limited Edition").build());
+        assertThat(categoryService.findCategory("Limited")).isEmpty();
+        assertThat(categoryService.getCategoryById(saved.getId()).orElseThrow().getDescription())
+                .isEqualTo("Limited Edition");
+
+        assertThat(categoryService.deleteById(saved.getId())).isTrue();
+        assertThat(categoryService.getCategoryById(saved.getId())).isEmpty();
+    }
+
+    @Test
+    void testDescriptionsUniqueIgnoringCase() {
+        CategoryDTO ale = categoryService.saveNewCategory(CategoryDTO.builder().description("Cask Ale").build());
+        CategoryDTO lager = categoryService.saveNewCategory(CategoryDTO.builder().description("Cask Lager").build());
+
+        assertThatThrownBy(() -> categoryService.saveNewCategory(CategoryDTO.builder().description("CASK ALE").build()))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThatThrownBy(() -> categoryService.updateCategoryById(lager.getId(),
+                CategoryDTO.builder().description("cask ale").build()))
+                .isInstanceOf(DuplicateKeyException.class);
+
+        //a change of case of its own description is fine
+        assertThat(categoryService.updateCategoryById(ale.getId(), CategoryDTO.builder().description("CASK ALE").build()))
+                .isPresent();
+        assertThat(categoryService.findCategory("cask ale").orElseThrow().getId()).isEqualTo(ale.getId());
+
+        categoryService.deleteById(ale.getId());
+        categoryService.deleteById(lager.getId());
+    }
+
+    //the listing is every category, including one saved before descriptions were unique
+    @Test
+    void testListingHasEveryCategory() {
+        Category undescribed = categoryRepository.save(Category.builder().build());
+
+        assertThat(categoryService.listCategories()).hasSize((int) categoryRepository.count())
+                .extracting(CategoryDTO::getId).contains(undescribed.getId());
+        categoryService.deleteById(undescribed.getId());
+    }
+
+    @Test
+    void testDeleteUnlinksBeers() {
+        assertThat(categoryService.deleteById(seasonal.getId())).isTrue();
+
+        assertThat(categoryRepository.findById(seasonal.getId())).isEmpty();
+        assertThat(beerService.listBeersByCategory(seasonal.getId().toString(), true, 1, 25)).isEmpty();
+        assertThat(beerRepository.findAll()).extracting(Beer::getBeerName).contains("Seasonal Beer 0");
+    }
+}
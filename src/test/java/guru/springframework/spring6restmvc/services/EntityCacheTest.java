@@ -0,0 +1,124 @@
+package guru.springframework.spring6restmvc.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.CustomerDTO;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.cache.type=caffeine")
+class EntityCacheTest {
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    CustomerService customerService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Cache<Object, Object> beerCache;
+    Cache<Object, Object> customerCache;
+
+    @BeforeEach
+    void setUp() {
+        beerCache = nativeCache("beerCache");
+        customerCache = nativeCache("customerCache");
+        beerCache.invalidateAll();
+        customerCache.invalidateAll();
+    }
+
+    @Test
+    void testGetBeerByIdHitsCacheUntilPatched() {
+        Beer beer = beerRepository.findAll().get(0);
+        long hits = beerCache.stats().hitCount();
+
+        beerService.getBeerById(beer.getId());
+        beerService.getBeerById(beer.getId());
+
+        assertThat(beerCache.stats().hitCount()).isEqualTo(hits + 1);
+
+        beerService.patchBeerById(beer.getId(), BeerDTO.builder().beerName("Patched Cached Beer").build());
+
+        assertThat(beerCache.getIfPresent(beer.getId())).isNull();
+        assertThat(beerService.getBeerById(beer.getId()).get().getBeerName()).isEqualTo("Patched Cached Beer");
+    }
+
+    //another request reads the beer, and the count, while the write is not committed yet
+    @Test
+    void testReadsBeforeCommitAreNotCachedPastIt() {
+        Beer beer = beerRepository.findAll().get(0);
+        long total = beerService.listBeers(null, null, false, 1, 25).getTotalElements();
+
+        BeerDTO savedBeer = new TransactionTemplate(transactionManager).execute(status -> {
+            beerService.patchBeerById(beer.getId(), BeerDTO.builder().beerName("Committed Cached Beer").build());
+            BeerDTO saved = beerService.saveNewBeer(BeerDTO.builder()
+                    .beerName("Counted After Commit")
+                    .beerStyle(beer.getBeerStyle())
+                    .upc("cache-commit")
+                    .price(new BigDecimal("3.99"))
+                    .build());
+
+            CompletableFuture.runAsync(() -> {
+                beerService.getBeerById(beer.getId());
+                beerService.listBeers(null, null, false, 1, 25);
+            }).join();
+            return saved;
+        });
+
+        assertThat(beerService.getBeerById(beer.getId()).get().getBeerName()).isEqualTo("Committed Cached Beer");
+        assertThat(beerService.listBeers(null, null, false, 1, 25).getTotalElements()).isEqualTo(total + 1);
+        beerService.deleteById(savedBeer.getId());
+    }
+
+    @Test
+    void testMissingBeerIsNotCached() {
+        UUID missingId = UUID.randomUUID();
+
+        assertThat(beerService.getBeerById(missingId)).isEmpty();
+        assertThat(beerService.getBeerById(missingId)).isEmpty();
+        assertThat(beerCache.getIfPresent(missingId)).isNull();
+    }
+
+    @Test
+    void testDeleteCustomerEvictsCache() {
+        CustomerDTO savedCustomer = customerService.saveNewCustomer(CustomerDTO.builder()
+                .customerName("Cached Customer")
+                .build());
+
+        assertThat(customerService.getCustomerById(savedCustomer.getId())).isPresent();
+        assertThat(customerCache.getIfPresent(savedCustomer.getId())).isNotNull();
+
+        customerService.deleteById(savedCustomer.getId());
+
+        assertThat(customerService.getCustomerById(savedCustomer.getId())).isEmpty();
+    }
+
+    private Cache<Object, Object> nativeCache(String name) {
+        TransactionAwareCacheDecorator cache = (TransactionAwareCacheDecorator) cacheManager.getCache(name);
+        return ((CaffeineCache) cache.getTargetCache()).getNativeCache();
+    }
+}
@@ -0,0 +1,155 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.entities.BeerOrder;
+import guru.springframework.spring6restmvc.entities.BeerOrderLine;
+import guru.springframework.spring6restmvc.entities.BeerOrderShipment;
+import guru.springframework.spring6restmvc.entities.Category;
+import guru.springframework.spring6restmvc.entities.Customer;
+import guru.springframework.spring6restmvc.mappers.BeerMapperImpl;
+import guru.springframework.spring6restmvc.mappers.BeerOrderMapperImpl;
+import guru.springframework.spring6restmvc.mappers.CategoryMapperImpl;
+import guru.springframework.spring6restmvc.mappers.CustomerMapperImpl;
+import guru.springframework.spring6restmvc.mappers.DateMapperImpl;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.model.BeerWithCategoriesDTO;
+import guru.springframework.spring6restmvc.model.CustomerWithOrdersDTO;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Loads a page of 1,000 beers with their categories and 1,000 customers with their orders, lines and
+ * shipments, counting the JDBC statements Hibernate prepared for each.
+ */
+@DataJpaTest
+@Import({BeerServiceJPA.class, CategoryServiceJPA.class, CustomerServiceJPA.class, BeerCountCache.class,
+        InventoryServiceJPA.class, BeerMapperImpl.class, CategoryMapperImpl.class, CustomerMapperImpl.class, BeerOrderMapperImpl.class,
+        DateMapperImpl.class})
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FetchPlanStatisticsTest {
+
+    static final int ROWS = 1000;
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    CustomerService customerService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        if (beerRepository.count() == 0) {
+            transactionTemplate.executeWithoutResult(status -> loadData());
+        }
+    }
+
+    @Test
+    void testBeersWithCategoriesInBoundedQueries() {
+        statistics.clear();
+        Page<BeerWithCategoriesDTO> page = beerService.listBeersWithCategories(1, ROWS);
+
+        //id page, count, beers joined to their categories
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        assertThat(page.getContent()).hasSize(ROWS);
+        assertThat(page.getContent()).allSatisfy(beer -> assertThat(beer.getCategories()).hasSize(2));
+    }
+
+    @Test
+    void testCustomersWithOrdersInBoundedQueries() {
+        statistics.clear();
+        Page<CustomerWithOrdersDTO> page = customerService.listCustomersWithOrders(1, ROWS);
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        assertThat(page.getContent()).hasSize(ROWS);
+        assertThat(page.getContent()).allSatisfy(customer -> {
+            assertThat(customer.getBeerOrders()).hasSize(1);
+            assertThat(customer.getBeerOrders().iterator().next().getBeerOrderLines()).hasSize(2);
+        });
+    }
+
+    @Test
+    void testLazyCategoriesLoadInBatches() {
+        statistics.clear();
+        int categories = transactionTemplate.execute(status ->
+                beerRepository.findAll(PageRequest.of(0, ROWS)).getContent().stream()
+                        .mapToInt(beer -> beer.getCategories().size())
+                        .sum());
+
+        //page, count and one load per 100 beers instead of one per beer
+        assertThat(categories).isEqualTo(ROWS * 2);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2 + ROWS / 100);
+    }
+
+    private void loadData() {
+        List<Category> categories = IntStream.range(0, 4)
+                .mapToObj(i -> Category.builder().description("Category " + i).build())
+                .toList();
+        categories.forEach(entityManager::persist);
+
+        for (int i = 0; i < ROWS; i++) {
+            Beer beer = Beer.builder()
+                    .beerName("Fetch Beer " + i)
+                    .beerStyle(BeerStyle.values()[i % BeerStyle.values().length])
+                    .upc("fetch" + i)
+                    .price(new BigDecimal("7.99"))
+                    .quantityOnHand(i)
+                    .build();
+            beer.addCategory(categories.get(i % 4));
+            beer.addCategory(categories.get((i + 1) % 4));
+            entityManager.persist(beer);
+
+            Customer customer = Customer.builder().customerName("Fetch Customer " + i).build();
+            entityManager.persist(customer);
+
+            BeerOrder beerOrder = BeerOrder.builder()
+                    .customerRef("fetch " + i)
+                    .customer(customer)
+                    .beerOrderShipment(BeerOrderShipment.builder().trackingNumber("track " + i).build())
+                    .build();
+            entityManager.persist(beerOrder);
+
+            entityManager.persist(BeerOrderLine.builder().beerOrder(beerOrder).beer(beer).orderQuantity(1).build());
+            entityManager.persist(BeerOrderLine.builder().beerOrder(beerOrder).beer(beer).orderQuantity(2).build());
+        }
+    }
+}
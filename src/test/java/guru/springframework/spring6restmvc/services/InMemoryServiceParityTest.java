@@ -0,0 +1,92 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryServiceParityTest extends ServiceParityScenarios {
+
+    static final int THREADS = 16;
+
+    BeerServiceImpl beerService;
+    CustomerServiceImpl customerService;
+
+    @BeforeEach
+    void setUp() {
+        beerService = new BeerServiceImpl(List.of());
+        customerService = new CustomerServiceImpl(List.of());
+    }
+
+    @Override
+    BeerService beerService() {
+        return beerService;
+    }
+
+    @Override
+    CustomerService customerService() {
+        return customerService;
+    }
+
+    //renames and allocations racing with listings, the indexes must end up matching the beers
+    @Test
+    void testConcurrentWritesKeepIndexesConsistent() throws Exception {
+        List<BeerDTO> beers = beerService.saveNewBeers(List.of(
+                beer("Hop One", BeerStyle.IPA, 1000),
+                beer("Hop Two", BeerStyle.IPA, 1000),
+                beer("Malt Three", BeerStyle.STOUT, 1000),
+                beer("Malt Four", BeerStyle.STOUT, 1000)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                int allocated = 0;
+                for (int j = 0; j < 500; j++) {
+                    int index = ThreadLocalRandom.current().nextInt(beers.size());
+                    BeerDTO beer = beers.get(index);
+                    if (ThreadLocalRandom.current().nextBoolean()) {
+                        String prefix = ThreadLocalRandom.current().nextBoolean() ? "Hop " : "Malt ";
+                        BeerStyle style = prefix.equals("Hop ") ? BeerStyle.IPA : BeerStyle.STOUT;
+                        beerService.patchBeerById(beer.getId(),
+                                BeerDTO.builder().beerName(prefix + index).beerStyle(style).build());
+                    } else if (beerService.allocateInventory(beer.getId(), 1)) {
+                        allocated++;
+                    }
+                    beerService.listBeers("hop", null, true, 1, 25);
+                }
+                return allocated;
+            }));
+        }
+        start.countDown();
+
+        int allocated = 0;
+        for (Future<Integer> future : futures) {
+            allocated += future.get();
+        }
+        executor.shutdown();
+
+        List<BeerDTO> all = beerService.listBeers(null, null, true, 1, 25).getContent();
+        assertThat(all).hasSize(4);
+        assertThat(all.stream().mapToInt(BeerDTO::getQuantityOnHand).sum()).isEqualTo(4000 - allocated);
+
+        List<String> hops = all.stream().map(BeerDTO::getBeerName).filter(name -> name.startsWith("Hop ")).toList();
+        assertThat(names(beerService.listBeers("hop", null, true, 1, 25))).containsExactlyElementsOf(hops);
+        assertThat(names(beerService.listBeers(null, BeerStyle.IPA, true, 1, 25))).containsExactlyElementsOf(hops);
+        assertThat(names(beerService.listBeers("malt", BeerStyle.STOUT, true, 1, 25)))
+                .hasSize(4 - hops.size());
+    }
+}
@@ -0,0 +1,338 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.entities.Customer;
+import guru.springframework.spring6restmvc.mappers.BeerMapperImpl;
+import guru.springframework.spring6restmvc.mappers.BeerOrderMapperImpl;
+import guru.springframework.spring6restmvc.mappers.CategoryMapperImpl;
+import guru.springframework.spring6restmvc.mappers.CustomerMapperImpl;
+import guru.springframework.spring6restmvc.mappers.DateMapperImpl;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderCreateDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderLineCreateDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.repositories.BeerOrderRepository;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import guru.springframework.spring6restmvc.repositories.CustomerRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({InventoryServiceWriteBehind.class, BeerOrderServiceJPA.class, BeerServiceJPA.class, CategoryServiceJPA.class,
+        BeerCountCache.class, BeerCsvUpsertWriter.class, BeerOrderMapperImpl.class, BeerMapperImpl.class, CustomerMapperImpl.class,
+        CategoryMapperImpl.class, DateMapperImpl.class})
+@TestPropertySource(properties = "beer.inventory.write-behind.enabled=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryServiceWriteBehindTest {
+
+    static final int THREADS = 32;
+
+    @Autowired
+    InventoryServiceWriteBehind inventoryService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ObjectProvider<CacheManager> cacheManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    BeerOrderService beerOrderService;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    BeerCsvUpsertWriter beerCsvUpsertWriter;
+
+    Beer beer;
+
+    @BeforeEach
+    void setUp() {
+        beer = beerRepository.save(Beer.builder()
+                .beerName("Promotion Beer")
+                .beerStyle(BeerStyle.PILSNER)
+                .upc("998877")
+                .price(new BigDecimal("5.99"))
+                .quantityOnHand(1000)
+                .build());
+    }
+
+    @Test
+    void testConcurrentReservationsNeverOversell() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread flusher = Thread.ofPlatform().start(() -> {
+            while (running.get()) {
+                inventoryService.flush();
+            }
+        });
+
+        List<Integer> reservedPerThread = runConcurrently(() -> {
+            int reserved = 0;
+            for (int i = 0; i < 5000; i++) {
+                if (inventoryService.reserve(beer.getId(), 1)) {
+                    reserved++;
+                }
+            }
+            return reserved;
+        });
+
+        running.set(false);
+        flusher.join();
+        inventoryService.flush();
+
+        assertThat(reservedPerThread.stream().mapToInt(Integer::intValue).sum()).isEqualTo(1000);
+        assertThat(inventoryService.availableStock(beer.getId())).isEqualTo(0);
+
+        Beer flushed = beerRepository.findById(beer.getId()).orElseThrow();
+        assertThat(flushed.getQuantityOnHand()).isEqualTo(0);
+        assertThat(flushed.getVersion()).isGreaterThan(beer.getVersion());
+    }
+
+    @Test
+    void testReservationsAndReleasesAddUp() throws Exception {
+        List<Integer> netPerThread = runConcurrently(() -> {
+            int net = 0;
+            for (int i = 0; i < 2000; i++) {
+                int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                if (ThreadLocalRandom.current().nextBoolean()) {
+                    if (inventoryService.reserve(beer.getId(), quantity)) {
+                        net -= quantity;
+                    }
+                } else {
+                    inventoryService.release(beer.getId(), quantity);
+                    net += quantity;
+                }
+            }
+            return net;
+        });
+        inventoryService.flush();
+
+        int expected = 1000 + netPerThread.stream().mapToInt(Integer::intValue).sum();
+        assertThat(inventoryService.availableStock(beer.getId())).isEqualTo(expected);
+        assertThat(beerRepository.findById(beer.getId()).orElseThrow().getQuantityOnHand()).isEqualTo(expected);
+    }
+
+    @Test
+    void testEvictWritesPendingAndReloads() {
+        assertThat(inventoryService.reserve(beer.getId(), 40)).isTrue();
+        assertThat(beerRepository.findById(beer.getId()).orElseThrow().getQuantityOnHand()).isEqualTo(1000);
+
+        inventoryService.evict(beer.getId());
+        assertThat(inventoryService.availableStock(beer.getId())).isNull();
+        assertThat(beerRepository.findById(beer.getId()).orElseThrow().getQuantityOnHand()).isEqualTo(960);
+
+        assertThat(inventoryService.reserve(beer.getId(), 960)).isTrue();
+        assertThat(inventoryService.reserve(beer.getId(), 1)).isFalse();
+    }
+
+    //a PUT sets quantity_on_hand in the same transaction that evicts the held stock
+    @Test
+    void testUpdateReplacesHeldStock() {
+        assertThat(inventoryService.reserve(beer.getId(), 40)).isTrue();
+
+        BeerDTO updated = beerService.updateBeerById(beer.getId(), BeerDTO.builder()
+                .beerName(beer.getBeerName())
+                .beerStyle(beer.getBeerStyle())
+                .upc(beer.getUpc())
+                .price(beer.getPrice())
+                .quantityOnHand(500)
+                .build()).orElseThrow();
+
+        assertThat(updated.getQuantityOnHand()).isEqualTo(500);
+        assertThat(inventoryService.availableStock(beer.getId())).isNull();
+        inventoryService.flush();
+        assertThat(beerRepository.findById(beer.getId()).orElseThrow().getQuantityOnHand()).isEqualTo(500);
+        assertThat(inventoryService.reserve(beer.getId(), 500)).isTrue();
+        assertThat(inventoryService.reserve(beer.getId(), 1)).isFalse();
+    }
+
+    //the order's transaction rolls back after its allocation, even after a flush wrote the allocation out
+    @Test
+    void testRolledBackOrderHandsBackStock() {
+        Customer customer = customerRepository.save(Customer.builder().customerName("Rollback Test").build());
+        long ordersBefore = beerOrderRepository.count();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            BeerOrderDTO order = beerOrderService.placeOrder(BeerOrderCreateDTO.builder()
+                    .customerId(customer.getId())
+                    .beerOrderLines(List.of(BeerOrderLineCreateDTO.builder()
+                            .beerId(beer.getId())
+                            .orderQuantity(300)
+                            .build()))
+                    .build());
+            assertThat(order.getBeerOrderLines()).singleElement()
+                    .satisfies(line -> assertThat(line.getQuantityAllocated()).isEqualTo(300));
+
+            inventoryService.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(beerOrderRepository.count()).isEqualTo(ordersBefore);
+        assertThat(inventoryService.availableStock(beer.getId())).isEqualTo(1000);
+        inventoryService.flush();
+        assertThat(beerRepository.findById(beer.getId()).orElseThrow().getQuantityOnHand()).isEqualTo(1000);
+    }
+
+    @Test
+    void testEvictInTransactionHoldsBeerUntilCommit() throws Exception {
+        assertThat(inventoryService.reserve(beer.getId(), 40)).isTrue();
+        CountDownLatch evicted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        CompletableFuture<Void> transaction = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    inventoryService.evict(beer.getId());
+                    //the pending change was written in this transaction, this thread now works on the row
+                    assertThat(inventoryService.reserve(beer.getId(), 5)).isTrue();
+                    evicted.countDown();
+                    await(commit);
+                }));
+        evicted.await();
+
+        CompletableFuture<Boolean> reservation = CompletableFuture.supplyAsync(() ->
+                inventoryService.reserve(beer.getId(), 955));
+        Thread.sleep(200);
+        assertThat(reservation).isNotDone();
+
+        commit.countDown();
+        transaction.get(5, TimeUnit.SECONDS);
+        assertThat(reservation.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(inventoryService.reserve(beer.getId(), 1)).isFalse();
+        assertThat(beerRepository.findById(beer.getId()).orElseThrow().getQuantityOnHand()).isEqualTo(955);
+    }
+
+    @Test
+    void testEvictInRolledBackTransactionRestoresCounter() {
+        assertThat(inventoryService.reserve(beer.getId(), 40)).isTrue();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            inventoryService.evict(beer.getId());
+            status.setRollbackOnly();
+        });
+
+        assertThat(inventoryService.availableStock(beer.getId())).isEqualTo(960);
+        assertThat(beerRepository.findById(beer.getId()).orElseThrow().getQuantityOnHand()).isEqualTo(1000);
+        inventoryService.flush();
+        assertThat(beerRepository.findById(beer.getId()).orElseThrow().getQuantityOnHand()).isEqualTo(960);
+    }
+
+    //a CSV upsert of a known UPC sets quantity_on_hand, held reservations go out before it and not after
+    @Test
+    void testCsvUpsertEvictsUpdatedBeer() {
+        beerCsvUpsertWriter.write(List.of(csvBeer(100)));
+        Beer imported = beerRepository.findAll().stream()
+                .filter(stored -> "csv-998877".equals(stored.getUpc()))
+                .findFirst().orElseThrow();
+        assertThat(inventoryService.reserve(imported.getId(), 40)).isTrue();
+
+        beerCsvUpsertWriter.write(List.of(csvBeer(500)));
+        assertThat(inventoryService.availableStock(imported.getId())).isNull();
+
+        inventoryService.flush();
+        assertThat(beerRepository.findById(imported.getId()).orElseThrow().getQuantityOnHand()).isEqualTo(500);
+        assertThat(inventoryService.reserve(imported.getId(), 500)).isTrue();
+        assertThat(inventoryService.reserve(imported.getId(), 1)).isFalse();
+    }
+
+    @Test
+    void testRestartRecoversFromDatabase() {
+        assertThat(inventoryService.reserve(beer.getId(), 250)).isTrue();
+        inventoryService.shutdown();
+
+        InventoryServiceWriteBehind restarted = new InventoryServiceWriteBehind(beerRepository, jdbcTemplate,
+                transactionManager, cacheManager, entityManagerFactory, 50);
+
+        assertThat(restarted.reserve(beer.getId(), 751)).isFalse();
+        assertThat(restarted.reserve(beer.getId(), 750)).isTrue();
+    }
+
+    @Test
+    void testUnknownBeer() {
+        assertThat(inventoryService.reserve(UUID.randomUUID(), 1)).isFalse();
+    }
+
+    private static Beer csvBeer(int quantityOnHand) {
+        return Beer.builder()
+                .beerName("Imported Beer")
+                .beerStyle(BeerStyle.PILSNER)
+                .upc("csv-998877")
+                .price(new BigDecimal("4.99"))
+                .quantityOnHand(quantityOnHand)
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<Integer> runConcurrently(Callable<Integer> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+
+        List<Integer> results = new ArrayList<>();
+        for (Future<Integer> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+        return results;
+    }
+}
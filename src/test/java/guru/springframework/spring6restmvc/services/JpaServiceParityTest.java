@@ -0,0 +1,56 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.mappers.BeerMapperImpl;
+import guru.springframework.spring6restmvc.mappers.BeerOrderMapperImpl;
+import guru.springframework.spring6restmvc.mappers.CategoryMapperImpl;
+import guru.springframework.spring6restmvc.mappers.CustomerMapperImpl;
+import guru.springframework.spring6restmvc.mappers.DateMapperImpl;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import guru.springframework.spring6restmvc.repositories.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+//not transactional, so every call commits and versions move as they would behind the controllers
+@DataJpaTest
+@Import({BeerServiceJPA.class, CategoryServiceJPA.class, CustomerServiceJPA.class, BeerCountCache.class,
+        InventoryServiceJPA.class, BeerMapperImpl.class, CategoryMapperImpl.class, CustomerMapperImpl.class,
+        BeerOrderMapperImpl.class, DateMapperImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaServiceParityTest extends ServiceParityScenarios {
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    CustomerService customerService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    BeerCountCache beerCountCache;
+
+    @BeforeEach
+    void setUp() {
+        beerRepository.deleteAllInBatch();
+        customerRepository.deleteAllInBatch();
+        beerCountCache.invalidateAll();
+    }
+
+    @Override
+    BeerService beerService() {
+        return beerService;
+    }
+
+    @Override
+    CustomerService customerService() {
+        return customerService;
+    }
+}
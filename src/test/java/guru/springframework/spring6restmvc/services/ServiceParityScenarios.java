@@ -0,0 +1,295 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerCursor;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.model.BeerWithCategoriesDTO;
+import guru.springframework.spring6restmvc.model.CustomerDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The same scenarios against BeerServiceImpl/CustomerServiceImpl and their JPA counterparts, see
+ * InMemoryServiceParityTest and JpaServiceParityTest. Both start from an empty store.
+ */
+abstract class ServiceParityScenarios {
+
+    abstract BeerService beerService();
+
+    abstract CustomerService customerService();
+
+    @Test
+    void testSaveAndGetBeer() {
+        BeerDTO saved = beerService().saveNewBeer(beer("Pale Rider", BeerStyle.PALE_ALE, 10));
+
+        assertThat(saved.getId()).isNotNull();
+        assertThat(saved.getVersion()).isZero();
+        assertThat(saved.getCreatedDate()).isNotNull();
+
+        BeerDTO found = beerService().getBeerById(saved.getId()).orElseThrow();
+        assertThat(found.getBeerName()).isEqualTo("Pale Rider");
+        assertThat(found.getBeerStyle()).isEqualTo(BeerStyle.PALE_ALE);
+        assertThat(found.getQuantityOnHand()).isEqualTo(10);
+        assertThat(found.getPrice()).isEqualByComparingTo("7.99");
+        assertThat(beerService().getBeerVersion(saved.getId())).contains(0);
+    }
+
+    @Test
+    void testReturnedBeersAreCopies() {
+        BeerDTO saved = beerService().saveNewBeer(beer("Pale Rider", BeerStyle.PALE_ALE, 10));
+
+        saved.setBeerName("Changed By Caller");
+        beerService().getBeerById(saved.getId()).orElseThrow().setQuantityOnHand(0);
+
+        BeerDTO found = beerService().getBeerById(saved.getId()).orElseThrow();
+        assertThat(found.getBeerName()).isEqualTo("Pale Rider");
+        assertThat(found.getQuantityOnHand()).isEqualTo(10);
+    }
+
+    @Test
+    void testListBeersFiltersAndSorts() {
+        saveBeers();
+
+        assertThat(names(beerService().listBeers("ale", null, true, 1, 25)))
+                .containsExactly("Ale Storm", "Cask ALE", "Dark Pale", "Pale Rider");
+        assertThat(names(beerService().listBeers(null, BeerStyle.ALE, true, 1, 25)))
+                .containsExactly("Ale Storm", "Cask ALE");
+        assertThat(names(beerService().listBeers("ALE", BeerStyle.PORTER, true, 1, 25)))
+                .containsExactly("Dark Pale");
+        assertThat(names(beerService().listBeers("no such beer", null, true, 1, 25))).isEmpty();
+
+        Page<BeerDTO> all = beerService().listBeers(null, null, null, null, null);
+        assertThat(names(all)).containsExactly("Ale Storm", "Anchor Porter", "Cask ALE", "Dark Pale",
+                "Gose Goose", "Pale Rider");
+        assertThat(all.getTotalElements()).isEqualTo(6);
+        assertThat(all.getSize()).isEqualTo(25);
+    }
+
+    @Test
+    void testListBeersPages() {
+        saveBeers();
+
+        Page<BeerDTO> second = beerService().listBeers(null, null, true, 2, 2);
+        assertThat(names(second)).containsExactly("Cask ALE", "Dark Pale");
+        assertThat(second.getNumber()).isEqualTo(1);
+        assertThat(second.getTotalElements()).isEqualTo(6);
+        assertThat(second.getTotalPages()).isEqualTo(3);
+
+        Page<BeerDTO> filtered = beerService().listBeers("ale", null, true, 2, 3);
+        assertThat(names(filtered)).containsExactly("Pale Rider");
+        assertThat(filtered.getTotalElements()).isEqualTo(4);
+
+        Page<BeerDTO> beyond = beerService().listBeers(null, null, true, 4, 2);
+        assertThat(beyond.getContent()).isEmpty();
+        assertThat(beyond.getTotalElements()).isEqualTo(6);
+
+        Slice<BeerDTO> slice = beerService().listBeersWithoutTotal(null, null, true, 2, 2);
+        assertThat(names(slice)).containsExactly("Cask ALE", "Dark Pale");
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(beerService().listBeersWithoutTotal(null, null, true, 3, 2).hasNext()).isFalse();
+    }
+
+    @Test
+    void testListBeersShowInventory() {
+        saveBeers();
+
+        assertThat(beerService().listBeers(null, null, false, 1, 25).getContent())
+                .extracting(BeerDTO::getQuantityOnHand).containsOnlyNulls();
+        assertThat(beerService().listBeers(null, BeerStyle.ALE, true, 1, 25).getContent())
+                .extracting(BeerDTO::getQuantityOnHand).containsExactly(20, 30);
+    }
+
+    @Test
+    void testListBeersAfterCursor() {
+        saveBeers();
+
+        assertThat(seekNames(null, null, 4))
+                .containsExactly("Ale Storm", "Anchor Porter", "Cask ALE", "Dark Pale", "Gose Goose", "Pale Rider");
+        assertThat(seekNames("ale", null, 3)).containsExactly("Ale Storm", "Cask ALE", "Dark Pale", "Pale Rider");
+        assertThat(seekNames(null, BeerStyle.PORTER, 1)).containsExactly("Anchor Porter", "Dark Pale");
+
+        Slice<BeerDTO> first = beerService().listBeersAfter(null, null, false, null, 4);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first.getContent()).extracting(BeerDTO::getQuantityOnHand).containsOnlyNulls();
+    }
+
+    @Test
+    void testUpdateAndPatchBeer() {
+        BeerDTO saved = beerService().saveNewBeer(beer("Pale Rider", BeerStyle.PALE_ALE, 10));
+
+        BeerDTO updated = beerService().updateBeerById(saved.getId(), beer("Pale Rider Reserve", BeerStyle.IPA, 99)
+                .toBuilder().version(saved.getVersion()).build()).orElseThrow();
+        assertThat(updated.getVersion()).isEqualTo(1);
+        assertThat(updated.getBeerName()).isEqualTo("Pale Rider Reserve");
+        assertThat(updated.getQuantityOnHand()).isEqualTo(99);
+
+        BeerDTO patched = beerService().patchBeerById(saved.getId(),
+                BeerDTO.builder().price(new BigDecimal("8.49")).quantityOnHand(1).build()).orElseThrow();
+        assertThat(patched.getVersion()).isEqualTo(2);
+        assertThat(patched.getPrice()).isEqualByComparingTo("8.49");
+        assertThat(patched.getQuantityOnHand()).isEqualTo(99);
+
+        //nothing to change, so no new version
+        BeerDTO unchanged = beerService().patchBeerById(saved.getId(), BeerDTO.builder().build()).orElseThrow();
+        assertThat(unchanged.getVersion()).isEqualTo(2);
+
+        assertThat(names(beerService().listBeers("reserve", BeerStyle.IPA, true, 1, 25)))
+                .containsExactly("Pale Rider Reserve");
+        assertThat(names(beerService().listBeers("rider", BeerStyle.PALE_ALE, true, 1, 25))).isEmpty();
+    }
+
+    @Test
+    void testStaleVersionsRejected() {
+        BeerDTO saved = beerService().saveNewBeer(beer("Pale Rider", BeerStyle.PALE_ALE, 10));
+        beerService().patchBeerById(saved.getId(), BeerDTO.builder().beerName("Pale Rider II").build());
+
+        assertThatThrownBy(() -> beerService().updateBeerById(saved.getId(), beer("Stale", BeerStyle.ALE, 1), 0))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThatThrownBy(() -> beerService().patchBeerById(saved.getId(),
+                BeerDTO.builder().beerName("Stale").build(), 0))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(beerService().getBeerById(saved.getId()).orElseThrow().getBeerName()).isEqualTo("Pale Rider II");
+        assertThat(beerService().patchBeerById(saved.getId(), BeerDTO.builder().beerName("Fresh").build(), 1))
+                .hasValueSatisfying(beer -> assertThat(beer.getVersion()).isEqualTo(2));
+    }
+
+    @Test
+    void testDeleteBeer() {
+        BeerDTO saved = beerService().saveNewBeer(beer("Pale Rider", BeerStyle.PALE_ALE, 10));
+
+        assertThat(beerService().deleteById(saved.getId())).isTrue();
+        assertThat(beerService().deleteById(saved.getId())).isFalse();
+        assertThat(beerService().getBeerById(saved.getId())).isEmpty();
+        assertThat(beerService().getBeerVersion(saved.getId())).isEmpty();
+        assertThat(beerService().listBeers("pale", null, true, 1, 25).getContent()).isEmpty();
+        assertThat(beerService().listBeers(null, null, true, 1, 25).getTotalElements()).isZero();
+    }
+
+    @Test
+    void testUnknownBeer() {
+        UUID unknown = UUID.randomUUID();
+        BeerDTO change = beer("Nobody", BeerStyle.ALE, 1);
+
+        assertThat(beerService().getBeerById(unknown)).isEmpty();
+        assertThat(beerService().updateBeerById(unknown, change)).isEmpty();
+        assertThat(beerService().updateBeerById(unknown, change, 0)).isEmpty();
+        assertThat(beerService().patchBeerById(unknown, change)).isEmpty();
+        assertThat(beerService().deleteById(unknown)).isFalse();
+        assertThat(beerService().allocateInventory(unknown, 1)).isFalse();
+    }
+
+    @Test
+    void testAllocateInventory() {
+        BeerDTO saved = beerService().saveNewBeer(beer("Pale Rider", BeerStyle.PALE_ALE, 10));
+
+        assertThat(beerService().allocateInventory(saved.getId(), 4)).isTrue();
+        assertThat(beerService().allocateInventory(saved.getId(), 7)).isFalse();
+
+        BeerDTO found = beerService().getBeerById(saved.getId()).orElseThrow();
+        assertThat(found.getQuantityOnHand()).isEqualTo(6);
+        assertThat(found.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void testForEachBeerAndCategoryListings() {
+        saveBeers();
+
+        List<String> ales = new ArrayList<>();
+        beerService().forEachBeer(BeerStyle.ALE, beer -> ales.add(beer.getBeerName()));
+        assertThat(ales).containsExactlyInAnyOrder("Ale Storm", "Cask ALE");
+
+        Page<BeerWithCategoriesDTO> withCategories = beerService().listBeersWithCategories(1, 4);
+        assertThat(withCategories.getContent()).extracting(beer -> beer.getBeer().getBeerName())
+                .containsExactly("Ale Storm", "Anchor Porter", "Cask ALE", "Dark Pale");
+        assertThat(withCategories.getContent()).allSatisfy(beer -> assertThat(beer.getCategories()).isEmpty());
+        assertThat(withCategories.getTotalElements()).isEqualTo(6);
+
+        Page<BeerDTO> byCategory = beerService().listBeersByCategory("No Such Category", null, 1, 25);
+        assertThat(byCategory.getContent()).isEmpty();
+        assertThat(byCategory.getTotalElements()).isZero();
+    }
+
+    @Test
+    void testCustomers() {
+        List<CustomerDTO> saved = customerService().saveNewCustomers(List.of(
+                CustomerDTO.builder().customerName("Fede Ricco").build(),
+                CustomerDTO.builder().customerName("Andrea Monizza").email("andrea@example.com").build(),
+                CustomerDTO.builder().customerName("John Thompson").build()));
+        UUID andrea = saved.get(1).getId();
+
+        assertThat(saved).extracting(CustomerDTO::getVersion).containsOnly(0);
+        assertThat(customerService().getCustomerById(andrea).orElseThrow().getEmail()).isEqualTo("andrea@example.com");
+
+        Page<CustomerDTO> first = customerService().listCustomers(1, 2);
+        assertThat(first.getContent()).extracting(CustomerDTO::getCustomerName)
+                .containsExactly("Andrea Monizza", "Fede Ricco");
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(customerService().listCustomersWithOrders(2, 2).getContent())
+                .extracting(customer -> customer.getCustomer().getCustomerName()).containsExactly("John Thompson");
+
+        assertThat(customerService().updateExistingCustomerById(andrea,
+                CustomerDTO.builder().customerName("Andrea M.").build()).orElseThrow().getVersion()).isEqualTo(1);
+        assertThat(customerService().patchCustomerById(andrea, CustomerDTO.builder().build())
+                .orElseThrow().getVersion()).isEqualTo(1);
+        assertThatThrownBy(() -> customerService().patchCustomerById(andrea,
+                CustomerDTO.builder().customerName("Stale").build(), 0))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(customerService().getCustomerVersion(andrea)).contains(1);
+
+        assertThat(customerService().deleteById(andrea)).isTrue();
+        assertThat(customerService().deleteById(andrea)).isFalse();
+        assertThat(customerService().getCustomerById(andrea)).isEmpty();
+        assertThat(customerService().patchCustomerById(andrea, CustomerDTO.builder().build())).isEmpty();
+        assertThat(customerService().listCustomers(1, 25).getTotalElements()).isEqualTo(2);
+    }
+
+    List<BeerDTO> saveBeers() {
+        return beerService().saveNewBeers(List.of(
+                beer("Pale Rider", BeerStyle.PALE_ALE, 10),
+                beer("Ale Storm", BeerStyle.ALE, 20),
+                beer("Cask ALE", BeerStyle.ALE, 30),
+                beer("Gose Goose", BeerStyle.GOSE, 40),
+                beer("Anchor Porter", BeerStyle.PORTER, 50),
+                beer("Dark Pale", BeerStyle.PORTER, 60)));
+    }
+
+    static BeerDTO beer(String beerName, BeerStyle beerStyle, int quantityOnHand) {
+        return BeerDTO.builder()
+                .beerName(beerName)
+                .beerStyle(beerStyle)
+                .upc("upc " + beerName)
+                .price(new BigDecimal("7.99"))
+                .quantityOnHand(quantityOnHand)
+                .build();
+    }
+
+    private List<String> seekNames(String beerName, BeerStyle beerStyle, int pageSize) {
+        List<String> names = new ArrayList<>();
+        BeerCursor cursor = null;
+
+        Slice<BeerDTO> slice;
+        do {
+            slice = beerService().listBeersAfter(beerName, beerStyle, true, cursor, pageSize);
+            names.addAll(names(slice));
+            if (slice.hasContent()) {
+                cursor = BeerCursor.of(slice.getContent().getLast());
+            }
+        } while (slice.hasNext());
+        return names;
+    }
+
+    static List<String> names(Slice<BeerDTO> beers) {
+        return beers.getContent().stream().map(BeerDTO::getBeerName).toList();
+    }
+}